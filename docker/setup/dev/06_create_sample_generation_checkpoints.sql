@@ -0,0 +1,25 @@
+-- Sample data generation state (resume after an interrupted run)
+
+-- 実行中／最後の生成パラメータ（1行のみ）
+CREATE TABLE IF NOT EXISTS dev_database.sample_generation_state (
+    id TINYINT PRIMARY KEY,
+    seed BIGINT NOT NULL,
+    customer_count INT NOT NULL,
+    product_count INT NOT NULL,
+    order_count INT NOT NULL,
+    items_per_order INT NOT NULL,
+    chunk_size INT NOT NULL,
+    status ENUM('RUNNING', 'COMPLETED') NOT NULL,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- 完了したチャンク（チャンクのデータと同じトランザクションで記録）
+CREATE TABLE IF NOT EXISTS dev_database.sample_generation_checkpoints (
+    table_name VARCHAR(64) NOT NULL,
+    start_id BIGINT NOT NULL,
+    end_id BIGINT NOT NULL,
+    row_count BIGINT NOT NULL,
+    completed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (table_name, start_id)
+);
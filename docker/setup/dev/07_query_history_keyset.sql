@@ -0,0 +1,18 @@
+-- Query history keyset pagination and per-user counts
+
+-- (user_id, created_at, id) の降順走査でページを辿る（OFFSET を使わない）
+-- 外部キー user_id はこのインデックスの先頭列で満たせるので idx_user_id は不要
+ALTER TABLE dev_database.query_history
+    ADD INDEX idx_user_created_id (user_id, created_at, id),
+    DROP INDEX idx_user_id;
+
+-- ユーザーごとの履歴件数（INSERT/DELETE と同じトランザクションで更新し、ページごとの COUNT(*) を避ける）
+CREATE TABLE IF NOT EXISTS dev_database.query_history_count (
+    user_id INT PRIMARY KEY,
+    total BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+);
+
+-- 既存の履歴から初期値を作る
+REPLACE INTO dev_database.query_history_count (user_id, total)
+SELECT user_id, COUNT(*) FROM dev_database.query_history GROUP BY user_id;
@@ -0,0 +1,18 @@
+-- Query history summary columns and compressed EXPLAIN results
+
+-- 一覧用の SQL 先頭（sql_text の BLOB ページを読まずに一覧を返す）と元の文字数
+-- EXPLAIN 結果は MySQL の COMPRESS() 形式（4バイト長 + zlib）で explain_result_z に保存する
+ALTER TABLE dev_database.query_history
+    ADD COLUMN sql_preview VARCHAR(200) NOT NULL DEFAULT '' AFTER sql_text,
+    ADD COLUMN sql_length INT NOT NULL DEFAULT 0 AFTER sql_preview,
+    ADD COLUMN explain_result_z MEDIUMBLOB NULL AFTER explain_result;
+
+-- 既存行の移行（圧縮後は explain_result を空にする）
+UPDATE dev_database.query_history
+SET sql_preview = LEFT(sql_text, 200),
+    sql_length = CHAR_LENGTH(sql_text);
+
+UPDATE dev_database.query_history
+SET explain_result_z = COMPRESS(explain_result),
+    explain_result = NULL
+WHERE explain_result IS NOT NULL;
@@ -0,0 +1,6 @@
+-- Query history fingerprint (hash of the literal-free query shape)
+
+-- service.sql.SqlFingerprint の 64bit ハッシュ（導入前の行は NULL）
+ALTER TABLE dev_database.query_history
+    ADD COLUMN fingerprint BIGINT NULL AFTER sql_length,
+    ADD INDEX idx_fingerprint_created (fingerprint, created_at);
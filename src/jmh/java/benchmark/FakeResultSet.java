@@ -0,0 +1,146 @@
+package benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+// MySQL なしで ColumnarResult を動かすためのメモリ上の ResultSet（Proxy で必要なメソッドだけ実装）
+// 列は sample_orders を模した id / customer_id / order_status / total_amount / order_date / note
+// - order_status は低カーディナリティ（辞書圧縮が効く）、note は行ごとに異なる文字列
+// - 値は seed から決まるので、ベンチマークの実行ごとに同じデータになる
+final class FakeResultSet {
+
+    static final String[] COLUMN_LABELS = {
+            "id", "customer_id", "order_status", "total_amount", "order_date", "note"
+    };
+    private static final int[] COLUMN_TYPES = {
+            Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.DECIMAL, Types.DATE, Types.VARCHAR
+    };
+    private static final String[] STATUSES = {"PENDING", "PAID", "SHIPPED", "DELIVERED", "CANCELLED"};
+
+    private final Object[][] rows;
+    private final ResultSetMetaData metaData;
+    private int cursor = -1;
+    private boolean lastWasNull;
+
+    FakeResultSet(int rowCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate firstDay = LocalDate.of(2024, 1, 1);
+        rows = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = new Object[]{
+                    (long) (i + 1),
+                    random.nextInt(1, 50_001),
+                    STATUSES[random.nextInt(STATUSES.length)],
+                    BigDecimal.valueOf(random.nextLong(100, 10_000_000), 2),
+                    // 1割は NULL
+                    random.nextInt(10) == 0 ? null : firstDay.plusDays(random.nextInt(730)),
+                    "note-" + Long.toHexString(random.nextLong())
+            };
+        }
+        metaData = proxy(ResultSetMetaData.class, this::metaData);
+    }
+
+    // 先頭から読み直す新しい ResultSet（データは共有）
+    ResultSet open() {
+        cursor = -1;
+        return proxy(ResultSet.class, this::resultSet);
+    }
+
+    int getRowCount() {
+        return rows.length;
+    }
+
+    private Object resultSet(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "next":
+                return ++cursor < rows.length;
+            case "getMetaData":
+                return metaData;
+            case "wasNull":
+                return lastWasNull;
+            case "getLong": {
+                Object value = value(args);
+                return value != null ? ((Number) value).longValue() : 0L;
+            }
+            case "getInt": {
+                Object value = value(args);
+                return value != null ? ((Number) value).intValue() : 0;
+            }
+            case "getString": {
+                Object value = value(args);
+                return value != null ? value.toString() : null;
+            }
+            case "getBigDecimal":
+                return value(args);
+            case "getObject": {
+                Object value = value(args);
+                // getObject(index) は Connector/J と同じく DATE を java.sql.Date で返す
+                if (args.length == 1 && value instanceof LocalDate) {
+                    return Date.valueOf((LocalDate) value);
+                }
+                return value;
+            }
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object value(Object[] args) {
+        Object value = rows[cursor][(Integer) args[0] - 1];
+        lastWasNull = value == null;
+        return value;
+    }
+
+    private Object metaData(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getColumnCount":
+                return COLUMN_LABELS.length;
+            case "getColumnLabel":
+            case "getColumnName":
+                return COLUMN_LABELS[(Integer) args[0] - 1];
+            case "getColumnType":
+                return COLUMN_TYPES[(Integer) args[0] - 1];
+            case "isSigned":
+                return true;
+            case "getScale":
+                return COLUMN_TYPES[(Integer) args[0] - 1] == Types.DECIMAL ? 2 : 0;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+            return handler.invoke(method, args != null ? args : new Object[0]);
+        };
+        return (T) Proxy.newProxyInstance(FakeResultSet.class.getClassLoader(), new Class<?>[]{type},
+                invocationHandler);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import security.JwtTokenProvider;
+
+// JwtTokenProvider のトークン発行と検証（検証済みキャッシュのヒット時と、キャッシュなしで毎回署名検証する場合）
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET =
+            "sql-performance-tuning-app-secret-key-must-be-at-least-256-bits-long-for-hs256";
+    private static final long EXPIRATION_MS = 86_400_000L;
+
+    private JwtTokenProvider cachedProvider;
+    private JwtTokenProvider uncachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedProvider = new JwtTokenProvider(SECRET, EXPIRATION_MS, 10_000);
+        uncachedProvider = new JwtTokenProvider(SECRET, EXPIRATION_MS, 0);
+        token = cachedProvider.generateToken(1, "user@example.com", "User", "USER");
+        cachedProvider.parseToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncachedProvider.generateToken(1, "user@example.com", "User", "USER");
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return cachedProvider.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseAndVerify() {
+        return uncachedProvider.parseToken(token);
+    }
+}
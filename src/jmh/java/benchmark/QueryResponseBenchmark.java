@@ -0,0 +1,65 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import controller.dto.QueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.ColumnarResult;
+import service.QueryExecutionService;
+import service.explain.ExplainPlan;
+import service.explain.ExplainPlanParser;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// QueryResponse.fromResult（EXPLAIN JSON の再パースを含む）と JSON 化
+@State(Scope.Benchmark)
+public class QueryResponseBenchmark {
+
+    static final String EXPLAIN_JSON = "{\"query_block\":{\"select_id\":1,"
+            + "\"cost_info\":{\"query_cost\":\"1025.50\"},"
+            + "\"table\":{\"table_name\":\"sample_orders\",\"access_type\":\"ALL\","
+            + "\"possible_keys\":[\"idx_order_status\"],"
+            + "\"rows_examined_per_scan\":10000,\"rows_produced_per_join\":1000,\"filtered\":\"10.00\","
+            + "\"cost_info\":{\"read_cost\":\"925.50\",\"eval_cost\":\"100.00\",\"prefix_cost\":\"1025.50\"},"
+            + "\"used_columns\":[\"id\",\"customer_id\",\"order_status\",\"total_amount\",\"order_date\",\"note\"],"
+            + "\"attached_condition\":\"(`dev_database`.`sample_orders`.`order_status` = 'SHIPPED')\"}}}";
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    // true: 行を配列で返す compact 形式
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private ObjectMapper objectMapper;
+    private QueryExecutionService.QueryResult result;
+
+    @Setup
+    public void setUp() throws SQLException {
+        objectMapper = new ObjectMapper();
+        ResultSet rs = new FakeResultSet(rows, 42L).open();
+        ColumnarResult data = ColumnarResult.forMetaData(rs.getMetaData());
+        while (rs.next()) {
+            data.appendRow(rs);
+        }
+        ExplainPlan plan = new ExplainPlanParser(objectMapper).fromJson(EXPLAIN_JSON);
+        result = QueryExecutionService.QueryResult.success(
+                "SELECT * FROM sample_orders WHERE order_status = 'SHIPPED'",
+                "SELECT * FROM sample_orders WHERE order_status = 'SHIPPED' LIMIT 1000",
+                data.getColumnNames(), data, 12L, data.getRowCount(), plan);
+    }
+
+    @Benchmark
+    public QueryResponse fromResult() {
+        return QueryResponse.fromResult(result, compact);
+    }
+
+    @Benchmark
+    public byte[] fromResultAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(QueryResponse.fromResult(result, compact));
+    }
+}
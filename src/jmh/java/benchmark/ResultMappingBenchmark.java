@@ -0,0 +1,37 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.ColumnarResult;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// executeWithMetrics と同じ ResultSet → ColumnarResult の詰め替え
+// FakeResultSet は Proxy 経由の呼び出しなので、実ドライバーより1行あたりのオーバーヘッドが少し大きい
+@State(Scope.Benchmark)
+public class ResultMappingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private FakeResultSet source;
+
+    @Setup
+    public void setUp() {
+        source = new FakeResultSet(rows, 42L);
+    }
+
+    @Benchmark
+    public ColumnarResult mapRows() throws SQLException {
+        ResultSet rs = source.open();
+        ColumnarResult data = ColumnarResult.forMetaData(rs.getMetaData());
+        while (rs.next()) {
+            data.appendRow(rs);
+        }
+        return data;
+    }
+}
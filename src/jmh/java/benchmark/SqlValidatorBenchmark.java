@@ -0,0 +1,84 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.SqlValidator;
+import service.ValidationCache;
+
+// SqlValidator.validate（字句解析・検証・LIMIT 付与・フィンガープリント）と ValidationCache のヒット時
+@State(Scope.Benchmark)
+public class SqlValidatorBenchmark {
+
+    @Param({"simple", "join", "in_list", "subquery", "comments", "deep_parens", "long_literal"})
+    public String shape;
+
+    private SqlValidator validator;
+    private ValidationCache cache;
+    private String sql;
+
+    @Setup
+    public void setUp() {
+        validator = new SqlValidator(1000);
+        cache = new ValidationCache(validator, true, 2000, Integer.MAX_VALUE);
+        sql = sqlFor(shape);
+        // 1回通してキャッシュに載せる
+        cache.validate(sql, false);
+    }
+
+    @Benchmark
+    public SqlValidator.ValidationResult validate() {
+        return validator.validate(sql, false);
+    }
+
+    @Benchmark
+    public SqlValidator.ValidationResult validateCached() {
+        return cache.validate(sql, false);
+    }
+
+    static String sqlFor(String shape) {
+        switch (shape) {
+            case "simple":
+                return "SELECT * FROM sample_orders WHERE order_status = 'SHIPPED'";
+            case "join":
+                return "SELECT c.country, COUNT(*) AS orders, SUM(o.total_amount) AS revenue "
+                        + "FROM sample_orders o "
+                        + "JOIN sample_customers c ON c.id = o.customer_id "
+                        + "JOIN sample_order_items i ON i.order_id = o.id "
+                        + "JOIN sample_products p ON p.id = i.product_id "
+                        + "WHERE o.order_date >= '2024-01-01' AND p.category IN ('Books', 'Toys') "
+                        + "GROUP BY c.country HAVING COUNT(*) > 10 ORDER BY revenue DESC LIMIT 50";
+            case "in_list":
+                return "SELECT * FROM sample_orders WHERE id IN (" + repeat("?", ", ", 1000)
+                        .replace("?", "12345") + ")";
+            case "subquery":
+                return "SELECT * FROM sample_customers WHERE id IN ("
+                        + "SELECT customer_id FROM sample_orders WHERE total_amount > ("
+                        + "SELECT AVG(total_amount) FROM sample_orders)) "
+                        + "AND EXISTS (SELECT 1 FROM sample_order_items i WHERE i.order_id = sample_customers.id)";
+            case "comments":
+                // コメントの中の禁止語・セミコロン・FROM は無視される必要がある
+                return repeat("/* DROP DATABASE x; SELECT * FROM users */ -- FROM mysql.user\n", "", 200)
+                        + "SELECT 1 FROM sample_orders";
+            case "deep_parens":
+                return "SELECT " + repeat("(", "", 500) + "1" + repeat(")", "", 500) + " FROM sample_orders";
+            case "long_literal":
+                return "SELECT * FROM sample_products WHERE name = '" + repeat("x\\'", "", 20_000) + "'";
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    private static String repeat(String value, String separator, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
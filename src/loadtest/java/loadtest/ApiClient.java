@@ -0,0 +1,100 @@
+package loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// アプリの REST API を叩く最小限のクライアント（java.net.http）
+final class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    ApiClient(String baseUrl, Executor executor) {
+        this.baseUrl = baseUrl;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    // ログインしてトークンを返す。未登録（401）なら登録してからもう一度ログインする
+    String loginOrRegister(String username, String email, String password) throws IOException, InterruptedException {
+        ObjectNode login = objectMapper.createObjectNode()
+                .put("email", email)
+                .put("password", password);
+        HttpResponse<String> response = post("/api/auth/login", login, null);
+        if (response.statusCode() == 401) {
+            ObjectNode register = objectMapper.createObjectNode()
+                    .put("username", username)
+                    .put("email", email)
+                    .put("password", password);
+            HttpResponse<String> registered = post("/api/auth/register", register, null);
+            // 409: 同じメールアドレスで別のパスワードのユーザーが既にいる
+            if (registered.statusCode() != 201) {
+                throw new IOException("Register failed for " + email + ": HTTP " + registered.statusCode()
+                        + " " + registered.body());
+            }
+            response = post("/api/auth/login", login, null);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Login failed for " + email + ": HTTP " + response.statusCode()
+                    + " " + response.body());
+        }
+        return objectMapper.readTree(response.body()).path("token").asText();
+    }
+
+    HttpResponse<String> execute(String token, String sql, String explainMode) throws IOException, InterruptedException {
+        ObjectNode body = objectMapper.createObjectNode().put("sql", sql);
+        if (!explainMode.isEmpty()) {
+            body.put("explainMode", explainMode);
+        }
+        return post("/api/query/execute", body, token);
+    }
+
+    HttpResponse<String> compare(String token, List<String> queries, String mode) throws IOException, InterruptedException {
+        ObjectNode body = objectMapper.createObjectNode().put("mode", mode);
+        ArrayNode array = body.putArray("queries");
+        queries.forEach(array::add);
+        return post("/api/query/compare", body, token);
+    }
+
+    // 200 でもクエリ自体が失敗していれば status が SUCCESS 以外になる（compare は全件 SUCCESS で成功）
+    boolean isQuerySuccess(String responseBody) throws IOException {
+        JsonNode root = objectMapper.readTree(responseBody);
+        if (root.isArray()) {
+            for (JsonNode item : root) {
+                if (!"SUCCESS".equals(item.path("status").asText())) {
+                    return false;
+                }
+            }
+            return !root.isEmpty();
+        }
+        return "SUCCESS".equals(root.path("status").asText());
+    }
+
+    private HttpResponse<String> post(String path, JsonNode body, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
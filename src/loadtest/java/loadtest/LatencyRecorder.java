@@ -0,0 +1,181 @@
+package loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// エンドポイント別のレイテンシ（マイクロ秒）とサーバー側の段階別時間（Server-Timing）を集計する
+// 区間ごとに Recorder から取り出して表示し、ウォームアップ後の分だけ全体に加算する
+final class LatencyRecorder {
+
+    // 1µs 〜 10分
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Series> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Series> serverPhases = new ConcurrentHashMap<>();
+    // 初めて現れた順（= サーバー側の段階順）
+    private final List<Series> serverPhaseOrder = new CopyOnWriteArrayList<>();
+    private final HistogramLogWriter logWriter;
+
+    LatencyRecorder(PrintStream histogramLog) {
+        if (histogramLog != null) {
+            logWriter = new HistogramLogWriter(histogramLog);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(System.currentTimeMillis());
+            logWriter.outputLegend();
+        } else {
+            logWriter = null;
+        }
+    }
+
+    void record(String endpoint, long latencyNanos, Outcome outcome) {
+        Series series = endpoints.computeIfAbsent(endpoint, Series::new);
+        series.recorder.recordValue(clamp(TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        series.outcomes[outcome.ordinal()].increment();
+    }
+
+    // Server-Timing: "validate;dur=0.12, queue;dur=1.50, ..."（dur はミリ秒）
+    void recordServerTiming(String header) {
+        if (header == null || header.isEmpty()) {
+            return;
+        }
+        for (String entry : header.split(",")) {
+            String[] parts = entry.trim().split(";");
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("dur=")) {
+                    double millis = Double.parseDouble(param.substring(4));
+                    serverPhases.computeIfAbsent(parts[0].trim(), this::newServerPhase)
+                            .recorder.recordValue(clamp(Math.round(millis * 1000)));
+                }
+            }
+        }
+    }
+
+    private Series newServerPhase(String name) {
+        Series series = new Series(name);
+        serverPhaseOrder.add(series);
+        return series;
+    }
+
+    // 区間を締めて表示する。measuring=true なら全体の集計にも加える
+    void report(PrintStream out, double elapsedSeconds, double intervalSeconds, boolean measuring) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "[%7.1fs]%s", elapsedSeconds,
+                measuring ? "" : " (warmup)"));
+        for (Series series : endpoints.values()) {
+            Histogram interval = series.swap(measuring);
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            line.append(String.format(Locale.ROOT, "  %s %.1f req/s p50=%.1fms p99=%.1fms max=%.1fms",
+                    series.name, interval.getTotalCount() / intervalSeconds,
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue())));
+            if (logWriter != null && measuring) {
+                interval.setTag(series.name);
+                logWriter.outputIntervalHistogram(interval);
+            }
+        }
+        for (Series phase : serverPhaseOrder) {
+            phase.swap(measuring);
+        }
+        out.println(line);
+    }
+
+    void printSummary(PrintStream out, double measuredSeconds) {
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-10s %9s %7s %7s %7s %9s %9s %9s %9s %9s %9s",
+                "endpoint", "count", "http", "query", "io", "req/s", "p50(ms)", "p90(ms)", "p99(ms)",
+                "p99.9(ms)", "max(ms)"));
+        for (Series series : endpoints.values()) {
+            Histogram total = series.total;
+            out.println(String.format(Locale.ROOT, "%-10s %9d %7d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    series.name, total.getTotalCount(),
+                    series.totalOutcomes[Outcome.HTTP_ERROR.ordinal()],
+                    series.totalOutcomes[Outcome.QUERY_ERROR.ordinal()],
+                    series.totalOutcomes[Outcome.IO_ERROR.ordinal()],
+                    total.getTotalCount() / measuredSeconds,
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue())));
+        }
+
+        if (!serverPhaseOrder.isEmpty()) {
+            out.println();
+            out.println("server phases (Server-Timing of /execute)");
+            out.println(String.format(Locale.ROOT, "%-10s %9s %9s %9s %9s %9s %9s",
+                    "phase", "count", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+            for (Series phase : serverPhaseOrder) {
+                Histogram total = phase.total;
+                if (total.getTotalCount() == 0) {
+                    continue;
+                }
+                out.println(String.format(Locale.ROOT, "%-10s %9d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                        phase.name, total.getTotalCount(),
+                        millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                        millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                        millis(total.getMaxValue())));
+            }
+        }
+    }
+
+    private static long clamp(long micros) {
+        return Math.max(1, Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    enum Outcome {
+        OK,
+        // 2xx 以外
+        HTTP_ERROR,
+        // 200 だがクエリが ERROR / TIMEOUT
+        QUERY_ERROR,
+        // 接続失敗・タイムアウトなど
+        IO_ERROR
+    }
+
+    private static final class Series {
+        final String name;
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        final long[] totalOutcomes = new long[Outcome.values().length];
+        private Histogram recycled;
+
+        Series(String name) {
+            this.name = name;
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        // 表示スレッドからのみ呼ばれる
+        Histogram swap(boolean measuring) {
+            Histogram interval = recorder.getIntervalHistogram(recycled);
+            recycled = interval;
+            for (int i = 0; i < outcomes.length; i++) {
+                long count = outcomes[i].sumThenReset();
+                if (measuring) {
+                    totalOutcomes[i] += count;
+                }
+            }
+            if (measuring) {
+                total.add(interval);
+            }
+            return interval;
+        }
+    }
+}
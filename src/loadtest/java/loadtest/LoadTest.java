@@ -0,0 +1,204 @@
+package loadtest;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// エンドツーエンドの負荷試験（起動中のアプリ + docker の MySQL に対して実行する）
+//   ./gradlew loadTest -Pargs="--users=20 --concurrency=32 --rate=200 --duration=2m --workload=history"
+//
+// - rate > 0: オープンモデル。到着時刻を先に決め、レイテンシは「送るはずだった時刻」から測る
+//   （サーバーが詰まって送信が遅れた分も含める = coordinated omission を避ける）
+// - rate = 0: クローズドモデル。concurrency 本のワーカーが応答を待ってすぐ次を送る
+public final class LoadTest {
+
+    private static final String EXECUTE = "execute";
+    private static final String COMPARE = "compare";
+
+    private final LoadTestConfig config;
+    private final Workload workload;
+    private final LatencyRecorder recorder;
+    private final ApiClient client;
+    private final ExecutorService httpExecutor;
+    private final List<String> tokens = new ArrayList<>();
+    private final SplittableRandom seedRandom;
+    private final ThreadLocal<SplittableRandom> random;
+
+    private LoadTest(LoadTestConfig config, Workload workload, LatencyRecorder recorder) {
+        this.config = config;
+        this.workload = workload;
+        this.recorder = recorder;
+        this.httpExecutor = Executors.newCachedThreadPool(daemon("loadtest-http"));
+        this.client = new ApiClient(config.baseUrl, httpExecutor);
+        this.seedRandom = new SplittableRandom(config.seed);
+        this.random = ThreadLocal.withInitial(this::splitRandom);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Workload workload = Workload.load(config);
+        System.out.println("Load test: " + config);
+        System.out.println("Workload: " + workload.size() + " statements"
+                + (workload.skipped() > 0 ? " (" + workload.skipped() + " non-SELECT skipped)" : ""));
+
+        PrintStream histogramLog = config.histogramLog.isEmpty()
+                ? null : new PrintStream(new FileOutputStream(config.histogramLog), true);
+        try {
+            LoadTest loadTest = new LoadTest(config, workload, new LatencyRecorder(histogramLog));
+            loadTest.login();
+            loadTest.run();
+        } finally {
+            if (histogramLog != null) {
+                histogramLog.close();
+            }
+        }
+    }
+
+    private void login() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int i = 0; i < config.users; i++) {
+            String username = config.userPrefix + i;
+            tokens.add(client.loginOrRegister(username, username + "@example.com", config.password));
+        }
+        System.out.printf("Logged in %d users in %d ms%n", tokens.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long warmupEndNanos = startNanos + config.warmup.toNanos();
+        long endNanos = warmupEndNanos + config.duration.toNanos();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemon("loadtest-report"));
+        long intervalNanos = config.reportInterval.toNanos();
+        long[] lastReport = {startNanos};
+        reporter.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            // 区間の開始がウォームアップ後なら計測対象
+            recorder.report(System.out, (now - startNanos) / 1e9, (now - lastReport[0]) / 1e9,
+                    lastReport[0] >= warmupEndNanos);
+            lastReport[0] = now;
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        ThreadPoolExecutor workers = (ThreadPoolExecutor) Executors.newFixedThreadPool(config.concurrency,
+                daemon("loadtest-worker"));
+        if (config.rate > 0) {
+            runOpen(workers, startNanos, endNanos);
+        } else {
+            runClosed(workers, endNanos);
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.out.println("Timed out waiting for in-flight requests; " + workers.getQueue().size()
+                    + " queued requests dropped");
+            workers.shutdownNow();
+        }
+
+        reporter.shutdown();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        long now = System.nanoTime();
+        recorder.report(System.out, (now - startNanos) / 1e9, (now - lastReport[0]) / 1e9,
+                lastReport[0] >= warmupEndNanos);
+        recorder.printSummary(System.out, (now - warmupEndNanos) / 1e9);
+        httpExecutor.shutdownNow();
+    }
+
+    // 到着時刻を決めてワーカーに渡す。ワーカーが足りなければキューで待つ（待ち時間もレイテンシに含まれる）
+    private void runOpen(ThreadPoolExecutor workers, long startNanos, long endNanos) {
+        SplittableRandom arrivals = splitRandom();
+        double meanIntervalNanos = 1e9 / config.rate;
+        long intended = startNanos;
+        long warnedBacklog = 0;
+        while (true) {
+            intended += config.poisson
+                    ? (long) (-Math.log(1 - arrivals.nextDouble()) * meanIntervalNanos)
+                    : (long) meanIntervalNanos;
+            if (intended >= endNanos) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = intended;
+            workers.execute(() -> sendOne(intendedStart));
+
+            int backlog = workers.getQueue().size();
+            if (backlog > config.concurrency * 100L && backlog > warnedBacklog * 2) {
+                System.out.println("Client backlog " + backlog + " requests: the server cannot keep up with "
+                        + config.rate + " req/s at concurrency " + config.concurrency);
+                warnedBacklog = backlog;
+            }
+        }
+    }
+
+    private void runClosed(ThreadPoolExecutor workers, long endNanos) {
+        for (int i = 0; i < config.concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+                    sendOne(System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private void sendOne(long intendedStart) {
+        SplittableRandom r = random.get();
+        String token = tokens.get(r.nextInt(tokens.size()));
+        boolean compare = config.compareRatio > 0 && r.nextDouble() < config.compareRatio;
+        String endpoint = compare ? COMPARE : EXECUTE;
+
+        LatencyRecorder.Outcome outcome;
+        try {
+            HttpResponse<String> response;
+            if (compare) {
+                List<String> queries = new ArrayList<>(config.compareSize);
+                for (int i = 0; i < config.compareSize; i++) {
+                    queries.add(workload.next(r));
+                }
+                response = client.compare(token, queries, config.compareMode);
+            } else {
+                response = client.execute(token, workload.next(r), config.explainMode);
+                response.headers().firstValue("Server-Timing").ifPresent(recorder::recordServerTiming);
+            }
+            if (response.statusCode() / 100 != 2) {
+                outcome = LatencyRecorder.Outcome.HTTP_ERROR;
+            } else if (!client.isQuerySuccess(response.body())) {
+                outcome = LatencyRecorder.Outcome.QUERY_ERROR;
+            } else {
+                outcome = LatencyRecorder.Outcome.OK;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            outcome = LatencyRecorder.Outcome.IO_ERROR;
+        }
+        recorder.record(endpoint, System.nanoTime() - intendedStart, outcome);
+    }
+
+    private synchronized SplittableRandom splitRandom() {
+        return seedRandom.split();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// コマンドライン引数（--key=value）
+final class LoadTestConfig {
+
+    final String baseUrl;
+    // 合成ユーザー数（loadtest-user-<n>@example.com。ログインできなければ登録する）
+    final int users;
+    final String userPrefix;
+    final String password;
+    // 同時に処理中のリクエスト数の上限
+    final int concurrency;
+    // 到着レート（リクエスト/秒）。0 ならクローズドモデル（concurrency 本のワーカーが応答を待って次を送る）
+    final double rate;
+    // true: 到着間隔を指数分布（ポアソン到着）にする
+    final boolean poisson;
+    final Duration duration;
+    final Duration warmup;
+    // /compare に送る割合と、1回の比較に含めるクエリ数
+    final double compareRatio;
+    final int compareSize;
+    final String compareMode;
+    final String explainMode;
+    // file:<path> / history / classpath（同梱のサンプル）
+    final String workload;
+    final String jdbcUrl;
+    final String dbUser;
+    final String dbPassword;
+    final int historyLimit;
+    final int historyDays;
+    final long seed;
+    final Duration reportInterval;
+    // HdrHistogram のログ（HistogramLogPlotter などで読める）。空なら書かない
+    final String histogramLog;
+
+    private LoadTestConfig(Map<String, String> options) {
+        baseUrl = stripTrailingSlash(get(options, "base-url", "http://localhost:8080"));
+        users = Integer.parseInt(get(options, "users", "10"));
+        userPrefix = get(options, "user-prefix", "loadtest-user-");
+        password = get(options, "password", "loadtest-password");
+        concurrency = Integer.parseInt(get(options, "concurrency", "16"));
+        rate = Double.parseDouble(get(options, "rate", "0"));
+        poisson = Boolean.parseBoolean(get(options, "poisson", "true"));
+        duration = parseDuration(get(options, "duration", "60s"));
+        warmup = parseDuration(get(options, "warmup", "10s"));
+        compareRatio = Double.parseDouble(get(options, "compare-ratio", "0.1"));
+        compareSize = Integer.parseInt(get(options, "compare-size", "3"));
+        compareMode = get(options, "compare-mode", "parallel");
+        explainMode = get(options, "explain-mode", "");
+        workload = get(options, "workload", "classpath");
+        jdbcUrl = get(options, "jdbc-url", "jdbc:mysql://127.0.0.1:3307/dev_database");
+        dbUser = get(options, "db-user", "root");
+        dbPassword = get(options, "db-password", "dev_password");
+        historyLimit = Integer.parseInt(get(options, "history-limit", "10000"));
+        historyDays = Integer.parseInt(get(options, "history-days", "7"));
+        seed = Long.parseLong(get(options, "seed", String.valueOf(System.nanoTime())));
+        reportInterval = parseDuration(get(options, "report-interval", "5s"));
+        histogramLog = get(options, "histogram-log", "");
+
+        if (users < 1 || concurrency < 1 || compareSize < 1 || compareSize > 5) {
+            throw new IllegalArgumentException("users and concurrency must be >= 1, compare-size 1..5");
+        }
+        if (rate < 0 || compareRatio < 0 || compareRatio > 1) {
+            throw new IllegalArgumentException("rate must be >= 0 and compare-ratio within 0..1");
+        }
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestConfig(options);
+    }
+
+    private static String get(Map<String, String> options, String key, String defaultValue) {
+        String value = options.get(key);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    // 30s / 5m / 500ms / 1h（単位なしは秒）
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("h")) {
+            return Duration.ofHours(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    @Override
+    public String toString() {
+        return "baseUrl=" + baseUrl + ", users=" + users + ", concurrency=" + concurrency
+                + ", rate=" + (rate > 0 ? rate + "/s" + (poisson ? " (poisson)" : " (constant)") : "closed-loop")
+                + ", duration=" + duration + ", warmup=" + warmup
+                + ", compareRatio=" + compareRatio + " x" + compareSize + " (" + compareMode + ")"
+                + ", workload=" + workload + ", seed=" + seed;
+    }
+}
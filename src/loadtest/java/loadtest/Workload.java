@@ -0,0 +1,141 @@
+package loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// 再生する SQL の集合と重み付きサンプリング
+// - ファイル: 1行1文。"#" で始まる行と空行は無視。"<重み>\t<SQL>" で重みを指定（省略時 1）
+// - history: query_history の直近の成功した実行をそのまま1件ずつ（頻度とリテラルのばらつきを保つ）
+final class Workload {
+
+    private final List<String> statements;
+    // 累積重み（二分探索で引く）
+    private final long[] cumulativeWeights;
+    private final int skipped;
+
+    private Workload(List<String> statements, List<Long> weights, int skipped) {
+        if (statements.isEmpty()) {
+            throw new IllegalStateException("Workload is empty");
+        }
+        this.statements = statements;
+        this.cumulativeWeights = new long[weights.size()];
+        long total = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        this.skipped = skipped;
+    }
+
+    static Workload load(LoadTestConfig config) throws IOException, SQLException {
+        if (config.workload.equals("history")) {
+            return fromHistory(config);
+        }
+        if (config.workload.equals("classpath")) {
+            InputStream in = Workload.class.getResourceAsStream("/workload-sample.txt");
+            if (in == null) {
+                throw new IllegalStateException("workload-sample.txt is not on the classpath");
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return fromLines(new BufferedReader(reader));
+            }
+        }
+        if (config.workload.startsWith("file:")) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(config.workload.substring(5)),
+                    StandardCharsets.UTF_8)) {
+                return fromLines(reader);
+            }
+        }
+        throw new IllegalArgumentException("Unknown workload: " + config.workload);
+    }
+
+    private static Workload fromLines(BufferedReader reader) throws IOException {
+        List<String> statements = new ArrayList<>();
+        List<Long> weights = new ArrayList<>();
+        int skipped = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            long weight = 1;
+            int tab = trimmed.indexOf('\t');
+            if (tab > 0 && trimmed.substring(0, tab).chars().allMatch(Character::isDigit)) {
+                weight = Long.parseLong(trimmed.substring(0, tab));
+                trimmed = trimmed.substring(tab + 1).trim();
+            }
+            if (weight <= 0 || !isReplayable(trimmed)) {
+                skipped++;
+                continue;
+            }
+            statements.add(trimmed);
+            weights.add(weight);
+        }
+        return new Workload(statements, weights, skipped);
+    }
+
+    private static Workload fromHistory(LoadTestConfig config) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        List<Long> weights = new ArrayList<>();
+        int skipped = 0;
+        String sql = "SELECT sql_text FROM query_history WHERE status = 'SUCCESS' AND created_at >= ? "
+                + "ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (Connection connection = DriverManager.getConnection(config.jdbcUrl, config.dbUser, config.dbPassword);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(config.historyDays)));
+            ps.setInt(2, config.historyLimit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String statement = rs.getString(1).trim();
+                    if (!isReplayable(statement)) {
+                        skipped++;
+                        continue;
+                    }
+                    statements.add(statement);
+                    weights.add(1L);
+                }
+            }
+        }
+        return new Workload(statements, weights, skipped);
+    }
+
+    // 合成ユーザー（一般ユーザー）が実行できるのは SELECT のみ。それ以外は送っても検証エラーになるだけなので除く
+    private static boolean isReplayable(String sql) {
+        String head = sql.replaceFirst("^[\\s(]+", "").toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("explain select");
+    }
+
+    String next(SplittableRandom random) {
+        long total = cumulativeWeights[cumulativeWeights.length - 1];
+        long point = random.nextLong(total);
+        int index = Arrays.binarySearch(cumulativeWeights, point + 1);
+        return statements.get(index >= 0 ? index : -index - 1);
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    int skipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,47 @@
+package config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// 用途ごとに独立した Hikari プール（バルクヘッド）
+// - app:   ユーザー・履歴・メッセージなどアプリのメタデータ（@Primary。無指定で注入される）
+// - query: ユーザーが投入した SQL（QueryExecutionService）
+// - bulk:  サンプルデータ生成（DataGeneratorService。LOAD DATA LOCAL はこのプールだけ許可）
+// 接続先（url / username / password）は spring.datasource.* を共有し、プール設定だけ分ける
+@Configuration
+public class DataSourceConfig {
+
+    // @Qualifier に指定する Bean 名
+    public static final String QUERY = "queryDataSource";
+    public static final String BULK = "bulkDataSource";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return create(properties, "app-pool");
+    }
+
+    @Bean(QUERY)
+    @ConfigurationProperties("query.datasource.hikari")
+    public HikariDataSource queryDataSource(DataSourceProperties properties) {
+        return create(properties, "query-pool");
+    }
+
+    @Bean(BULK)
+    @ConfigurationProperties("sample.generator.datasource.hikari")
+    public HikariDataSource bulkDataSource(DataSourceProperties properties) {
+        return create(properties, "bulk-pool");
+    }
+
+    private static HikariDataSource create(DataSourceProperties properties, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // pool-name はプロパティで上書きできる（@ConfigurationProperties はこの後にバインドされる）
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -0,0 +1,10 @@
+package config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled を有効化（履歴の保持期間管理など）
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,48 @@
+package controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import security.CustomUserDetails;
+import service.analytics.FingerprintStats;
+import service.analytics.QueryAnalyticsService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final QueryAnalyticsService queryAnalyticsService;
+
+    public AnalyticsController(QueryAnalyticsService queryAnalyticsService) {
+        this.queryAnalyticsService = queryAnalyticsService;
+    }
+
+    // 自分のクエリ形状ごとの統計
+    @GetMapping("/fingerprints")
+    public ResponseEntity<List<FingerprintStats>> getMyFingerprints(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "total") String sort,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return ResponseEntity.ok(queryAnalyticsService.report(
+                userDetails.getId(), hours, Math.min(Math.max(limit, 1), MAX_LIMIT), sort));
+    }
+
+    // 全ユーザー合算（共有 MySQL に負荷をかけている形状を探す）
+    @GetMapping("/fingerprints/global")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<FingerprintStats>> getGlobalFingerprints(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "total") String sort) {
+
+        return ResponseEntity.ok(queryAnalyticsService.report(
+                null, hours, Math.min(Math.max(limit, 1), MAX_LIMIT), sort));
+    }
+}
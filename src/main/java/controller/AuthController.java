@@ -16,6 +16,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import security.CustomUserDetails;
@@ -69,7 +70,9 @@ public class AuthController {
         // Generate JWT token
         String token = jwtTokenProvider.generateToken(
                 savedUser.getId().orElse(null),
-                savedUser.getEmail()
+                savedUser.getEmail(),
+                savedUser.getUsername(),
+                savedUser.getRoleName() != null ? savedUser.getRoleName() : "USER"
         );
 
         AuthResponse response = new AuthResponse(
@@ -111,4 +114,16 @@ public class AuthController {
                     .body(new ApiError(401, "Invalid email or password"));
         }
     }
+
+    // トークンを失効させる（有効期限まで認証に使えなくなる）
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")
+                || !jwtTokenProvider.revoke(authorization.substring(7))) {
+            return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiError(401, "Invalid or missing token"));
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -9,6 +9,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import service.QueryRejectedException;
 
 import java.util.stream.Collectors;
 
@@ -54,6 +55,13 @@ public class GlobalExceptionHandler {
                 .body(new ApiError(409, ex.getMessage()));
     }
 
+    @ExceptionHandler(QueryRejectedException.class)
+    public ResponseEntity<ApiError> handleQueryRejected(QueryRejectedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new ApiError(429, ex.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiError> handleRuntimeException(RuntimeException ex) {
         ex.printStackTrace();
@@ -1,14 +1,19 @@
 package controller;
 
 import controller.dto.HistoryResponse;
+import controller.dto.HistorySummaryResponse;
 import controller.dto.PagedResponse;
-import core.query.QueryHistory;
 import core.query.QueryHistoryRepository;
+import core.query.QueryHistorySummary;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import security.CustomUserDetails;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,25 +31,41 @@ public class HistoryController {
     }
 
     @GetMapping
-    public ResponseEntity<PagedResponse<HistoryResponse>> getHistory(
+    public ResponseEntity<PagedResponse<HistorySummaryResponse>> getHistory(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
 
         // ページサイズ制限
         int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
-        int offset = page * pageSize;
 
-        List<QueryHistory> histories = queryHistoryRepository.findByUserId(
-                userDetails.getId(), pageSize, offset);
+        // cursor 指定時はキーセット（深いページでも OFFSET 分を読み飛ばさない）、未指定時は page による OFFSET
+        // 一覧は要約のみ（SQL 先頭と数値列。EXPLAIN 結果は詳細取得時に読む）
+        List<QueryHistorySummary> histories;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = decodeCursor(cursor);
+            histories = queryHistoryRepository.findSummariesByUserIdBefore(
+                    userDetails.getId(), position.createdAt, position.id, pageSize);
+        } else {
+            int offset = Math.max(page, 0) * pageSize;
+            histories = queryHistoryRepository.findSummariesByUserId(userDetails.getId(), pageSize, offset);
+        }
 
+        // 件数は query_history_count から取得（COUNT(*) しない）
         int totalCount = queryHistoryRepository.countByUserId(userDetails.getId());
 
-        List<HistoryResponse> responses = histories.stream()
-                .map(HistoryResponse::fromEntity)
+        List<HistorySummaryResponse> responses = histories.stream()
+                .map(HistorySummaryResponse::fromEntity)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(PagedResponse.of(responses, page, pageSize, totalCount));
+        String nextCursor = null;
+        if (histories.size() == pageSize) {
+            QueryHistorySummary last = histories.get(histories.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return ResponseEntity.ok(PagedResponse.of(responses, page, pageSize, totalCount, nextCursor));
     }
 
     @GetMapping("/{id}")
@@ -57,4 +78,31 @@ public class HistoryController {
                 .map(h -> ResponseEntity.ok(HistoryResponse.fromEntity(h)))
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    // カーソルは最後の行の (created_at, id) を Base64URL にしたもの
+    static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String value = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('_');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    static final class Cursor {
+        final LocalDateTime createdAt;
+        final Long id;
+
+        Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
 }
@@ -1,43 +1,155 @@
 package controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import controller.dto.*;
 import core.query.QueryHistory;
-import core.query.QueryHistoryRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import security.CustomUserDetails;
+import service.ConnectionPoolMonitor;
+import service.HistoryRetentionService;
 import service.QueryExecutionService;
-
+import service.QueryHistoryWriter;
+import service.QueryResultCache;
+import service.QueryScheduler;
+import service.ValidationCache;
+import service.analytics.QueryAnalyticsService;
+import service.replica.ReplicaRouter;
+import service.explain.ExplainMode;
+import service.metrics.QueryMetrics;
+import service.metrics.QueryPhase;
+import service.metrics.QueryTimings;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/query")
 public class QueryController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int DEFAULT_BENCHMARK_ITERATIONS = 5;
+    private static final int DEFAULT_BENCHMARK_WARMUP = 1;
+
     private final QueryExecutionService queryExecutionService;
-    private final QueryHistoryRepository queryHistoryRepository;
+    private final QueryHistoryWriter queryHistoryWriter;
+    private final HistoryRetentionService historyRetentionService;
+    private final QueryAnalyticsService queryAnalyticsService;
+    private final QueryScheduler queryScheduler;
+    private final QueryResultCache queryResultCache;
+    private final ValidationCache validationCache;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+    private final ReplicaRouter replicaRouter;
+    private final QueryMetrics queryMetrics;
+    private final ObjectMapper objectMapper;
 
     public QueryController(QueryExecutionService queryExecutionService,
-                           QueryHistoryRepository queryHistoryRepository) {
+                           QueryHistoryWriter queryHistoryWriter,
+                           HistoryRetentionService historyRetentionService,
+                           QueryAnalyticsService queryAnalyticsService,
+                           QueryScheduler queryScheduler,
+                           QueryResultCache queryResultCache,
+                           ValidationCache validationCache,
+                           ConnectionPoolMonitor connectionPoolMonitor,
+                           ReplicaRouter replicaRouter,
+                           QueryMetrics queryMetrics,
+                           ObjectMapper objectMapper) {
         this.queryExecutionService = queryExecutionService;
-        this.queryHistoryRepository = queryHistoryRepository;
+        this.queryHistoryWriter = queryHistoryWriter;
+        this.historyRetentionService = historyRetentionService;
+        this.queryAnalyticsService = queryAnalyticsService;
+        this.queryScheduler = queryScheduler;
+        this.queryResultCache = queryResultCache;
+        this.validationCache = validationCache;
+        this.connectionPoolMonitor = connectionPoolMonitor;
+        this.replicaRouter = replicaRouter;
+        this.queryMetrics = queryMetrics;
+        this.objectMapper = objectMapper;
     }
 
+    // レスポンスには段階別の所要時間を Server-Timing ヘッダーで付ける
+    // JSON はバッファせずレスポンスへ直接書き出す。ヘッダーはボディより先に送るので、
+    // serialize は /stream と同じくメトリクスにのみ記録する
     @PostMapping("/execute")
-    public ResponseEntity<QueryResponse> executeQuery(
+    public void executeQuery(
             @Valid @RequestBody QueryRequest request,
-            @AuthenticationPrincipal CustomUserDetails userDetails) {
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            HttpServletResponse httpResponse) throws IOException {
 
-        QueryExecutionService.QueryResult result =
-                queryExecutionService.executeQuery(request.getSql(), userDetails.isAdmin());
+        String queryId = resolveQueryId(request);
+        ExplainMode explainMode = ExplainMode.parse(request.getExplainMode(), null);
+        QueryExecutionService.QueryResult result = queryExecutionService.executeQuery(
+                request.getSql(), userDetails.getId(), userDetails.isAdmin(), queryId, explainMode);
 
         // 履歴保存
         saveHistory(userDetails.getId(), result);
 
-        return ResponseEntity.ok(QueryResponse.fromResult(result));
+        QueryResponse response = QueryResponse.fromResult(result, request.isCompact());
+        response.setQueryId(queryId);
+
+        QueryTimings timings = result.getTimings();
+        httpResponse.setStatus(HttpStatus.OK.value());
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        httpResponse.setHeader("Server-Timing", timings.toServerTiming());
+
+        long serializeStart = System.nanoTime();
+        objectMapper.writeValue(httpResponse.getOutputStream(), response);
+        timings.since(QueryPhase.SERIALIZE, serializeStart);
+        queryMetrics.record(timings);
+    }
+
+    @PostMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamQuery(
+            @Valid @RequestBody QueryRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        Integer userId = userDetails.getId();
+        boolean isAdmin = userDetails.isAdmin();
+        String queryId = resolveQueryId(request);
+
+        // スケジューラへの投入はここで行う（キュー満杯ならレスポンスを書き始める前に 429）
+        QueryExecutionService.PendingStream pending =
+                queryExecutionService.startStream(request.getSql(), userId, isAdmin, queryId);
+
+        // 結果は ResultSet からレスポンスへ直接書き出す（全行をヒープに載せない）
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            QueryExecutionService.QueryResult result = queryExecutionService.writeStream(pending, generator);
+            generator.flush();
+
+            // 履歴保存
+            saveHistory(userId, result);
+            queryMetrics.record(result.getTimings());
+        };
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Query-Id", queryId)
+                .body(body);
+    }
+
+    @DeleteMapping("/running/{queryId}")
+    public ResponseEntity<?> cancelQuery(
+            @PathVariable String queryId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        if (!queryExecutionService.cancelQuery(queryId, userDetails.getId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiError(404, "No running query found: " + queryId));
+        }
+        return ResponseEntity.ok(Map.of("queryId", queryId, "cancelled", true));
     }
 
     @PostMapping("/explain")
@@ -46,7 +158,8 @@ public class QueryController {
             @AuthenticationPrincipal CustomUserDetails userDetails) {
 
         QueryExecutionService.ExplainResult result =
-                queryExecutionService.getExplainOnly(request.getSql(), userDetails.isAdmin());
+                queryExecutionService.getExplainOnly(request.getSql(), userDetails.getId(), userDetails.isAdmin(),
+                        ExplainMode.parse(request.getExplainMode(), null), resolveQueryId(request));
 
         return ResponseEntity.ok(ExplainResponse.fromResult(result));
     }
@@ -56,28 +169,77 @@ public class QueryController {
             @Valid @RequestBody CompareRequest request,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
 
-        List<QueryExecutionService.QueryResult> results =
-                queryExecutionService.compareQueries(request.getQueries(), userDetails.isAdmin());
+        Integer userId = userDetails.getId();
+        boolean isAdmin = userDetails.isAdmin();
+        String mode = request.getMode() != null ? request.getMode().toLowerCase() : "serial";
+
+        List<QueryExecutionService.QueryResult> results;
+        switch (mode) {
+            case "parallel":
+                results = queryExecutionService.compareQueriesParallel(request.getQueries(), userId, isAdmin);
+                break;
+            case "benchmark":
+                results = queryExecutionService.benchmarkQueries(
+                        request.getQueries(),
+                        userId,
+                        isAdmin,
+                        request.getIterations() != null ? request.getIterations() : DEFAULT_BENCHMARK_ITERATIONS,
+                        request.getWarmup() != null ? request.getWarmup() : DEFAULT_BENCHMARK_WARMUP
+                );
+                break;
+            case "serial":
+                results = queryExecutionService.compareQueries(request.getQueries(), userId, isAdmin);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown compare mode: " + request.getMode());
+        }
 
         // 各クエリの履歴を保存
         for (QueryExecutionService.QueryResult result : results) {
             saveHistory(userDetails.getId(), result);
+            queryMetrics.record(result.getTimings());
         }
 
         List<QueryResponse> responses = results.stream()
-                .map(QueryResponse::fromResult)
+                .map(result -> QueryResponse.fromResult(result, request.isCompact()))
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scheduler", queryScheduler.getStats());
+        stats.put("cache", queryResultCache.getStats());
+        stats.put("validation", validationCache.getStats());
+        stats.put("history", queryHistoryWriter.getStats());
+        stats.put("retention", historyRetentionService.getStats());
+        stats.put("analytics", queryAnalyticsService.getStats());
+        stats.put("pools", connectionPoolMonitor.getStats());
+        stats.put("replicas", replicaRouter.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    private String resolveQueryId(QueryRequest request) {
+        String queryId = request.getQueryId();
+        return queryId != null && !queryId.isBlank() ? queryId : UUID.randomUUID().toString();
+    }
+
     private void saveHistory(Integer userId, QueryExecutionService.QueryResult result) {
+        long start = System.nanoTime();
         try {
             QueryHistory history = QueryHistory.fromQueryResult(userId, result);
-            queryHistoryRepository.save(history);
+            // キューに積むだけ（保存は QueryHistoryWriter がまとめて行う）
+            queryHistoryWriter.enqueue(history);
+            queryAnalyticsService.record(history, result.getFingerprint());
         } catch (Exception e) {
             // 履歴保存失敗はログのみ（クエリ実行には影響させない）
-            System.err.println("Failed to save query history: " + e.getMessage());
+            System.err.println("Failed to queue query history: " + e.getMessage());
+        }
+        if (result.getTimings() != null) {
+            result.getTimings().since(QueryPhase.HISTORY, start);
         }
     }
 }
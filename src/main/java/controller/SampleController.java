@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import service.DataGeneratorService;
+import service.generator.GenerationMode;
 
 import java.util.Map;
 
@@ -24,7 +25,10 @@ public class SampleController {
             @RequestParam(defaultValue = "10000") int customers,
             @RequestParam(defaultValue = "1000") int products,
             @RequestParam(defaultValue = "50000") int orders,
-            @RequestParam(defaultValue = "3") int itemsPerOrder) {
+            @RequestParam(defaultValue = "3") int itemsPerOrder,
+            @RequestParam(defaultValue = "insert") String mode,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "false") boolean resume) {
 
         // 制限チェック
         if (customers > 1000000 || products > 100000 || orders > 5000000) {
@@ -32,11 +36,30 @@ public class SampleController {
                     .body(new ApiError(400, "Data limits exceeded. Max: 1M customers, 100K products, 5M orders"));
         }
 
+        // insert: 複数行 INSERT / load_data: LOAD DATA LOCAL INFILE
+        GenerationMode generationMode = GenerationMode.parse(mode);
+
         try {
             // 非同期で実行
+            // resume=true: 前回中断した生成を保存済みのパラメータ・seed で続きから（件数と seed の指定は無視）
+            if (resume) {
+                new Thread(() -> {
+                    try {
+                        dataGeneratorService.resumeGeneration(generationMode);
+                    } catch (Exception e) {
+                        System.err.println("Data generation failed: " + e.getMessage());
+                    }
+                }).start();
+                return ResponseEntity.accepted().body(Map.of(
+                        "message", "Data generation resumed",
+                        "mode", generationMode
+                ));
+            }
+
             new Thread(() -> {
                 try {
-                    dataGeneratorService.generateAllData(customers, products, orders, itemsPerOrder);
+                    dataGeneratorService.generateAllData(customers, products, orders, itemsPerOrder,
+                            generationMode, seed);
                 } catch (Exception e) {
                     System.err.println("Data generation failed: " + e.getMessage());
                 }
@@ -47,7 +70,8 @@ public class SampleController {
                     "customers", customers,
                     "products", products,
                     "orders", orders,
-                    "itemsPerOrder", itemsPerOrder
+                    "itemsPerOrder", itemsPerOrder,
+                    "mode", generationMode
             ));
 
         } catch (IllegalStateException e) {
@@ -62,7 +86,9 @@ public class SampleController {
         return ResponseEntity.ok(Map.of(
                 "isGenerating", status.isGenerating(),
                 "progress", status.getProgress(),
-                "currentTask", status.getCurrentTask()
+                "currentTask", status.getCurrentTask(),
+                // JavaScript の数値で精度が落ちないよう文字列で返す
+                "seed", status.getSeed() != null ? status.getSeed().toString() : ""
         ));
     }
 
@@ -1,5 +1,7 @@
 package controller.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -15,4 +17,23 @@ public class CompareRequest {
     @NotEmpty(message = "At least one SQL query is required")
     @Size(max = 5, message = "Maximum 5 queries can be compared at once")
     private List<String> queries;
+
+    // 実行モード: "serial"（デフォルト）/ "parallel"（同時実行）/ "benchmark"（複数回実行して統計）
+    private String mode;
+
+    // benchmark モードの計測回数とウォームアップ回数
+    @Min(value = 1, message = "iterations must be at least 1")
+    @Max(value = 20, message = "Maximum 20 iterations")
+    private Integer iterations;
+
+    @Min(value = 0, message = "warmup must not be negative")
+    @Max(value = 5, message = "Maximum 5 warmup runs")
+    private Integer warmup;
+
+    // 結果形式: "objects"（デフォルト）/ "compact"
+    private String format;
+
+    public boolean isCompact() {
+        return "compact".equalsIgnoreCase(format);
+    }
 }
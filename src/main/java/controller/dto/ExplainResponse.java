@@ -1,9 +1,12 @@
 package controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import service.QueryExecutionService;
+import service.explain.ExplainPlan;
+import service.explain.PlanWarning;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +20,12 @@ public class ExplainResponse {
     private String indexUsed;
     private Integer rowsScanned;
     private String errorMessage;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExplainPlan plan;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<PlanWarning> warnings;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double estimatedCost;
 
     public static ExplainResponse fromResult(QueryExecutionService.ExplainResult result) {
         return new ExplainResponse(
@@ -24,7 +33,10 @@ public class ExplainResponse {
                 result.getExplainData(),
                 result.getIndexUsed(),
                 result.getRowsScanned(),
-                result.getErrorMessage()
+                result.getErrorMessage(),
+                result.getPlan(),
+                result.getPlan() != null ? result.getPlan().getWarnings() : null,
+                result.getPlan() != null ? result.getPlan().getEstimatedCost() : null
         );
     }
 }
@@ -1,6 +1,7 @@
 package controller.dto;
 
 import core.query.QueryHistory;
+import service.sql.SqlFingerprint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,10 +14,12 @@ import java.time.LocalDateTime;
 public class HistoryResponse {
     private Long id;
     private String sqlText;
+    private String fingerprint;
     private Integer executionTimeMs;
     private Integer rowsScanned;
     private Integer rowsReturned;
     private String indexUsed;
+    private Object explainResult;
     private String status;
     private LocalDateTime createdAt;
 
@@ -24,12 +27,28 @@ public class HistoryResponse {
         return new HistoryResponse(
                 history.getId().orElse(null),
                 history.getSqlText(),
+                history.getFingerprint() != null ? SqlFingerprint.toHex(history.getFingerprint()) : null,
                 history.getExecutionTimeMs(),
                 history.getRowsScanned(),
                 history.getRowsReturned(),
                 history.getIndexUsed(),
+                parseExplain(history.getExplainResult()),
                 history.getStatus().name(),
                 history.getCreatedAt()
         );
     }
+
+    // EXPLAIN結果をJSONからパース
+    private static Object parseExplain(String explainResult) {
+        if (explainResult == null) {
+            return null;
+        }
+        try {
+            com.fasterxml.jackson.databind.ObjectMapper mapper =
+                    new com.fasterxml.jackson.databind.ObjectMapper();
+            return mapper.readValue(explainResult, Object.class);
+        } catch (Exception e) {
+            return explainResult;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package controller.dto;
+
+import core.query.QueryHistorySummary;
+import service.sql.SqlFingerprint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 履歴一覧の1行（sqlText は先頭のみ。全文と EXPLAIN 結果は /api/history/{id} で取得）
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySummaryResponse {
+    private Long id;
+    private String sqlText;
+    private boolean sqlTruncated;
+    private String fingerprint;
+    private Integer executionTimeMs;
+    private Integer rowsScanned;
+    private Integer rowsReturned;
+    private String indexUsed;
+    private String status;
+    private LocalDateTime createdAt;
+
+    public static HistorySummaryResponse fromEntity(QueryHistorySummary summary) {
+        return new HistorySummaryResponse(
+                summary.getId(),
+                summary.getSqlPreview(),
+                summary.isSqlTruncated(),
+                summary.getFingerprint() != null ? SqlFingerprint.toHex(summary.getFingerprint()) : null,
+                summary.getExecutionTimeMs(),
+                summary.getRowsScanned(),
+                summary.getRowsReturned(),
+                summary.getIndexUsed(),
+                summary.getStatus().name(),
+                summary.getCreatedAt()
+        );
+    }
+}
@@ -15,9 +15,15 @@ public class PagedResponse<T> {
     private int pageSize;
     private int totalItems;
     private int totalPages;
+    // 次ページ取得用のカーソル（最終ページなら null）
+    private String nextCursor;
 
     public static <T> PagedResponse<T> of(List<T> items, int page, int pageSize, int totalItems) {
+        return of(items, page, pageSize, totalItems, null);
+    }
+
+    public static <T> PagedResponse<T> of(List<T> items, int page, int pageSize, int totalItems, String nextCursor) {
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
-        return new PagedResponse<>(items, page, pageSize, totalItems, totalPages);
+        return new PagedResponse<>(items, page, pageSize, totalItems, totalPages, nextCursor);
     }
 }
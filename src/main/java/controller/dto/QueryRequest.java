@@ -11,4 +11,17 @@ import lombok.NoArgsConstructor;
 public class QueryRequest {
     @NotBlank(message = "SQL is required")
     private String sql;
+
+    // 結果形式: "objects"（デフォルト, [{col: value}]）/ "compact"（columns + rows の配列）
+    private String format;
+
+    // 任意: クライアント側で採番したクエリID（DELETE /api/query/running/{queryId} でキャンセル）
+    private String queryId;
+
+    // 任意: 実行計画の取得モード none / traditional / cached / json / analyze（省略時は query.explain.mode）
+    private String explainMode;
+
+    public boolean isCompact() {
+        return "compact".equalsIgnoreCase(format);
+    }
 }
@@ -1,48 +1,91 @@
 package controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import service.ColumnarResult;
 import service.QueryExecutionService;
+import service.explain.ExplainPlan;
+import service.explain.PlanWarning;
 
 import java.util.List;
-import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class QueryResponse {
+    private String queryId;
     private String status;
     private String originalSql;
     private String processedSql;
     private List<String> columns;
-    private List<Map<String, Object>> data;
+    private ColumnarResult data;
+    // format=compact の場合のみ出力（[[v1, v2, ...], ...]）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private JsonSerializable rows;
     private Long executionTimeMs;
     private Integer rowsReturned;
     private Integer rowsScanned;
     private String indexUsed;
     private Object explainResult;
+    // 実行計画ツリー（explainMode=none の場合は出力しない）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExplainPlan plan;
+    // 実行計画から見つかったチューニング上の指摘
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<PlanWarning> warnings;
+    // オプティマイザの推定コスト（explainMode=json / analyze のみ）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double estimatedCost;
     private String errorMessage;
+    // クエリの形のハッシュ（リテラル違いの同じクエリは同じ値）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String fingerprint;
+    // true: キャッシュから返した結果（executionTimeMs は初回実行時の値）
+    private boolean cached;
+    // compare の benchmark モードのみ
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QueryExecutionService.BenchmarkStats benchmark;
 
     public static QueryResponse fromResult(QueryExecutionService.QueryResult result) {
+        return fromResult(result, false);
+    }
+
+    public static QueryResponse fromResult(QueryExecutionService.QueryResult result, boolean compact) {
         QueryResponse response = new QueryResponse();
         response.setStatus(result.getStatus());
         response.setOriginalSql(result.getOriginalSql());
         response.setProcessedSql(result.getProcessedSql());
         response.setColumns(result.getColumns());
-        response.setData(result.getData());
+        if (compact && result.getData() != null) {
+            response.setRows(result.getData().rowArrays());
+        } else {
+            response.setData(result.getData());
+        }
         response.setExecutionTimeMs(result.getExecutionTimeMs());
         response.setRowsReturned(result.getRowsReturned());
         response.setRowsScanned(result.getRowsScanned());
         response.setIndexUsed(result.getIndexUsed());
         response.setErrorMessage(result.getErrorMessage());
+        response.setBenchmark(result.getBenchmark());
+        response.setCached(result.isCached());
+        if (result.getFingerprint() != null) {
+            response.setFingerprint(result.getFingerprint().getHashHex());
+        }
+        response.setPlan(result.getPlan());
+        response.setWarnings(result.getWarnings());
+        if (result.getPlan() != null) {
+            response.setEstimatedCost(result.getPlan().getEstimatedCost());
+        }
 
         // EXPLAIN結果をJSONからパース
         if (result.getExplainResult() != null) {
             try {
                 com.fasterxml.jackson.databind.ObjectMapper mapper =
                         new com.fasterxml.jackson.databind.ObjectMapper();
-                response.setExplainResult(mapper.readValue(result.getExplainResult(), List.class));
+                response.setExplainResult(mapper.readValue(result.getExplainResult(), Object.class));
             } catch (Exception e) {
                 response.setExplainResult(result.getExplainResult());
             }
@@ -18,6 +18,8 @@ public class QueryHistory {
     private final String explainResult;
     private final Status status;
     private final LocalDateTime createdAt;
+    // クエリの形（リテラルを除いた SQL）の 64bit ハッシュ（service.sql.SqlFingerprint）
+    private Long fingerprint;
 
     public enum Status {
         SUCCESS, ERROR, TIMEOUT
@@ -53,6 +55,10 @@ public class QueryHistory {
         this.id = id;
     }
 
+    public void setFingerprint(Long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
     public static QueryHistory fromQueryResult(Integer userId,
                                                service.QueryExecutionService.QueryResult result) {
         Status status;
@@ -67,7 +73,7 @@ public class QueryHistory {
                 status = Status.ERROR;
         }
 
-        return new QueryHistory(
+        QueryHistory history = new QueryHistory(
                 userId,
                 result.getOriginalSql(),
                 result.getExecutionTimeMs() != null ? result.getExecutionTimeMs().intValue() : null,
@@ -77,5 +83,9 @@ public class QueryHistory {
                 result.getExplainResult(),
                 status
         );
+        if (result.getFingerprint() != null) {
+            history.setFingerprint(result.getFingerprint().getHash());
+        }
+        return history;
     }
 }
@@ -1,12 +1,21 @@
 package core.query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface QueryHistoryRepository {
     void save(QueryHistory queryHistory);
+    void saveAll(List<QueryHistory> histories);
     Optional<QueryHistory> findById(Long id);
-    List<QueryHistory> findByUserId(Integer userId, int limit, int offset);
+    List<QueryHistorySummary> findSummariesByUserId(Integer userId, int limit, int offset);
+    List<QueryHistorySummary> findSummariesByUserIdBefore(Integer userId, LocalDateTime createdAt, Long id, int limit);
     int countByUserId(Integer userId);
     void deleteOldRecords(Integer userId, int keepCount);
+    List<Integer> findUserIdsExceeding(int keepCount);
+    int deleteChunkBeyondKeepCount(Integer userId, int keepCount, int chunkSize);
+    int deleteChunkOlderThan(LocalDateTime cutoff, int chunkSize);
+    long findMaxId();
+    void forEachSince(LocalDateTime since, long maxId, int maxRows, Consumer<QueryHistory> consumer);
 }
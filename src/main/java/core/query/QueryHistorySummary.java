@@ -0,0 +1,52 @@
+package core.query;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// 一覧表示用の履歴（SQL は先頭 PREVIEW_LENGTH 文字のみ、EXPLAIN 結果は含まない）
+@Getter
+public class QueryHistorySummary {
+
+    public static final int PREVIEW_LENGTH = 200;
+
+    private final Long id;
+    private final Integer userId;
+    private final String sqlPreview;
+    private final int sqlLength;
+    private final Long fingerprint;
+    private final Integer executionTimeMs;
+    private final Integer rowsScanned;
+    private final Integer rowsReturned;
+    private final String indexUsed;
+    private final QueryHistory.Status status;
+    private final LocalDateTime createdAt;
+
+    public QueryHistorySummary(Long id, Integer userId, String sqlPreview, int sqlLength, Long fingerprint,
+                               Integer executionTimeMs, Integer rowsScanned, Integer rowsReturned,
+                               String indexUsed, QueryHistory.Status status, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.sqlPreview = sqlPreview;
+        this.sqlLength = sqlLength;
+        this.fingerprint = fingerprint;
+        this.executionTimeMs = executionTimeMs;
+        this.rowsScanned = rowsScanned;
+        this.rowsReturned = rowsReturned;
+        this.indexUsed = indexUsed;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    public boolean isSqlTruncated() {
+        return sqlPreview != null && sqlPreview.codePointCount(0, sqlPreview.length()) < sqlLength;
+    }
+
+    // 先頭 PREVIEW_LENGTH 文字（サロゲートペアを分断しないようコードポイント単位で数える）
+    public static String previewOf(String sql) {
+        if (sql == null || sql.codePointCount(0, sql.length()) <= PREVIEW_LENGTH) {
+            return sql;
+        }
+        return sql.substring(0, sql.offsetByCodePoints(0, PREVIEW_LENGTH));
+    }
+}
@@ -0,0 +1,14 @@
+package core.user;
+
+// 既存ユーザーの更新通知（ロール変更などをキャッシュ済みの認証情報に反映する）
+public class UserUpdatedEvent {
+    private final Integer userId;
+
+    public UserUpdatedEvent(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+}
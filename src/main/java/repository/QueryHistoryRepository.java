@@ -1,43 +1,59 @@
 package repository;
 
 import core.query.QueryHistory;
+import core.query.QueryHistorySummary;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class QueryHistoryRepository implements core.query.QueryHistoryRepository {
 
+    private static final int DEFAULT_DELETE_CHUNK = 500;
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
-    private final RowMapper<QueryHistory> rowMapper = (rs, rowNum) -> {
-        String statusStr = rs.getString("status");
-        QueryHistory.Status status;
-        switch (statusStr) {
-            case "SUCCESS":
-                status = QueryHistory.Status.SUCCESS;
-                break;
-            case "TIMEOUT":
-                status = QueryHistory.Status.TIMEOUT;
-                break;
-            default:
-                status = QueryHistory.Status.ERROR;
-        }
+    // 一覧用の列（sql_text / EXPLAIN 結果の BLOB は読まない）
+    private static final String SUMMARY_COLUMNS = "id, user_id, sql_preview, sql_length, fingerprint, " +
+            "execution_time_ms, rows_scanned, rows_returned, index_used, status, created_at";
+
+    // 詳細用の列（explain_result は圧縮列導入前の行のみ値を持つ）
+    private static final String DETAIL_COLUMNS = "id, user_id, sql_text, fingerprint, execution_time_ms, " +
+            "rows_scanned, rows_returned, index_used, explain_result, explain_result_z, status, created_at";
 
+    private final RowMapper<QueryHistory> rowMapper = (rs, rowNum) -> {
+        QueryHistory.Status status = statusOf(rs);
         Timestamp ts = rs.getTimestamp("created_at");
 
-        return new QueryHistory(
+        byte[] compressedExplain = rs.getBytes("explain_result_z");
+        String explainResult = compressedExplain != null
+                ? CompressedText.decompress(compressedExplain)
+                : rs.getString("explain_result");
+
+        QueryHistory history = new QueryHistory(
                 rs.getLong("id"),
                 rs.getInt("user_id"),
                 rs.getString("sql_text"),
@@ -45,37 +61,68 @@ public class QueryHistoryRepository implements core.query.QueryHistoryRepository
                 rs.getObject("rows_scanned", Integer.class),
                 rs.getObject("rows_returned", Integer.class),
                 rs.getString("index_used"),
-                rs.getString("explain_result"),
+                explainResult,
                 status,
                 ts != null ? ts.toLocalDateTime() : null
         );
+        history.setFingerprint(rs.getObject("fingerprint", Long.class));
+        return history;
     };
 
+    private final RowMapper<QueryHistorySummary> summaryRowMapper = (rs, rowNum) -> {
+        Timestamp ts = rs.getTimestamp("created_at");
+        return new QueryHistorySummary(
+                rs.getLong("id"),
+                rs.getInt("user_id"),
+                rs.getString("sql_preview"),
+                rs.getInt("sql_length"),
+                rs.getObject("fingerprint", Long.class),
+                rs.getObject("execution_time_ms", Integer.class),
+                rs.getObject("rows_scanned", Integer.class),
+                rs.getObject("rows_returned", Integer.class),
+                rs.getString("index_used"),
+                statusOf(rs),
+                ts != null ? ts.toLocalDateTime() : null
+        );
+    };
+
+    private static QueryHistory.Status statusOf(ResultSet rs) throws SQLException {
+        switch (rs.getString("status")) {
+            case "SUCCESS":
+                return QueryHistory.Status.SUCCESS;
+            case "TIMEOUT":
+                return QueryHistory.Status.TIMEOUT;
+            default:
+                return QueryHistory.Status.ERROR;
+        }
+    }
+
     public QueryHistoryRepository(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
     }
 
+    // EXPLAIN 結果は explain_result_z に圧縮して保存（explain_result には書かない）
+    private static final String INSERT_SQL = "INSERT INTO query_history (user_id, sql_text, sql_preview, sql_length, " +
+            "fingerprint, execution_time_ms, rows_scanned, rows_returned, index_used, explain_result_z, status, " +
+            "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // query_history_count はユーザーごとの件数（履歴の INSERT/DELETE と同じトランザクションで増減する）
+    private static final String INCREMENT_COUNT_SQL = "INSERT INTO query_history_count (user_id, total) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE total = total + ?";
+
     @Override
     public void save(QueryHistory queryHistory) {
-        String sql = "INSERT INTO query_history (user_id, sql_text, execution_time_ms, " +
-                "rows_scanned, rows_returned, index_used, explain_result, status, created_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setInt(1, queryHistory.getUserId());
-            ps.setString(2, queryHistory.getSqlText());
-            ps.setObject(3, queryHistory.getExecutionTimeMs());
-            ps.setObject(4, queryHistory.getRowsScanned());
-            ps.setObject(5, queryHistory.getRowsReturned());
-            ps.setString(6, queryHistory.getIndexUsed());
-            ps.setString(7, queryHistory.getExplainResult());
-            ps.setString(8, queryHistory.getStatus().name());
-            ps.setTimestamp(9, Timestamp.valueOf(queryHistory.getCreatedAt()));
-            return ps;
-        }, keyHolder);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                bind(ps, queryHistory);
+                return ps;
+            }, keyHolder);
+            jdbcTemplate.update(INCREMENT_COUNT_SQL, queryHistory.getUserId(), 1, 1);
+        });
 
         Number key = keyHolder.getKey();
         if (key != null) {
@@ -83,11 +130,56 @@ public class QueryHistoryRepository implements core.query.QueryHistoryRepository
         }
     }
 
+    // まとめて INSERT（rewriteBatchedStatements=true で複数行 INSERT 1文になる。生成 id は取得しない）
+    @Override
+    public void saveAll(List<QueryHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> countsByUser = new LinkedHashMap<>();
+        for (QueryHistory history : histories) {
+            countsByUser.merge(history.getUserId(), 1, Integer::sum);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    bind(ps, histories.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return histories.size();
+                }
+            });
+            for (Map.Entry<Integer, Integer> entry : countsByUser.entrySet()) {
+                jdbcTemplate.update(INCREMENT_COUNT_SQL, entry.getKey(), entry.getValue(), entry.getValue());
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, QueryHistory queryHistory) throws SQLException {
+        String sqlText = queryHistory.getSqlText();
+        ps.setInt(1, queryHistory.getUserId());
+        ps.setString(2, sqlText);
+        ps.setString(3, QueryHistorySummary.previewOf(sqlText));
+        ps.setInt(4, sqlText != null ? sqlText.codePointCount(0, sqlText.length()) : 0);
+        ps.setObject(5, queryHistory.getFingerprint());
+        ps.setObject(6, queryHistory.getExecutionTimeMs());
+        ps.setObject(7, queryHistory.getRowsScanned());
+        ps.setObject(8, queryHistory.getRowsReturned());
+        ps.setString(9, queryHistory.getIndexUsed());
+        ps.setBytes(10, CompressedText.compress(queryHistory.getExplainResult()));
+        ps.setString(11, queryHistory.getStatus().name());
+        ps.setTimestamp(12, Timestamp.valueOf(queryHistory.getCreatedAt()));
+    }
+
     @Override
     public Optional<QueryHistory> findById(Long id) {
         try {
             QueryHistory history = jdbcTemplate.queryForObject(
-                    "SELECT * FROM query_history WHERE id = ?",
+                    "SELECT " + DETAIL_COLUMNS + " FROM query_history WHERE id = ?",
                     rowMapper,
                     id
             );
@@ -98,32 +190,169 @@ public class QueryHistoryRepository implements core.query.QueryHistoryRepository
     }
 
     @Override
-    public List<QueryHistory> findByUserId(Integer userId, int limit, int offset) {
+    public List<QueryHistorySummary> findSummariesByUserId(Integer userId, int limit, int offset) {
         return jdbcTemplate.query(
-                "SELECT * FROM query_history WHERE user_id = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper,
+                "SELECT " + SUMMARY_COLUMNS + " FROM query_history WHERE user_id = ? " +
+                        "ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?",
+                summaryRowMapper,
                 userId, limit, offset
         );
     }
 
+    // キーセットページング: (createdAt, id) より古い行を idx_user_created_id の順に limit 件
+    // 行値比較 (created_at, id) < (?, ?) は範囲アクセスにならないことがあるので OR で展開する
+    @Override
+    public List<QueryHistorySummary> findSummariesByUserIdBefore(Integer userId, LocalDateTime createdAt,
+                                                                 Long id, int limit) {
+        Timestamp ts = Timestamp.valueOf(createdAt);
+        return jdbcTemplate.query(
+                "SELECT " + SUMMARY_COLUMNS + " FROM query_history WHERE user_id = ? " +
+                        "AND (created_at < ? OR (created_at = ? AND id < ?)) " +
+                        "ORDER BY created_at DESC, id DESC LIMIT ?",
+                summaryRowMapper,
+                userId, ts, ts, id, limit
+        );
+    }
+
     @Override
     public int countByUserId(Integer userId) {
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM query_history WHERE user_id = ?",
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT total FROM query_history_count WHERE user_id = ?",
                 Integer.class,
                 userId
         );
-        return count != null ? count : 0;
+        return counts.isEmpty() || counts.get(0) == null ? 0 : counts.get(0);
     }
 
     @Override
     public void deleteOldRecords(Integer userId, int keepCount) {
-        // 最新のkeepCount件以外を削除
-        jdbcTemplate.update(
-                "DELETE FROM query_history WHERE user_id = ? AND id NOT IN " +
-                        "(SELECT id FROM (SELECT id FROM query_history WHERE user_id = ? " +
-                        "ORDER BY created_at DESC LIMIT ?) AS recent)",
-                userId, userId, keepCount
+        // 最新のkeepCount件以外を削除（主キー指定の小さな DELETE を繰り返す）
+        int deleted;
+        do {
+            deleted = deleteChunkBeyondKeepCount(userId, keepCount, DEFAULT_DELETE_CHUNK);
+        } while (deleted == DEFAULT_DELETE_CHUNK);
+    }
+
+    // 保持件数を超えているユーザー（query_history_count から判定）
+    @Override
+    public List<Integer> findUserIdsExceeding(int keepCount) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM query_history_count WHERE total > ?",
+                Integer.class,
+                keepCount
         );
     }
+
+    // 最新 keepCount 件より古い行を最大 chunkSize 件削除し、削除件数を返す
+    // 境界行は idx_user_created_id だけで求まり、削除は主キー指定なのでロック範囲はそのチャンクの行に限られる
+    @Override
+    public int deleteChunkBeyondKeepCount(Integer userId, int keepCount, int chunkSize) {
+        List<Map<String, Object>> boundary = jdbcTemplate.queryForList(
+                "SELECT created_at, id FROM query_history WHERE user_id = ? " +
+                        "ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                userId, Math.max(keepCount - 1, 0)
+        );
+        if (keepCount > 0 && boundary.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids;
+        if (keepCount <= 0) {
+            ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM query_history WHERE user_id = ? ORDER BY created_at, id LIMIT ?",
+                    Long.class,
+                    userId, chunkSize
+            );
+        } else {
+            Object createdAt = boundary.get(0).get("created_at");
+            Object id = boundary.get(0).get("id");
+            ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM query_history WHERE user_id = ? " +
+                            "AND (created_at < ? OR (created_at = ? AND id < ?)) " +
+                            "ORDER BY created_at, id LIMIT ?",
+                    Long.class,
+                    userId, createdAt, createdAt, id, chunkSize
+            );
+        }
+        return deleteByIds(ids.isEmpty() ? Collections.emptyMap() : Map.of(userId, ids));
+    }
+
+    // cutoff より前に作られた行を最大 chunkSize 件削除し、削除件数を返す（idx_created_at の範囲走査）
+    @Override
+    public int deleteChunkOlderThan(LocalDateTime cutoff, int chunkSize) {
+        Map<Integer, List<Long>> idsByUser = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, user_id FROM query_history WHERE created_at < ? ORDER BY created_at, id LIMIT ?",
+                rs -> {
+                    idsByUser.computeIfAbsent(rs.getInt("user_id"), k -> new ArrayList<>()).add(rs.getLong("id"));
+                },
+                Timestamp.valueOf(cutoff), chunkSize
+        );
+        return deleteByIds(idsByUser);
+    }
+
+    // 履歴が無ければ 0
+    @Override
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM query_history", Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    // since 以降かつ id が maxId 以下の履歴を古い順に最大 maxRows 件（EXPLAIN 結果は読まない。集計の再構築用）
+    @Override
+    public void forEachSince(LocalDateTime since, long maxId, int maxRows, Consumer<QueryHistory> consumer) {
+        jdbcTemplate.query(
+                "SELECT id, user_id, sql_text, fingerprint, execution_time_ms, rows_scanned, rows_returned, " +
+                        "index_used, status, created_at FROM query_history WHERE created_at >= ? AND id <= ? " +
+                        "ORDER BY created_at, id LIMIT ?",
+                rs -> {
+                    Timestamp ts = rs.getTimestamp("created_at");
+                    QueryHistory history = new QueryHistory(
+                            rs.getLong("id"),
+                            rs.getInt("user_id"),
+                            rs.getString("sql_text"),
+                            rs.getObject("execution_time_ms", Integer.class),
+                            rs.getObject("rows_scanned", Integer.class),
+                            rs.getObject("rows_returned", Integer.class),
+                            rs.getString("index_used"),
+                            null,
+                            statusOf(rs),
+                            ts != null ? ts.toLocalDateTime() : null
+                    );
+                    history.setFingerprint(rs.getObject("fingerprint", Long.class));
+                    consumer.accept(history);
+                },
+                Timestamp.valueOf(since), maxId, maxRows
+        );
+    }
+
+    // 主キーで削除し、同じトランザクションでユーザーごとの件数を減らす
+    private int deleteByIds(Map<Integer, List<Long>> idsByUser) {
+        if (idsByUser.isEmpty()) {
+            return 0;
+        }
+        Integer deleted = transactionTemplate.execute(status -> {
+            int total = 0;
+            for (Map.Entry<Integer, List<Long>> entry : idsByUser.entrySet()) {
+                List<Long> ids = entry.getValue();
+                String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+                List<Object> args = new ArrayList<>(ids.size() + 1);
+                args.add(entry.getKey());
+                args.addAll(ids);
+                int count = jdbcTemplate.update(
+                        "DELETE FROM query_history WHERE user_id = ? AND id IN (" + placeholders + ")",
+                        args.toArray()
+                );
+                if (count > 0) {
+                    jdbcTemplate.update(
+                            "UPDATE query_history_count SET total = GREATEST(total - ?, 0) WHERE user_id = ?",
+                            count, entry.getKey()
+                    );
+                }
+                total += count;
+            }
+            return total;
+        });
+        return deleted != null ? deleted : 0;
+    }
 }
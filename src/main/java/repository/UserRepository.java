@@ -1,6 +1,8 @@
 package repository;
 
 import core.user.User;
+import core.user.UserUpdatedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -15,6 +17,7 @@ import java.util.Optional;
 @Repository
 public class UserRepository implements core.user.UserRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String SELECT_USER_WITH_ROLE =
             "SELECT u.id, u.role_id, u.username, u.email, u.password, u.created_at, r.role_name " +
@@ -34,8 +37,9 @@ public class UserRepository implements core.user.UserRepository {
         );
     };
 
-    public UserRepository(DataSource dataSource) {
+    public UserRepository(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -70,6 +74,8 @@ public class UserRepository implements core.user.UserRepository {
                     user.getPassword(),
                     user.getId().get()
             );
+            // キャッシュ済みの認証情報（PrincipalCache）を破棄
+            eventPublisher.publishEvent(new UserUpdatedEvent(user.getId().get()));
         }
     }
 
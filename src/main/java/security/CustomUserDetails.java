@@ -19,6 +19,18 @@ public class CustomUserDetails implements UserDetails {
     private final String role;
     private final Collection<? extends GrantedAuthority> authorities;
 
+    // JWT のクレームから復元（DB を引かない。パスワードは持たない）
+    public CustomUserDetails(Integer id, String email, String username, String role) {
+        this.id = id;
+        this.email = email;
+        this.password = null;
+        this.username = username;
+        this.role = role != null ? role : "USER";
+        this.authorities = Collections.singletonList(
+                new SimpleGrantedAuthority("ROLE_" + this.role)
+        );
+    }
+
     public CustomUserDetails(User user) {
         this.id = user.getId().orElse(null);
         this.email = user.getEmail();
@@ -1,9 +1,11 @@
 package security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,10 +21,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    // true: role クレームを持つトークンは DB を引かずに認証（ロール変更はトークンの再発行まで反映されない）
+    private final boolean trustRoleClaims;
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService,
+                                   @Value("${security.jwt.trust-role-claims:false}") boolean trustRoleClaims) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.trustRoleClaims = trustRoleClaims;
     }
 
     @Override
@@ -31,9 +37,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                Integer userId = jwtTokenProvider.getUserIdFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseToken(jwt) : null;
+            if (claims != null) {
+                Integer userId = Integer.parseInt(claims.getSubject());
+                String role = claims.get("role", String.class);
+                UserDetails userDetails = trustRoleClaims && role != null
+                        ? new CustomUserDetails(userId, claims.get("email", String.class),
+                                claims.get("name", String.class), role)
+                        : userDetailsService.loadUserById(userId);
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
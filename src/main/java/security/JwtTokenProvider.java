@@ -3,6 +3,7 @@ package security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
@@ -15,61 +16,104 @@ public class JwtTokenProvider {
 
     private final SecretKey key;
     private final long expirationMs;
+    // スレッドセーフなので1つを使い回す
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
 
     public JwtTokenProvider(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expirationMs) {
+            @Value("${jwt.expiration}") long expirationMs,
+            @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${jwt.revoked.max-per-user:50}") int revokedMaxPerUser) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = new VerifiedTokenCache(cacheMaxEntries, revokedMaxPerUser);
     }
 
     public String generateToken(Authentication authentication) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-        return generateToken(userDetails.getId(), userDetails.getUsername());
+        return generateToken(userDetails.getId(), userDetails.getUsername(),
+                userDetails.getDisplayName(), userDetails.getRole());
     }
 
     public String generateToken(Integer userId, String email) {
+        return generateToken(userId, email, null, null);
+    }
+
+    // name / role はクレームからの認証（security.jwt.trust-role-claims=true）で使う
+    public String generateToken(Integer userId, String email, String name, String role) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expirationMs);
 
         return Jwts.builder()
                 .subject(String.valueOf(userId))
                 .claim("email", email)
+                .claim("name", name)
+                .claim("role", role)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(key)
                 .compact();
     }
 
+    // 署名・有効期限を検証してクレームを返す（1回のパースで済ませる。無効・失効済みなら null）
+    // 検証済みのトークンは有効期限までキャッシュし、署名の再計算と JSON のパースを省く
+    public Claims parseToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String digest = VerifiedTokenCache.digest(token);
+        if (verifiedTokens.isRevoked(digest, now)) {
+            return null;
+        }
+
+        Claims claims = verifiedTokens.get(digest, now);
+        if (claims == null) {
+            try {
+                claims = parser.parseSignedClaims(token).getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+            verifiedTokens.put(digest, claims, now);
+        }
+        return verifiedTokens.isRevokedByCutoff(claims, now) ? null : claims;
+    }
+
+    // ログアウトなどでトークンを無効化（有効期限まで parseToken が null を返す）
+    public boolean revoke(String token) {
+        Claims claims = parseToken(token);
+        if (claims == null) {
+            return false;
+        }
+        long expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + expirationMs;
+        verifiedTokens.revoke(VerifiedTokenCache.digest(token), claims, expiresAt, System.currentTimeMillis());
+        return true;
+    }
+
+    // 有効期限を過ぎた失効トークンを削除（isRevoked はリクエストごとに全件を走査しない）
+    @Scheduled(initialDelayString = "${jwt.revoked.purge-interval-ms:60000}",
+            fixedDelayString = "${jwt.revoked.purge-interval-ms:60000}")
+    public void purgeRevoked() {
+        verifiedTokens.purgeExpired(System.currentTimeMillis());
+    }
+
     public Integer getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = parser.parseSignedClaims(token).getPayload();
 
         return Integer.parseInt(claims.getSubject());
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = parser.parseSignedClaims(token).getPayload();
 
         return claims.get("email", String.class);
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parseToken(token) != null;
     }
 }
@@ -0,0 +1,91 @@
+package security;
+
+import core.user.UserUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ユーザー id → 認証済みの CustomUserDetails
+// - JWT 認証のたびに user / role を JOIN して引かないためのキャッシュ
+// - TTL と件数上限つきの LRU
+// - UserRepository.save の更新（UserUpdatedEvent）でそのユーザーのエントリを破棄
+@Component
+public class PrincipalCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // メトリクス
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public PrincipalCache(
+            @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${security.principal-cache.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    // ttl-seconds=0 でキャッシュ無効
+    public boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    public synchronized CustomUserDetails get(Integer userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null || System.nanoTime() - entry.cachedAt > ttlNanos) {
+            if (entry != null) {
+                entries.remove(userId);
+            }
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.userDetails;
+    }
+
+    public synchronized void put(Integer userId, CustomUserDetails userDetails) {
+        if (!isEnabled()) {
+            return;
+        }
+        entries.put(userId, new Entry(userDetails, System.nanoTime()));
+        Iterator<Integer> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public synchronized void invalidate(Integer userId) {
+        entries.remove(userId);
+    }
+
+    @EventListener
+    public void onUserUpdated(UserUpdatedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public long getHits() { return hitCount.get(); }
+    public long getMisses() { return missCount.get(); }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final CustomUserDetails userDetails;
+        private final long cachedAt;
+
+        Entry(CustomUserDetails userDetails, long cachedAt) {
+            this.userDetails = userDetails;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
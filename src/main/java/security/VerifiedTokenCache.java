@@ -0,0 +1,217 @@
+package security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 署名検証済みトークンのキャッシュ（トークンの SHA-256 → クレームと有効期限）
+// - トークン文字列そのものは保持しない
+// - 有効期限を過ぎたエントリは返さない（exp のないトークンはキャッシュしない）
+// - revoke したトークンは有効期限まで拒否する
+//   失効リストはユーザー（sub）ごとに maxRevokedPerUser 件まで。溢れた古いものは
+//   「そのユーザーの iat がこれ以前のトークンはすべて拒否」というユーザー単位の区切りにまとめる
+//   （1つのアカウントがログアウトを繰り返しても他のユーザーの失効に影響しない）
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final int maxRevokedPerUser;
+    private final LinkedHashMap<String, Entry> verified = new LinkedHashMap<>(16, 0.75f, true);
+    // digest → 失効情報。期限切れのトークンはどのみち検証で弾かれるので期限後に削除
+    // 挿入順（トークンの有効期間は一定なので概ね exp 順）。先頭から期限切れを落とす
+    private final LinkedHashMap<String, Revocation> revoked = new LinkedHashMap<>();
+    // sub → そのユーザーの失効トークンの digest（古い順）
+    private final Map<String, ArrayDeque<String>> revokedByUser = new HashMap<>();
+    // sub → iat がこれ以前のトークンを拒否する区切り
+    private final Map<String, Cutoff> cutoffs = new HashMap<>();
+
+    VerifiedTokenCache(int maxEntries, int maxRevokedPerUser) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxRevokedPerUser = Math.max(1, maxRevokedPerUser);
+    }
+
+    static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // キャッシュ済みで有効期限内ならクレーム、それ以外は null
+    synchronized Claims get(String digest, long nowMillis) {
+        Entry entry = verified.get(digest);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis >= entry.expiresAt) {
+            verified.remove(digest);
+            return null;
+        }
+        return entry.claims;
+    }
+
+    synchronized void put(String digest, Claims claims, long nowMillis) {
+        if (maxEntries == 0 || claims.getExpiration() == null) {
+            return;
+        }
+        // nbf がまだ先のトークンはキャッシュしない
+        if (claims.getNotBefore() != null && claims.getNotBefore().getTime() > nowMillis) {
+            return;
+        }
+        verified.put(digest, new Entry(claims, claims.getExpiration().getTime()));
+        Iterator<Entry> iterator = verified.values().iterator();
+        while (verified.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    // 該当エントリだけを見る。期限切れならその場で削除
+    synchronized boolean isRevoked(String digest, long nowMillis) {
+        Revocation revocation = revoked.get(digest);
+        if (revocation == null) {
+            return false;
+        }
+        if (nowMillis >= revocation.expiresAt) {
+            remove(digest, revocation);
+            return false;
+        }
+        return true;
+    }
+
+    // ユーザー単位の区切りより前に発行されたトークンか（iat のないトークンは区切りがあれば拒否）
+    synchronized boolean isRevokedByCutoff(Claims claims, long nowMillis) {
+        Cutoff cutoff = cutoffs.get(subjectOf(claims));
+        if (cutoff == null) {
+            return false;
+        }
+        if (nowMillis >= cutoff.expiresAt) {
+            cutoffs.remove(subjectOf(claims));
+            return false;
+        }
+        return claims.getIssuedAt() == null || claims.getIssuedAt().getTime() <= cutoff.issuedAt;
+    }
+
+    synchronized void revoke(String digest, Claims claims, long expiresAt, long nowMillis) {
+        purgeExpiredHead(nowMillis);
+        verified.remove(digest);
+        if (revoked.containsKey(digest)) {
+            return;
+        }
+        String subject = subjectOf(claims);
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : Long.MAX_VALUE;
+        revoked.put(digest, new Revocation(subject, issuedAt, expiresAt));
+        ArrayDeque<String> digests = revokedByUser.computeIfAbsent(subject, k -> new ArrayDeque<>());
+        digests.addLast(digest);
+
+        // 上限を超えた分は古いものから区切りに畳む（畳んだトークンも区切りで拒否され続ける）
+        while (digests.size() > maxRevokedPerUser) {
+            Revocation oldest = revoked.remove(digests.pollFirst());
+            if (oldest != null) {
+                cutoffs.merge(subject, new Cutoff(oldest.issuedAt, oldest.expiresAt), Cutoff::max);
+            }
+        }
+    }
+
+    // 全件を走査して期限切れを削除（定期実行用）
+    synchronized int purgeExpired(long nowMillis) {
+        int before = revoked.size();
+        Iterator<Map.Entry<String, Revocation>> iterator = revoked.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Revocation> entry = iterator.next();
+            if (nowMillis >= entry.getValue().expiresAt) {
+                iterator.remove();
+                removeFromUser(entry.getKey(), entry.getValue().subject);
+            }
+        }
+        cutoffs.values().removeIf(cutoff -> nowMillis >= cutoff.expiresAt);
+        return before - revoked.size();
+    }
+
+    // 先頭から期限切れが続く間だけ削除
+    private void purgeExpiredHead(long nowMillis) {
+        Iterator<Map.Entry<String, Revocation>> iterator = revoked.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Revocation> entry = iterator.next();
+            if (nowMillis < entry.getValue().expiresAt) {
+                break;
+            }
+            iterator.remove();
+            removeFromUser(entry.getKey(), entry.getValue().subject);
+        }
+    }
+
+    private void remove(String digest, Revocation revocation) {
+        revoked.remove(digest);
+        removeFromUser(digest, revocation.subject);
+    }
+
+    // ユーザーごとの列は maxRevokedPerUser 件までなので線形探索でよい
+    private void removeFromUser(String digest, String subject) {
+        ArrayDeque<String> digests = revokedByUser.get(subject);
+        if (digests != null) {
+            digests.remove(digest);
+            if (digests.isEmpty()) {
+                revokedByUser.remove(subject);
+            }
+        }
+    }
+
+    private static String subjectOf(Claims claims) {
+        return claims.getSubject() != null ? claims.getSubject() : "";
+    }
+
+    synchronized int revokedSize() {
+        return revoked.size();
+    }
+
+    synchronized int size() {
+        return verified.size();
+    }
+
+    private static final class Revocation {
+        private final String subject;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Revocation(String subject, long issuedAt, long expiresAt) {
+            this.subject = subject;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Cutoff {
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Cutoff(long issuedAt, long expiresAt) {
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        static Cutoff max(Cutoff a, Cutoff b) {
+            return new Cutoff(Math.max(a.issuedAt, b.issuedAt), Math.max(a.expiresAt, b.expiresAt));
+        }
+    }
+
+    private static final class Entry {
+        private final Claims claims;
+        private final long expiresAt;
+
+        Entry(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.*;
+
+// クエリ結果の列指向コンテナ
+// カラム名は1回だけ保持し、INT/BIGINT/DECIMAL/DATE はプリミティブ配列、文字列は辞書圧縮で保持する
+// JSON へは既存の [{col: value}, ...] 形式、または rowArrays() で [[v1, v2], ...] 形式に直接書き出す
+public class ColumnarResult implements JsonSerializable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // これを超えるユニーク値を持つ文字列カラムは辞書圧縮をやめて通常の配列に切り替える
+    private static final int MAX_DICTIONARY_SIZE = 1024;
+
+    private final List<String> columnNames;
+    private final Column[] columns;
+    private int rowCount;
+
+    private ColumnarResult(List<String> columnNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+    }
+
+    public static ColumnarResult forMetaData(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> names = new ArrayList<>(columnCount);
+        Column[] columns = new Column[columnCount];
+
+        for (int i = 1; i <= columnCount; i++) {
+            names.add(metaData.getColumnLabel(i));
+            columns[i - 1] = createColumn(metaData, i);
+        }
+
+        return new ColumnarResult(Collections.unmodifiableList(names), columns);
+    }
+
+    private static Column createColumn(ResultSetMetaData metaData, int index) throws SQLException {
+        switch (metaData.getColumnType(index)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new LongColumn(false);
+            case Types.INTEGER:
+                // INT UNSIGNED は Connector/J が Long を返す
+                return new LongColumn(!metaData.isSigned(index));
+            case Types.BIGINT:
+                // BIGINT UNSIGNED は long に収まらないので汎用カラム
+                return metaData.isSigned(index) ? new LongColumn(true) : new ObjectColumn();
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DecimalColumn(metaData.getScale(index));
+            case Types.DATE:
+                return new DateColumn();
+            case Types.CHAR:
+            case Types.VARCHAR:
+                return new StringColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+
+    public void appendRow(ResultSet rs) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].read(rs, i + 1, rowCount);
+        }
+        rowCount++;
+    }
+
+    public List<String> getColumnNames() { return columnNames; }
+    public int getRowCount() { return rowCount; }
+
+    // キャッシュのサイズ制限用のおおよそのヒープ使用量
+    public long estimatedBytes() {
+        long bytes = 64;
+        for (String name : columnNames) {
+            bytes += estimatedStringBytes(name);
+        }
+        for (Column column : columns) {
+            bytes += column.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    private static long estimatedStringBytes(String value) {
+        return 40 + value.length();
+    }
+
+    public Object getValue(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row: " + row);
+        }
+        return columns[column].get(row);
+    }
+
+    // 既存の QueryResponse と同じ [{col: value}, ...] 形式
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray();
+        for (int row = 0; row < rowCount; row++) {
+            gen.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                gen.writeFieldName(columnNames.get(i));
+                columns[i].write(gen, provider, row);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider,
+                                  TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+
+    // コンパクト形式 [[v1, v2, ...], ...]（カラム名は columns 側にのみ出力）
+    public JsonSerializable rowArrays() {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartArray();
+                for (int row = 0; row < rowCount; row++) {
+                    gen.writeStartArray();
+                    for (Column column : columns) {
+                        column.write(gen, provider, row);
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndArray();
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider provider,
+                                          TypeSerializer typeSer) throws IOException {
+                serialize(gen, provider);
+            }
+        };
+    }
+
+    // カラム実装
+    private abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract Object getNonNull(int row);
+
+        abstract void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException;
+
+        abstract long estimatedBytes();
+
+        Object get(int row) {
+            return nulls.get(row) ? null : getNonNull(row);
+        }
+
+        void write(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                writeNonNull(gen, provider, row);
+            }
+        }
+
+        static int grow(int length, int required) {
+            return Math.max(required, Math.max(INITIAL_CAPACITY, length + (length >> 1)));
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private final boolean wide;
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(boolean wide) {
+            this.wide = wide;
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            long value = rs.getLong(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+                return;
+            }
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return wide ? Long.valueOf(values[row]) : Integer.valueOf((int) values[row]);
+        }
+
+        @Override
+        void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            gen.writeNumber(values[row]);
+        }
+
+        @Override
+        long estimatedBytes() {
+            return 16L + 8L * values.length;
+        }
+    }
+
+    private static final class DecimalColumn extends Column {
+        private final int scale;
+        private long[] unscaled = new long[INITIAL_CAPACITY];
+        // long やカラム定義のスケールに収まらない値（通常の DECIMAL(12,2) では発生しない）
+        private Map<Integer, BigDecimal> overflow;
+
+        DecimalColumn(int scale) {
+            this.scale = scale;
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            BigDecimal value = rs.getBigDecimal(index);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            if (row >= unscaled.length) {
+                unscaled = Arrays.copyOf(unscaled, grow(unscaled.length, row + 1));
+            }
+            if (value.scale() == scale && value.unscaledValue().bitLength() < 64) {
+                unscaled[row] = value.unscaledValue().longValue();
+            } else {
+                if (overflow == null) {
+                    overflow = new HashMap<>();
+                }
+                overflow.put(row, value);
+            }
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            if (overflow != null) {
+                BigDecimal value = overflow.get(row);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return BigDecimal.valueOf(unscaled[row], scale);
+        }
+
+        @Override
+        void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            gen.writeNumber((BigDecimal) getNonNull(row));
+        }
+
+        @Override
+        long estimatedBytes() {
+            return 16L + 8L * unscaled.length + (overflow != null ? 96L * overflow.size() : 0);
+        }
+    }
+
+    private static final class DateColumn extends Column {
+        private int[] epochDays = new int[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            LocalDate value = rs.getObject(index, LocalDate.class);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            if (row >= epochDays.length) {
+                epochDays = Arrays.copyOf(epochDays, grow(epochDays.length, row + 1));
+            }
+            epochDays[row] = (int) value.toEpochDay();
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            // 従来の rs.getObject() と同じ java.sql.Date として扱い、JSON 表現も揃える
+            return java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDays[row]));
+        }
+
+        @Override
+        void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            provider.defaultSerializeValue(getNonNull(row), gen);
+        }
+
+        @Override
+        long estimatedBytes() {
+            return 16L + 4L * epochDays.length;
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        // 辞書圧縮モード（order_status, country など低カーディナリティ向け）
+        private Map<String, Integer> dictionaryIndex = new HashMap<>();
+        private List<String> dictionary = new ArrayList<>();
+        private int[] codes = new int[INITIAL_CAPACITY];
+        // ユニーク値が多すぎる場合の通常モード
+        private String[] plain;
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+
+            if (plain == null) {
+                Integer code = dictionaryIndex.get(value);
+                if (code == null && dictionary.size() >= MAX_DICTIONARY_SIZE) {
+                    switchToPlain(row);
+                } else {
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.add(value);
+                        dictionaryIndex.put(value, code);
+                    }
+                    if (row >= codes.length) {
+                        codes = Arrays.copyOf(codes, grow(codes.length, row + 1));
+                    }
+                    codes[row] = code;
+                    return;
+                }
+            }
+
+            if (row >= plain.length) {
+                plain = Arrays.copyOf(plain, grow(plain.length, row + 1));
+            }
+            plain[row] = value;
+        }
+
+        private void switchToPlain(int rowCount) {
+            plain = new String[grow(codes.length, rowCount + 1)];
+            for (int row = 0; row < rowCount; row++) {
+                if (!nulls.get(row)) {
+                    plain[row] = dictionary.get(codes[row]);
+                }
+            }
+            dictionaryIndex = null;
+            dictionary = null;
+            codes = null;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return plain != null ? plain[row] : dictionary.get(codes[row]);
+        }
+
+        @Override
+        void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            gen.writeString((String) getNonNull(row));
+        }
+
+        @Override
+        long estimatedBytes() {
+            long bytes = 16;
+            if (plain != null) {
+                bytes += 8L * plain.length;
+                for (String value : plain) {
+                    if (value != null) {
+                        bytes += estimatedStringBytes(value);
+                    }
+                }
+            } else {
+                bytes += 4L * codes.length;
+                for (String value : dictionary) {
+                    // 辞書の文字列 + HashMap エントリ
+                    bytes += estimatedStringBytes(value) + 48;
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            Object value = rs.getObject(index);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row + 1));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        Object getNonNull(int row) {
+            return values[row];
+        }
+
+        @Override
+        void writeNonNull(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+            provider.defaultSerializeValue(values[row], gen);
+        }
+
+        @Override
+        long estimatedBytes() {
+            long bytes = 16L + 8L * values.length;
+            for (Object value : values) {
+                if (value instanceof String) {
+                    bytes += estimatedStringBytes((String) value);
+                } else if (value != null) {
+                    bytes += 32;
+                }
+            }
+            return bytes;
+        }
+    }
+}
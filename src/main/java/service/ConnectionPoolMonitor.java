@@ -0,0 +1,72 @@
+package service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import config.DataSourceConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 用途別プール（DataSourceConfig）の使用状況
+@Component
+public class ConnectionPoolMonitor {
+
+    private final Map<String, DataSource> pools = new LinkedHashMap<>();
+
+    public ConnectionPoolMonitor(
+            DataSource appDataSource,
+            @Qualifier(DataSourceConfig.QUERY) DataSource queryDataSource,
+            @Qualifier(DataSourceConfig.BULK) DataSource bulkDataSource) {
+        pools.put("app", appDataSource);
+        pools.put("query", queryDataSource);
+        pools.put("bulk", bulkDataSource);
+    }
+
+    public Map<String, PoolStats> getStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        pools.forEach((name, dataSource) -> stats.put(name, statsOf(dataSource)));
+        return stats;
+    }
+
+    private static PoolStats statsOf(DataSource dataSource) {
+        if (!(dataSource instanceof HikariDataSource)) {
+            return null;
+        }
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        // プールは最初の getConnection() まで作られない
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return new PoolStats(hikari.getPoolName(), hikari.getMaximumPoolSize(), 0, 0, 0, 0);
+        }
+        return new PoolStats(hikari.getPoolName(), hikari.getMaximumPoolSize(), pool.getTotalConnections(),
+                pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+    }
+
+    public static class PoolStats {
+        private final String poolName;
+        private final int maxSize;
+        private final int total;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+
+        public PoolStats(String poolName, int maxSize, int total, int active, int idle, int waiting) {
+            this.poolName = poolName;
+            this.maxSize = maxSize;
+            this.total = total;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+        }
+
+        public String getPoolName() { return poolName; }
+        public int getMaxSize() { return maxSize; }
+        public int getTotal() { return total; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+    }
+}
@@ -1,359 +1,526 @@
 package service;
 
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import com.mysql.cj.jdbc.JdbcStatement;
+import config.DataSourceConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import service.generator.BatchInsertWriter;
+import service.generator.DelimitedTextWriter;
+import service.generator.GenerationMode;
+import service.generator.RowWriter;
+import service.generator.SampleRowGenerator;
+import service.generator.SampleTable;
 
 import javax.sql.DataSource;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.sql.Date;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDate;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
 
 @Service
 public class DataGeneratorService {
 
+    // 投入中は外し、投入後にまとめて作り直すセカンダリインデックス（外部キーが使うインデックスは残す）
+    private static final Map<String, Map<String, String>> SECONDARY_INDEXES = Map.of(
+            "sample_customers", Map.of(
+                    "idx_email", "(email)",
+                    "idx_status", "(status)",
+                    "idx_registration_date", "(registration_date)",
+                    "idx_country_city", "(country, city)"),
+            "sample_products", Map.of(
+                    "idx_category", "(category)",
+                    "idx_category_subcategory", "(category, subcategory)",
+                    "idx_price", "(price)",
+                    "idx_brand", "(brand)",
+                    "idx_is_active", "(is_active)"),
+            "sample_orders", Map.of(
+                    "idx_order_date", "(order_date)",
+                    "idx_order_status", "(order_status)",
+                    "idx_total_amount", "(total_amount)")
+    );
+
+    private static final int PIPE_BUFFER_SIZE = 256 * 1024;
+
+    private final DataSource dataSource;
     private final JdbcTemplate jdbcTemplate;
-    private final Random random = new Random();
+    private final QueryResultCache queryResultCache;
+    private final int workers;
+    private final int chunkSize;
+    private final int batchRows;
 
     // 生成状態管理
     private volatile boolean isGenerating = false;
     private volatile int progress = 0;
     private volatile String currentTask = "";
-
-    // ダミーデータ用リスト
-    private static final String[] FIRST_NAMES = {
-            "John", "Jane", "Michael", "Emily", "David", "Sarah", "James", "Emma",
-            "Robert", "Olivia", "William", "Sophia", "Joseph", "Isabella", "Thomas",
-            "Mia", "Charles", "Charlotte", "Daniel", "Amelia", "Taro", "Hanako",
-            "Yuki", "Kenji", "Sakura", "Takeshi", "Yui", "Hiroshi", "Aoi", "Ren"
-    };
-
-    private static final String[] LAST_NAMES = {
-            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
-            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez",
-            "Wilson", "Anderson", "Tanaka", "Yamada", "Sato", "Suzuki", "Takahashi",
-            "Watanabe", "Ito", "Nakamura", "Kobayashi", "Kato"
-    };
-
-    private static final String[] CITIES = {
-            "Tokyo", "Osaka", "New York", "London", "Paris", "Berlin", "Sydney",
-            "Singapore", "Hong Kong", "Seoul", "Bangkok", "Mumbai", "Dubai",
-            "Los Angeles", "Chicago", "Toronto", "Vancouver", "Amsterdam"
-    };
-
-    private static final String[] COUNTRIES = {
-            "Japan", "USA", "UK", "Germany", "France", "Australia", "Canada",
-            "Singapore", "China", "South Korea", "Thailand", "India", "UAE"
-    };
-
-    private static final String[] CATEGORIES = {
-            "Electronics", "Clothing", "Home & Garden", "Sports", "Books",
-            "Toys", "Food", "Beauty", "Automotive", "Health"
-    };
-
-    private static final String[] SUBCATEGORIES = {
-            "Smartphones", "Laptops", "T-Shirts", "Dresses", "Furniture",
-            "Kitchen", "Running", "Swimming", "Fiction", "Non-Fiction",
-            "Board Games", "Snacks", "Skincare", "Car Parts", "Vitamins"
-    };
-
-    private static final String[] BRANDS = {
-            "TechCorp", "FashionBrand", "HomeStyle", "SportMax", "BookWorld",
-            "ToyLand", "FoodCo", "BeautyPlus", "AutoParts", "HealthFirst"
-    };
-
-    private static final String[] PAYMENT_METHODS = {
-            "CREDIT_CARD", "DEBIT_CARD", "PAYPAL", "BANK_TRANSFER", "CASH"
-    };
-
-    public DataGeneratorService(DataSource dataSource) {
+    private volatile Long currentSeed;
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private volatile long expectedRows = 1;
+
+    public DataGeneratorService(
+            @Qualifier(DataSourceConfig.BULK) DataSource dataSource,
+            QueryResultCache queryResultCache,
+            @Value("${sample.generator.workers:4}") int workers,
+            @Value("${sample.generator.chunk-size:50000}") int chunkSize,
+            @Value("${sample.generator.batch-rows:5000}") int batchRows) {
+        this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.queryResultCache = queryResultCache;
+        this.workers = Math.max(1, workers);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batchRows = Math.max(1, batchRows);
     }
 
     public GenerationStatus getStatus() {
-        return new GenerationStatus(isGenerating, progress, currentTask);
+        return new GenerationStatus(isGenerating, progress, currentTask, currentSeed);
+    }
+
+    public void generateAllData(int customerCount, int productCount,
+                                int orderCount, int itemsPerOrder) {
+        generateAllData(customerCount, productCount, orderCount, itemsPerOrder, GenerationMode.INSERT, null);
     }
 
-    public synchronized void generateAllData(int customerCount, int productCount,
-                                             int orderCount, int itemsPerOrder) {
+    // seed が同じなら同じデータセットになる（null ならランダムな seed を採番）
+    public synchronized void generateAllData(int customerCount, int productCount, int orderCount,
+                                             int itemsPerOrder, GenerationMode mode, Long seed) {
         if (isGenerating) {
             throw new IllegalStateException("Data generation is already in progress");
         }
+        long actualSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        GenerationSpec spec = new GenerationSpec(customerCount, productCount, orderCount, itemsPerOrder,
+                actualSeed, chunkSize);
+        run(spec, mode, false);
+    }
+
+    // 前回中断した生成を、記録済みのパラメータと seed でチェックポイントの続きから再開する
+    public synchronized void resumeGeneration(GenerationMode mode) {
+        if (isGenerating) {
+            throw new IllegalStateException("Data generation is already in progress");
+        }
+        List<GenerationSpec> specs = jdbcTemplate.query(
+                "SELECT seed, customer_count, product_count, order_count, items_per_order, chunk_size, status " +
+                        "FROM sample_generation_state WHERE id = 1",
+                (rs, rowNum) -> "COMPLETED".equals(rs.getString("status")) ? null : new GenerationSpec(
+                        rs.getInt("customer_count"), rs.getInt("product_count"), rs.getInt("order_count"),
+                        rs.getInt("items_per_order"), rs.getLong("seed"), rs.getInt("chunk_size")));
+        if (specs.isEmpty() || specs.get(0) == null) {
+            throw new IllegalStateException("No interrupted data generation to resume");
+        }
+        run(specs.get(0), mode, true);
+    }
 
+    // id 範囲をチャンクに分け、ワーカーごとに別コネクションで並列に書き込む
+    // 各チャンクはデータとチェックポイントを同じトランザクションで書くので、再開時は未完了のチャンクだけやり直す
+    private void run(GenerationSpec spec, GenerationMode mode, boolean resume) {
         isGenerating = true;
         progress = 0;
+        currentSeed = spec.seed;
+        rowsWritten.set(0);
+        expectedRows = Math.max(1, (long) spec.customerCount + spec.productCount + spec.orderCount
+                + (long) spec.orderCount * spec.itemsPerOrder);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, namedThreads("data-generator-"));
+        // LOAD_DATA でパイプに書き込む側
+        ExecutorService writers = mode == GenerationMode.LOAD_DATA
+                ? Executors.newFixedThreadPool(workers, namedThreads("data-generator-writer-"))
+                : null;
 
         try {
-            // 既存データをクリア
-            currentTask = "Clearing existing data...";
-            clearExistingData();
+            Set<String> completed;
+            if (resume) {
+                currentTask = "Resuming from checkpoints...";
+                queryResultCache.invalidateAll();
+                completed = loadCheckpoints();
+            } else {
+                // 既存データをクリア
+                currentTask = "Clearing existing data...";
+                clearExistingData();
+                saveState(spec);
+                completed = Set.of();
+            }
+            dropSecondaryIndexes();
             progress = 5;
 
-            // Customers生成
-            currentTask = "Generating customers...";
-            generateCustomers(customerCount);
-            progress = 25;
-
-            // Products生成
-            currentTask = "Generating products...";
-            generateProducts(productCount);
-            progress = 40;
-
-            // Orders生成
-            currentTask = "Generating orders...";
-            generateOrders(orderCount, customerCount);
-            progress = 70;
-
-            // OrderItems生成
-            currentTask = "Generating order items...";
-            generateOrderItems(orderCount, productCount, itemsPerOrder);
+            try {
+                currentTask = "Generating data (" + mode + ", " + workers + " workers, seed " + spec.seed + ")...";
+                List<Chunk> chunks = new ArrayList<>();
+                addChunks(chunks, spec, SampleTable.CUSTOMERS, spec.customerCount, (id, random, writer) -> {
+                    SampleRowGenerator.customer(id, random, writer);
+                    return 1;
+                });
+                addChunks(chunks, spec, SampleTable.PRODUCTS, spec.productCount, (id, random, writer) -> {
+                    SampleRowGenerator.product(id, random, writer);
+                    return 1;
+                });
+                addChunks(chunks, spec, SampleTable.ORDERS, spec.orderCount, (id, random, writer) -> {
+                    SampleRowGenerator.order(id, spec.customerCount, random, writer);
+                    return 1;
+                });
+                // 明細は注文 id の範囲で分割
+                addChunks(chunks, spec, SampleTable.ORDER_ITEMS, spec.orderCount,
+                        (orderId, random, writer) -> SampleRowGenerator.orderItems(
+                                orderId, spec.productCount, spec.itemsPerOrder, random, writer));
+                chunks.removeIf(chunk -> completed.contains(chunk.checkpointKey()));
+                runChunks(pool, writers, chunks, mode);
+                progress = 90;
+            } finally {
+                // 失敗してもインデックスは元に戻す
+                currentTask = "Rebuilding indexes...";
+                rebuildSecondaryIndexes(pool);
+            }
+            jdbcTemplate.update("UPDATE sample_generation_state SET status = 'COMPLETED' WHERE id = 1");
             progress = 100;
 
             currentTask = "Completed!";
 
         } finally {
+            pool.shutdownNow();
+            if (writers != null) {
+                writers.shutdownNow();
+            }
+            // 生成途中のデータでキャッシュされた結果も破棄
+            queryResultCache.invalidateAll();
             isGenerating = false;
         }
     }
 
-    private void clearExistingData() {
-        jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = 0");
-        jdbcTemplate.execute("TRUNCATE TABLE sample_order_items");
-        jdbcTemplate.execute("TRUNCATE TABLE sample_orders");
-        jdbcTemplate.execute("TRUNCATE TABLE sample_products");
-        jdbcTemplate.execute("TRUNCATE TABLE sample_customers");
-        jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = 1");
+    private void saveState(GenerationSpec spec) {
+        jdbcTemplate.update("DELETE FROM sample_generation_checkpoints");
+        jdbcTemplate.update(
+                "REPLACE INTO sample_generation_state (id, seed, customer_count, product_count, order_count, " +
+                        "items_per_order, chunk_size, status) VALUES (1, ?, ?, ?, ?, ?, ?, 'RUNNING')",
+                spec.seed, spec.customerCount, spec.productCount, spec.orderCount,
+                spec.itemsPerOrder, spec.chunkSize);
     }
 
-    private void generateCustomers(int count) {
-        int batchSize = 5000;
-        String sql = "INSERT INTO sample_customers (first_name, last_name, email, phone, " +
-                "address, city, country, postal_code, registration_date, status) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        for (int i = 0; i < count; i += batchSize) {
-            int currentBatchSize = Math.min(batchSize, count - i);
-            int batchStart = i;
-
-            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement ps, int j) throws SQLException {
-                    int index = batchStart + j;
-                    String firstName = randomElement(FIRST_NAMES);
-                    String lastName = randomElement(LAST_NAMES);
-
-                    ps.setString(1, firstName);
-                    ps.setString(2, lastName);
-                    ps.setString(3, firstName.toLowerCase() + "." + lastName.toLowerCase() + index + "@example.com");
-                    ps.setString(4, generatePhone());
-                    ps.setString(5, randomInt(1, 9999) + " " + randomElement(LAST_NAMES) + " Street");
-                    ps.setString(6, randomElement(CITIES));
-                    ps.setString(7, randomElement(COUNTRIES));
-                    ps.setString(8, String.format("%05d", randomInt(10000, 99999)));
-                    ps.setDate(9, Date.valueOf(randomDate(2018, 2024)));
-                    ps.setString(10, randomElement(new String[]{"ACTIVE", "ACTIVE", "ACTIVE", "INACTIVE", "SUSPENDED"}));
-                }
+    // 完了済みチャンク（進捗も完了分から始める）
+    private Set<String> loadCheckpoints() {
+        Set<String> completed = new HashSet<>();
+        jdbcTemplate.query("SELECT table_name, start_id, row_count FROM sample_generation_checkpoints", rs -> {
+            completed.add(rs.getString("table_name") + ":" + rs.getLong("start_id"));
+            rowsWritten.addAndGet(rs.getLong("row_count"));
+        });
+        return completed;
+    }
 
-                @Override
-                public int getBatchSize() {
-                    return currentBatchSize;
-                }
-            });
+    // FOREIGN_KEY_CHECKS はセッション単位なので同じコネクションで TRUNCATE する
+    private void clearExistingData() {
+        queryResultCache.invalidateAll();
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                stmt.execute("TRUNCATE TABLE sample_order_items");
+                stmt.execute("TRUNCATE TABLE sample_orders");
+                stmt.execute("TRUNCATE TABLE sample_products");
+                stmt.execute("TRUNCATE TABLE sample_customers");
+            } finally {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to clear sample tables: " + e.getMessage(), e);
+        }
+    }
 
-            // 進捗更新
-            progress = 5 + (int) ((i + currentBatchSize) / (double) count * 20);
+    private void addChunks(List<Chunk> chunks, GenerationSpec spec, SampleTable table, int count,
+                           RowGenerator generator) {
+        for (long start = 1; start <= count; start += spec.chunkSize) {
+            long end = Math.min(count, start + spec.chunkSize - 1);
+            chunks.add(new Chunk(table, start, end, chunkSeed(spec.seed, table, start), generator,
+                    table == SampleTable.ORDER_ITEMS ? 2L * spec.itemsPerOrder : 1));
         }
     }
 
-    private void generateProducts(int count) {
-        int batchSize = 5000;
-        String sql = "INSERT INTO sample_products (name, description, category, subcategory, " +
-                "price, cost, stock_quantity, sku, brand, weight, is_active) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        for (int i = 0; i < count; i += batchSize) {
-            int currentBatchSize = Math.min(batchSize, count - i);
-            int batchStart = i;
-
-            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement ps, int j) throws SQLException {
-                    int index = batchStart + j;
-                    String category = randomElement(CATEGORIES);
-                    String brand = randomElement(BRANDS);
-                    BigDecimal price = BigDecimal.valueOf(randomInt(100, 100000) / 100.0)
-                            .setScale(2, RoundingMode.HALF_UP);
-                    BigDecimal cost = price.multiply(BigDecimal.valueOf(0.6))
-                            .setScale(2, RoundingMode.HALF_UP);
-
-                    ps.setString(1, brand + " " + category + " Product " + index);
-                    ps.setString(2, "High quality " + category.toLowerCase() + " product from " + brand);
-                    ps.setString(3, category);
-                    ps.setString(4, randomElement(SUBCATEGORIES));
-                    ps.setBigDecimal(5, price);
-                    ps.setBigDecimal(6, cost);
-                    ps.setInt(7, randomInt(0, 10000));
-                    ps.setString(8, "SKU-" + String.format("%08d", index));
-                    ps.setString(9, brand);
-                    ps.setBigDecimal(10, BigDecimal.valueOf(randomInt(10, 10000) / 100.0));
-                    ps.setBoolean(11, random.nextDouble() > 0.1);
-                }
+    // テーブルとチャンク開始 id ごとの seed（SplitMix64 の混合関数）
+    // どのスレッドがどの順で処理しても、同じチャンクは同じ行になる
+    static long chunkSeed(long seed, SampleTable table, long startId) {
+        long z = seed + (table.ordinal() + 1) * 0x9E3779B97F4A7C15L + startId * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
 
-                @Override
-                public int getBatchSize() {
-                    return currentBatchSize;
-                }
-            });
+    private void runChunks(ExecutorService pool, ExecutorService writers, List<Chunk> chunks,
+                           GenerationMode mode) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            futures.add(pool.submit(() -> {
+                loadChunk(chunk, mode, writers);
+                return null;
+            }));
+        }
 
-            progress = 25 + (int) ((i + currentBatchSize) / (double) count * 15);
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Data generation was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            throw new IllegalStateException("Data generation failed: " + cause.getMessage(), cause);
         }
     }
 
-    private void generateOrders(int count, int customerCount) {
-        int batchSize = 5000;
-        String sql = "INSERT INTO sample_orders (customer_id, order_date, order_status, " +
-                "total_amount, tax_amount, shipping_amount, discount_amount, payment_method, " +
-                "shipping_address, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        String[] statuses = {"PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "DELIVERED",
-                "DELIVERED", "CANCELLED", "REFUNDED"};
-
-        for (int i = 0; i < count; i += batchSize) {
-            int currentBatchSize = Math.min(batchSize, count - i);
-
-            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement ps, int j) throws SQLException {
-                    BigDecimal total = BigDecimal.valueOf(randomInt(1000, 500000) / 100.0)
-                            .setScale(2, RoundingMode.HALF_UP);
-                    BigDecimal tax = total.multiply(BigDecimal.valueOf(0.1))
-                            .setScale(2, RoundingMode.HALF_UP);
-                    BigDecimal shipping = BigDecimal.valueOf(randomInt(0, 2000) / 100.0)
-                            .setScale(2, RoundingMode.HALF_UP);
-                    BigDecimal discount = total.multiply(BigDecimal.valueOf(random.nextDouble() * 0.2))
-                            .setScale(2, RoundingMode.HALF_UP);
-
-                    ps.setLong(1, randomInt(1, customerCount));
-                    ps.setDate(2, Date.valueOf(randomDate(2020, 2024)));
-                    ps.setString(3, randomElement(statuses));
-                    ps.setBigDecimal(4, total);
-                    ps.setBigDecimal(5, tax);
-                    ps.setBigDecimal(6, shipping);
-                    ps.setBigDecimal(7, discount);
-                    ps.setString(8, randomElement(PAYMENT_METHODS));
-                    ps.setString(9, randomInt(1, 9999) + " " + randomElement(LAST_NAMES) + " St, " + randomElement(CITIES));
-                    ps.setString(10, random.nextDouble() > 0.8 ? "Please handle with care" : null);
+    private void loadChunk(Chunk chunk, GenerationMode mode, ExecutorService writers) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SET SESSION foreign_key_checks = 0, unique_checks = 0");
+            }
+            connection.setAutoCommit(false);
+            try {
+                // 前回途中まで書かれていた分を消してから書き直す（チャンク単位で冪等）
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "DELETE FROM " + chunk.table.getTableName() + " WHERE id BETWEEN ? AND ?")) {
+                    ps.setLong(1, chunk.firstRowId());
+                    ps.setLong(2, chunk.lastRowId());
+                    ps.executeUpdate();
                 }
-
-                @Override
-                public int getBatchSize() {
-                    return currentBatchSize;
+                long rows = mode == GenerationMode.LOAD_DATA
+                        ? loadDataInfile(connection, chunk, writers)
+                        : batchInsert(connection, chunk);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO sample_generation_checkpoints (table_name, start_id, end_id, row_count) " +
+                                "VALUES (?, ?, ?, ?)")) {
+                    ps.setString(1, chunk.table.getTableName());
+                    ps.setLong(2, chunk.startId);
+                    ps.setLong(3, chunk.endId);
+                    ps.setLong(4, rows);
+                    ps.executeUpdate();
                 }
-            });
+                connection.commit();
+                updateProgress(rows);
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                // プールに戻すコネクションの設定を元に戻す
+                connection.setAutoCommit(true);
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("SET SESSION foreign_key_checks = 1, unique_checks = 1");
+                }
+            }
+        }
+    }
 
-            progress = 40 + (int) ((i + currentBatchSize) / (double) count * 30);
+    private long batchInsert(Connection connection, Chunk chunk) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(chunk.table.insertSql())) {
+            BatchInsertWriter writer = new BatchInsertWriter(ps, batchRows);
+            long rows = chunk.generate(writer);
+            writer.flush();
+            return rows;
         }
     }
 
-    private void generateOrderItems(int orderCount, int productCount, int avgItemsPerOrder) {
-        int batchSize = 10000;
-        String sql = "INSERT INTO sample_order_items (order_id, product_id, quantity, " +
-                "unit_price, discount_percent, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
-
-        // 各注文に対してランダムな数のアイテムを生成
-        List<Object[]> items = new ArrayList<>();
-
-        for (int orderId = 1; orderId <= orderCount; orderId++) {
-            int itemCount = randomInt(1, avgItemsPerOrder * 2);
-            for (int i = 0; i < itemCount; i++) {
-                int quantity = randomInt(1, 5);
-                BigDecimal unitPrice = BigDecimal.valueOf(randomInt(100, 50000) / 100.0)
-                        .setScale(2, RoundingMode.HALF_UP);
-                BigDecimal discountPercent = BigDecimal.valueOf(randomInt(0, 20))
-                        .setScale(2, RoundingMode.HALF_UP);
-                BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity))
-                        .multiply(BigDecimal.ONE.subtract(discountPercent.divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP)))
-                        .setScale(2, RoundingMode.HALF_UP);
-
-                items.add(new Object[]{
-                        orderId,
-                        randomInt(1, productCount),
-                        quantity,
-                        unitPrice,
-                        discountPercent,
-                        subtotal
-                });
+    // 生成スレッドが TSV をパイプに書き、このスレッドの LOAD DATA LOCAL INFILE がそれを読む
+    private long loadDataInfile(Connection connection, Chunk chunk, ExecutorService writers) throws Exception {
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream out = new PipedOutputStream(in);
+
+        Future<Long> producer = writers.submit(() -> {
+            try (DelimitedTextWriter writer = new DelimitedTextWriter(out)) {
+                return chunk.generate(writer);
             }
+        });
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+            stmt.execute(chunk.table.loadDataSql());
+        } catch (SQLException e) {
+            // 書き込み側がパイプで待ったままにならないよう閉じる
+            producer.cancel(true);
+            in.close();
+            throw e;
+        }
+        return producer.get();
+    }
+
+    private void updateProgress(long rows) {
+        long done = rowsWritten.addAndGet(rows);
+        progress = 5 + (int) Math.min(85, done * 85 / expectedRows);
+    }
 
-            // バッチ実行
-            if (items.size() >= batchSize || orderId == orderCount) {
-                List<Object[]> batch = new ArrayList<>(items);
-                items.clear();
-
-                jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        Object[] item = batch.get(i);
-                        ps.setInt(1, (Integer) item[0]);
-                        ps.setInt(2, (Integer) item[1]);
-                        ps.setInt(3, (Integer) item[2]);
-                        ps.setBigDecimal(4, (BigDecimal) item[3]);
-                        ps.setBigDecimal(5, (BigDecimal) item[4]);
-                        ps.setBigDecimal(6, (BigDecimal) item[5]);
+    private void dropSecondaryIndexes() {
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, Map<String, String>> entry : SECONDARY_INDEXES.entrySet()) {
+                Set<String> existing = existingIndexes(connection, entry.getKey());
+                List<String> drops = new ArrayList<>();
+                for (String index : entry.getValue().keySet()) {
+                    if (existing.contains(index)) {
+                        drops.add("DROP INDEX " + index);
+                    }
+                }
+                if (!drops.isEmpty()) {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute("ALTER TABLE " + entry.getKey() + " " + String.join(", ", drops));
                     }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to drop secondary indexes: " + e.getMessage(), e);
+        }
+    }
 
-                    @Override
-                    public int getBatchSize() {
-                        return batch.size();
+    // テーブルごとに1回の ALTER TABLE で全インデックスを追加（テーブル間は並列）
+    private void rebuildSecondaryIndexes(ExecutorService pool) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> entry : SECONDARY_INDEXES.entrySet()) {
+            futures.add(pool.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    Set<String> existing = existingIndexes(connection, entry.getKey());
+                    List<String> adds = new ArrayList<>();
+                    for (Map.Entry<String, String> index : entry.getValue().entrySet()) {
+                        if (!existing.contains(index.getKey())) {
+                            adds.add("ADD INDEX " + index.getKey() + " " + index.getValue());
+                        }
                     }
-                });
+                    try (Statement stmt = connection.createStatement()) {
+                        if (!adds.isEmpty()) {
+                            stmt.execute("ALTER TABLE " + entry.getKey() + " " + String.join(", ", adds));
+                        }
+                        stmt.execute("ANALYZE TABLE " + entry.getKey());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Index rebuild was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to rebuild indexes: " + e.getCause().getMessage(), e.getCause());
             }
+        }
+    }
 
-            // 進捗更新（100注文ごと）
-            if (orderId % 1000 == 0) {
-                progress = 70 + (int) (orderId / (double) orderCount * 30);
+    private Set<String> existingIndexes(Connection connection, String table) throws SQLException {
+        Set<String> indexes = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(rs.getString(1));
+                }
             }
         }
+        return indexes;
     }
 
-    private String randomElement(String[] array) {
-        return array[random.nextInt(array.length)];
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
-    private int randomInt(int min, int max) {
-        return ThreadLocalRandom.current().nextInt(min, max + 1);
+    // id（明細は注文 id）1件分の行を生成し、書き込んだ行数を返す
+    @FunctionalInterface
+    private interface RowGenerator {
+        int generate(long id, RandomGenerator random, RowWriter writer) throws SQLException;
     }
 
-    private LocalDate randomDate(int startYear, int endYear) {
-        long startEpoch = LocalDate.of(startYear, 1, 1).toEpochDay();
-        long endEpoch = LocalDate.of(endYear, 12, 31).toEpochDay();
-        long randomDay = ThreadLocalRandom.current().nextLong(startEpoch, endEpoch);
-        return LocalDate.ofEpochDay(randomDay);
+    // 生成パラメータ（sample_generation_state に保存して再開時に使う）
+    private static final class GenerationSpec {
+        private final int customerCount;
+        private final int productCount;
+        private final int orderCount;
+        private final int itemsPerOrder;
+        private final long seed;
+        private final int chunkSize;
+
+        GenerationSpec(int customerCount, int productCount, int orderCount, int itemsPerOrder,
+                       long seed, int chunkSize) {
+            this.customerCount = customerCount;
+            this.productCount = productCount;
+            this.orderCount = orderCount;
+            this.itemsPerOrder = itemsPerOrder;
+            this.seed = seed;
+            this.chunkSize = chunkSize;
+        }
     }
 
-    private String generatePhone() {
-        return String.format("+1-%03d-%03d-%04d",
-                randomInt(100, 999), randomInt(100, 999), randomInt(1000, 9999));
+    // [startId, endId] の範囲を1トランザクションで書き込む単位
+    private static final class Chunk {
+        private final SampleTable table;
+        private final long startId;
+        private final long endId;
+        private final long seed;
+        private final RowGenerator generator;
+        // 1 id あたりの最大行数（明細の id は注文 id から決まる範囲に割り当てる）
+        private final long rowsPerId;
+
+        Chunk(SampleTable table, long startId, long endId, long seed, RowGenerator generator, long rowsPerId) {
+            this.table = table;
+            this.startId = startId;
+            this.endId = endId;
+            this.seed = seed;
+            this.generator = generator;
+            this.rowsPerId = rowsPerId;
+        }
+
+        String checkpointKey() {
+            return table.getTableName() + ":" + startId;
+        }
+
+        long firstRowId() {
+            return (startId - 1) * rowsPerId + 1;
+        }
+
+        long lastRowId() {
+            return endId * rowsPerId;
+        }
+
+        long generate(RowWriter writer) throws SQLException {
+            RandomGenerator random = new SplittableRandom(seed);
+            long rows = 0;
+            for (long id = startId; id <= endId; id++) {
+                rows += generator.generate(id, random, writer);
+            }
+            return rows;
+        }
     }
 
     public static class GenerationStatus {
         private final boolean isGenerating;
         private final int progress;
         private final String currentTask;
+        private final Long seed;
 
-        public GenerationStatus(boolean isGenerating, int progress, String currentTask) {
+        public GenerationStatus(boolean isGenerating, int progress, String currentTask, Long seed) {
             this.isGenerating = isGenerating;
             this.progress = progress;
             this.currentTask = currentTask;
+            this.seed = seed;
         }
 
         public boolean isGenerating() { return isGenerating; }
         public int getProgress() { return progress; }
         public String getCurrentTask() { return currentTask; }
+        public Long getSeed() { return seed; }
     }
 }
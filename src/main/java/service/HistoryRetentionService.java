@@ -0,0 +1,187 @@
+package service;
+
+import core.query.QueryHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// クエリ履歴の保持期間管理（定期実行。query.history.retention.enabled=true のときのみ、既定は無効）
+// - max-age-days より古い履歴を全ユーザー分削除
+// - ユーザーごとに最新 keep-per-user 件を超えた分を削除
+// - どちらも主キー指定の小さなチャンク（chunk-size 件）ごとに別トランザクションで削除し、
+//   チャンク間で pause-ms 休む（同時に走る履歴 INSERT を長時間ブロックしない）
+// - query_history は user_id の外部キーを持つためパーティション化（古いパーティションの DROP）はできない
+@Component
+public class HistoryRetentionService {
+
+    private final QueryHistoryRepository queryHistoryRepository;
+    private final boolean enabled;
+    private final int keepPerUser;
+    private final int maxAgeDays;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final int maxChunksPerRun;
+
+    // メトリクス
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong deletedByAgeTotal = new AtomicLong();
+    private final AtomicLong deletedByKeepCountTotal = new AtomicLong();
+    private volatile long lastDeletedByAge = 0;
+    private volatile long lastDeletedByKeepCount = 0;
+    private volatile long lastDurationMs = 0;
+    private volatile LocalDateTime lastRunAt;
+    private volatile boolean running = false;
+
+    public HistoryRetentionService(
+            QueryHistoryRepository queryHistoryRepository,
+            @Value("${query.history.retention.enabled:false}") boolean enabled,
+            @Value("${query.history.retention.keep-per-user:1000}") int keepPerUser,
+            @Value("${query.history.retention.max-age-days:90}") int maxAgeDays,
+            @Value("${query.history.retention.chunk-size:500}") int chunkSize,
+            @Value("${query.history.retention.pause-ms:50}") long pauseMs,
+            @Value("${query.history.retention.max-chunks-per-run:2000}") int maxChunksPerRun) {
+        this.queryHistoryRepository = queryHistoryRepository;
+        this.enabled = enabled;
+        this.keepPerUser = keepPerUser;
+        this.maxAgeDays = maxAgeDays;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMs = Math.max(0, pauseMs);
+        this.maxChunksPerRun = Math.max(1, maxChunksPerRun);
+    }
+
+    // 前回の終了から interval-ms 後に実行（実行が重なることはない）
+    @Scheduled(initialDelayString = "${query.history.retention.initial-delay-ms:60000}",
+            fixedDelayString = "${query.history.retention.interval-ms:3600000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    public synchronized RetentionStats purge() {
+        running = true;
+        long start = System.currentTimeMillis();
+        try {
+            // 1回の実行で削除するチャンク数の上限（残りは次回に回す）
+            int[] budget = {maxChunksPerRun};
+
+            long byAge = 0;
+            if (maxAgeDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+                byAge = deleteInChunks(budget, () -> queryHistoryRepository.deleteChunkOlderThan(cutoff, chunkSize));
+            }
+
+            long byKeepCount = 0;
+            if (keepPerUser > 0) {
+                List<Integer> userIds = queryHistoryRepository.findUserIdsExceeding(keepPerUser);
+                for (Integer userId : userIds) {
+                    if (budget[0] <= 0) {
+                        break;
+                    }
+                    byKeepCount += deleteInChunks(budget,
+                            () -> queryHistoryRepository.deleteChunkBeyondKeepCount(userId, keepPerUser, chunkSize));
+                }
+            }
+
+            lastDeletedByAge = byAge;
+            lastDeletedByKeepCount = byKeepCount;
+            deletedByAgeTotal.addAndGet(byAge);
+            deletedByKeepCountTotal.addAndGet(byKeepCount);
+        } catch (Exception e) {
+            System.err.println("History retention failed: " + e.getMessage());
+        } finally {
+            runCount.incrementAndGet();
+            lastRunAt = LocalDateTime.now();
+            lastDurationMs = System.currentTimeMillis() - start;
+            running = false;
+        }
+        return getStats();
+    }
+
+    private long deleteInChunks(int[] budget, ChunkDeleter deleter) {
+        long deleted = 0;
+        while (budget[0] > 0) {
+            int count = deleter.deleteChunk();
+            budget[0]--;
+            deleted += count;
+            if (count < chunkSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        if (pauseMs == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public RetentionStats getStats() {
+        return new RetentionStats(enabled, keepPerUser, maxAgeDays, running, lastRunAt, lastDurationMs,
+                lastDeletedByAge, lastDeletedByKeepCount, deletedByAgeTotal.get(),
+                deletedByKeepCountTotal.get(), runCount.get());
+    }
+
+    @FunctionalInterface
+    private interface ChunkDeleter {
+        int deleteChunk();
+    }
+
+    public static class RetentionStats {
+        private final boolean enabled;
+        private final int keepPerUser;
+        private final int maxAgeDays;
+        private final boolean running;
+        private final LocalDateTime lastRunAt;
+        private final long lastDurationMs;
+        private final long lastDeletedByAge;
+        private final long lastDeletedByKeepCount;
+        private final long deletedByAgeTotal;
+        private final long deletedByKeepCountTotal;
+        private final long runs;
+
+        public RetentionStats(boolean enabled, int keepPerUser, int maxAgeDays, boolean running,
+                              LocalDateTime lastRunAt, long lastDurationMs,
+                              long lastDeletedByAge, long lastDeletedByKeepCount,
+                              long deletedByAgeTotal, long deletedByKeepCountTotal, long runs) {
+            this.enabled = enabled;
+            this.keepPerUser = keepPerUser;
+            this.maxAgeDays = maxAgeDays;
+            this.running = running;
+            this.lastRunAt = lastRunAt;
+            this.lastDurationMs = lastDurationMs;
+            this.lastDeletedByAge = lastDeletedByAge;
+            this.lastDeletedByKeepCount = lastDeletedByKeepCount;
+            this.deletedByAgeTotal = deletedByAgeTotal;
+            this.deletedByKeepCountTotal = deletedByKeepCountTotal;
+            this.runs = runs;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getKeepPerUser() { return keepPerUser; }
+        public int getMaxAgeDays() { return maxAgeDays; }
+        public boolean isRunning() { return running; }
+        public LocalDateTime getLastRunAt() { return lastRunAt; }
+        public long getLastDurationMs() { return lastDurationMs; }
+        public long getLastDeletedByAge() { return lastDeletedByAge; }
+        public long getLastDeletedByKeepCount() { return lastDeletedByKeepCount; }
+        public long getDeletedByAgeTotal() { return deletedByAgeTotal; }
+        public long getDeletedByKeepCountTotal() { return deletedByKeepCountTotal; }
+        public long getRuns() { return runs; }
+    }
+}
@@ -1,159 +1,755 @@
 package service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import config.DataSourceConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import service.explain.ExplainAdvisor;
+import service.explain.ExplainMode;
+import service.explain.ExplainPlan;
+import service.explain.ExplainPlanParser;
+import service.explain.PlanWarning;
+import service.metrics.QueryPhase;
+import service.metrics.QueryTimings;
+import service.replica.ReplicaRouter;
+import service.sql.SqlFingerprint;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class QueryExecutionService {
 
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
-    private final SqlValidator sqlValidator;
+    private final ValidationCache validationCache;
     private final ObjectMapper objectMapper;
+    private final ExplainPlanParser explainPlanParser;
+    private final ExplainAdvisor explainAdvisor;
+    private final ExplainMode defaultExplainMode;
+    private final long maxEstimatedRows;
     private final int queryTimeoutSeconds;
-    private final ExecutorService executorService;
+    private final int maxQueueWaitSeconds;
+    private final int streamFetchSize;
+    private final QueryScheduler queryScheduler;
+    private final RunningQueryRegistry runningQueryRegistry;
+    private final QueryResultCache resultCache;
+    private final ReplicaRouter replicaRouter;
 
     public QueryExecutionService(
-            DataSource dataSource,
-            SqlValidator sqlValidator,
-            @Value("${query.timeout.seconds:30}") int queryTimeoutSeconds) {
+            @Qualifier(DataSourceConfig.QUERY) DataSource dataSource,
+            ValidationCache validationCache,
+            QueryScheduler queryScheduler,
+            RunningQueryRegistry runningQueryRegistry,
+            QueryResultCache resultCache,
+            ReplicaRouter replicaRouter,
+            ExplainAdvisor explainAdvisor,
+            @Value("${query.timeout.seconds:30}") int queryTimeoutSeconds,
+            @Value("${query.executor.max-queue-wait-seconds:30}") int maxQueueWaitSeconds,
+            @Value("${query.stream.fetch-size:-2147483648}") int streamFetchSize,
+            @Value("${query.explain.mode:TRADITIONAL}") String defaultExplainMode,
+            @Value("${query.guard.max-estimated-rows:0}") long maxEstimatedRows) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
-        this.sqlValidator = sqlValidator;
+        this.validationCache = validationCache;
         this.objectMapper = new ObjectMapper();
+        this.explainPlanParser = new ExplainPlanParser(objectMapper);
+        this.explainAdvisor = explainAdvisor;
+        this.defaultExplainMode = ExplainMode.parse(defaultExplainMode, ExplainMode.TRADITIONAL);
+        this.maxEstimatedRows = maxEstimatedRows;
         this.queryTimeoutSeconds = queryTimeoutSeconds;
-        this.executorService = Executors.newCachedThreadPool();
+        this.maxQueueWaitSeconds = maxQueueWaitSeconds;
+        this.streamFetchSize = streamFetchSize;
+        this.queryScheduler = queryScheduler;
+        this.runningQueryRegistry = runningQueryRegistry;
+        this.resultCache = resultCache;
+        this.replicaRouter = replicaRouter;
     }
 
-    public QueryResult executeQuery(String sql, boolean isAdmin) {
+    public QueryResult executeQuery(String sql, Integer userId, boolean isAdmin) {
+        return executeQuery(sql, userId, isAdmin, null);
+    }
+
+    // queryId を指定すると実行中に cancelQuery(queryId, userId) で中断できる（null なら自動採番）
+    public QueryResult executeQuery(String sql, Integer userId, boolean isAdmin, String queryId) {
+        return executeQuery(sql, userId, isAdmin, queryId, null);
+    }
+
+    // explainMode が null なら query.explain.mode の設定値
+    public QueryResult executeQuery(String sql, Integer userId, boolean isAdmin, String queryId,
+                                    ExplainMode explainMode) {
+        ExplainMode mode = explainMode != null ? explainMode : defaultExplainMode;
+        return awaitQuery(startQuery(sql, userId, isAdmin, queryId, true, mode));
+    }
+
+    // 検証してワーカーへ投入する（結果は awaitQuery で受け取る）
+    // useCache=false ならキャッシュを参照しない（ベンチマーク用）
+    private PendingQuery startQuery(String sql, Integer userId, boolean isAdmin, String queryId,
+                                    boolean useCache, ExplainMode explainMode) {
+        return startQuery(sql, userId, isAdmin, queryId, useCache, explainMode, false);
+    }
+
+    // explainOnly=true なら実行計画だけを取得する（EXPLAIN ANALYZE は実際にクエリを実行するのでワーカーで実行する）
+    private PendingQuery startQuery(String sql, Integer userId, boolean isAdmin, String queryId,
+                                    boolean useCache, ExplainMode explainMode, boolean explainOnly) {
+        QueryTimings timings = new QueryTimings();
+
         // SQL検証
-        SqlValidator.ValidationResult validation = sqlValidator.validate(sql, isAdmin);
+        long validateStart = System.nanoTime();
+        SqlValidator.ValidationResult validation = validationCache.validate(sql, isAdmin);
+        timings.since(QueryPhase.VALIDATE, validateStart);
+        // クエリの形（結果・履歴・集計に付ける。検証と同じトークン列から求めたもの）
+        SqlFingerprint fingerprint = validation.getFingerprint();
         if (!validation.isValid()) {
-            return QueryResult.error(sql, validation.getErrorMessage());
+            return PendingQuery.completed(withFingerprint(
+                    QueryResult.error(sql, validation.getErrorMessage()), fingerprint), timings);
         }
 
         String processedSql = validation.getProcessedSql();
-        long startTime = System.currentTimeMillis();
+        boolean readOnly = validation.isReadOnly();
 
+        // キャッシュ確認（ヒットした場合は cached=true の結果を返す）
+        String cacheKey = useCache && !explainOnly ? resultCache.keyFor(validation) : null;
+        String planKey = planKeyFor(validation, explainMode);
+        long cacheEpoch = resultCache.currentEpoch();
+        if (cacheKey != null) {
+            QueryResult cached = resultCache.getResult(cacheKey);
+            if (cached != null) {
+                return PendingQuery.completed(withFingerprint(cached.asCached(sql), fingerprint), timings);
+            }
+        }
+
+        RunningQueryRegistry.RunningQuery running = runningQueryRegistry.register(queryId, userId);
         try {
-            // タイムアウト付きで実行
-            Future<QueryResult> future = executorService.submit(() ->
-                    executeWithMetrics(processedSql, sql)
-            );
+            // 上限付きワーカーへ投入（キュー満杯なら QueryRejectedException）
+            long submittedAt = System.nanoTime();
+            Future<QueryResult> future = queryScheduler.submit(userId, () -> {
+                running.markStarted();
+                timings.since(QueryPhase.QUEUE, submittedAt);
+                if (explainOnly) {
+                    return withFingerprint(explainWithMetrics(processedSql, sql, readOnly, running,
+                            explainMode, planKey, cacheEpoch, timings), fingerprint);
+                }
+                QueryResult result = withFingerprint(executeWithMetrics(processedSql, sql, readOnly, running,
+                        explainMode, planKey, cacheEpoch, timings), fingerprint);
+                // レプリカの結果は再生成（epoch の更新）より前のデータかもしれないのでキャッシュしない
+                if (cacheKey != null && result.isSuccess() && !result.isFromReplica()) {
+                    resultCache.putResult(cacheKey, result, cacheEpoch);
+                }
+                return result;
+            });
+            running.setFuture(future);
+            return new PendingQuery(sql, fingerprint, timings, running, future);
+        } catch (RuntimeException e) {
+            runningQueryRegistry.unregister(running);
+            throw e;
+        }
+    }
+
+    private QueryResult awaitQuery(PendingQuery pending) {
+        QueryResult result = pending.result != null ? pending.result : awaitResult(pending);
+        if (result.getFingerprint() == null) {
+            result.setFingerprint(pending.fingerprint);
+        }
+        result.setTimings(pending.timings);
+        return result;
+    }
+
+    // タイムアウトは実行開始から queryTimeoutSeconds、キュー待ちは別枠で maxQueueWaitSeconds まで
+    private QueryResult awaitResult(PendingQuery pending) {
+        RunningQueryRegistry.RunningQuery running = pending.running;
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(queryTimeoutSeconds);
+        long queueDeadline = pending.submittedAt + TimeUnit.SECONDS.toNanos(maxQueueWaitSeconds);
+
+        try {
+            while (true) {
+                long startedAt = running.getStartedAt();
+                long deadline = startedAt != 0 ? startedAt + timeoutNanos : queueDeadline;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    // MySQL 側のクエリも KILL して接続を解放させる
+                    running.cancel();
+                    return QueryResult.timeout(pending.sql, pending.elapsedMillis());
+                }
+                try {
+                    return pending.future.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // 実行開始済みかどうかで期限を再計算
+                }
+            }
+        } catch (CancellationException e) {
+            return QueryResult.cancelled(pending.sql, pending.elapsedMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.cancel();
+            return QueryResult.cancelled(pending.sql, pending.elapsedMillis());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return QueryResult.error(pending.sql, cause.getMessage(), pending.elapsedMillis());
+        } finally {
+            runningQueryRegistry.unregister(running);
+        }
+    }
+
+    public boolean cancelQuery(String queryId, Integer userId) {
+        return runningQueryRegistry.cancel(queryId, userId);
+    }
+
+    private QueryResult executeWithMetrics(String processedSql, String originalSql, boolean readOnly,
+                                           RunningQueryRegistry.RunningQuery running,
+                                           ExplainMode explainMode, String planKey, long cacheEpoch,
+                                           QueryTimings timings) {
+        long startTime = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
+        Connection replica = readOnly ? replicaRouter.getReplicaConnection() : null;
+
+        try (Connection connection = replica != null ? replica : dataSource.getConnection()) {
+            phaseStart = timings.since(QueryPhase.CONNECT, phaseStart);
+            connection.setAutoCommit(false);
 
-            return future.get(queryTimeoutSeconds, TimeUnit.SECONDS);
+            // 実行計画取得（NONE なら省略、CACHED ならキャッシュ済みの計画を再利用）
+            ExplainPlan plan = explain(connection, processedSql, explainMode, planKey, cacheEpoch, running);
+            if (plan != null) {
+                timings.since(QueryPhase.EXPLAIN, phaseStart);
+            }
+            String rejection = checkGuard(plan);
+            if (rejection != null) {
+                return QueryResult.rejected(originalSql, processedSql, plan, rejection,
+                        System.currentTimeMillis() - startTime);
+            }
+
+            // クエリ実行
+            ColumnarResult data;
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.setQueryTimeout(queryTimeoutSeconds);
+                running.attach(stmt);
+
+                phaseStart = System.nanoTime();
+                try (ResultSet rs = stmt.executeQuery(processedSql)) {
+                    phaseStart = timings.since(QueryPhase.EXECUTE, phaseStart);
+                    // カラム情報は1回だけ保持し、値は列ごとの配列に格納
+                    data = ColumnarResult.forMetaData(rs.getMetaData());
+
+                    // データ取得
+                    while (rs.next()) {
+                        data.appendRow(rs);
+                    }
+                }
+                timings.since(QueryPhase.FETCH, phaseStart);
+            }
+
+            List<String> columns = data.getColumnNames();
+            int rowsReturned = data.getRowCount();
 
-        } catch (TimeoutException e) {
             long executionTime = System.currentTimeMillis() - startTime;
-            return QueryResult.timeout(sql, executionTime);
-        } catch (InterruptedException | ExecutionException e) {
+
+            // ロールバック（SELECT のみなので変更はないが念のため）
+            connection.rollback();
+
+            QueryResult result = QueryResult.success(
+                    originalSql,
+                    processedSql,
+                    columns,
+                    data,
+                    executionTime,
+                    rowsReturned,
+                    plan
+            );
+            result.setFromReplica(replica != null);
+            return result;
+
+        } catch (SQLException e) {
             long executionTime = System.currentTimeMillis() - startTime;
-            Throwable cause = e.getCause() != null ? e.getCause() : e;
-            return QueryResult.error(sql, cause.getMessage(), executionTime);
+            if (running.isCancelled()) {
+                return QueryResult.cancelled(originalSql, executionTime);
+            }
+            return QueryResult.error(originalSql, "SQL Error: " + e.getMessage(), executionTime);
         }
     }
 
-    private QueryResult executeWithMetrics(String processedSql, String originalSql) {
+    // 実行計画のみ取得（結果は plan のみ、rowsReturned は 0）
+    private QueryResult explainWithMetrics(String processedSql, String originalSql, boolean readOnly,
+                                           RunningQueryRegistry.RunningQuery running,
+                                           ExplainMode explainMode, String planKey, long cacheEpoch,
+                                           QueryTimings timings) {
         long startTime = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
 
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = openConnection(readOnly)) {
+            phaseStart = timings.since(QueryPhase.CONNECT, phaseStart);
             connection.setAutoCommit(false);
+            ExplainPlan plan = explain(connection, processedSql, explainMode, planKey, cacheEpoch, running);
+            timings.since(QueryPhase.EXPLAIN, phaseStart);
+            connection.rollback();
+            return QueryResult.success(originalSql, processedSql, null, null,
+                    System.currentTimeMillis() - startTime, 0, plan);
+        } catch (SQLException e) {
+            long executionTime = System.currentTimeMillis() - startTime;
+            if (running.isCancelled()) {
+                return QueryResult.cancelled(originalSql, executionTime);
+            }
+            return QueryResult.error(originalSql, "SQL Error: " + e.getMessage(), executionTime);
+        }
+    }
 
-            // EXPLAIN取得
-            List<Map<String, Object>> explainResult = getExplainResult(connection, processedSql);
-            String explainJson = toJson(explainResult);
+    // 結果行をメモリに溜めずに NDJSON として直接書き出す
+    // columns レコード → row レコード（1行ずつ） → summary レコード（メトリクス + EXPLAIN）の順
+    // /execute と同じくスケジューラのワーカーで実行する（ユーザーごとの同時実行数・キュー上限・接続プールの上限を共有）
+    // 検証と投入はリクエストスレッドで行うので、キュー満杯はレスポンスを書き始める前に QueryRejectedException（429）になる
+    public PendingStream startStream(String sql, Integer userId, boolean isAdmin, String queryId) {
+        QueryTimings timings = new QueryTimings();
 
-            // インデックス使用状況を抽出
-            String indexUsed = extractIndexUsed(explainResult);
-            Integer rowsScanned = extractRowsScanned(explainResult);
+        // SQL検証
+        long validateStart = System.nanoTime();
+        SqlValidator.ValidationResult validation = validationCache.validate(sql, isAdmin);
+        timings.since(QueryPhase.VALIDATE, validateStart);
+        SqlFingerprint fingerprint = validation.getFingerprint();
+        if (!validation.isValid()) {
+            return PendingStream.completed(withFingerprint(
+                    QueryResult.error(sql, validation.getErrorMessage()), fingerprint), timings);
+        }
+
+        RunningQueryRegistry.RunningQuery running = runningQueryRegistry.register(queryId, userId);
+        PendingStream pending = new PendingStream(sql, fingerprint, timings, running);
+        try {
+            long submittedAt = System.nanoTime();
+            Future<QueryResult> future = queryScheduler.submit(userId, () -> {
+                // キュー待ちのタイムアウト・キャンセルと競合したら何もしない（summary は待機側が書く）
+                if (!pending.claim()) {
+                    return null;
+                }
+                try {
+                    running.markStarted();
+                    timings.since(QueryPhase.QUEUE, submittedAt);
+                    // 書き出し先は StreamingResponseBody が始まってから渡される
+                    JsonGenerator generator = pending.output.get(maxQueueWaitSeconds, TimeUnit.SECONDS);
+                    return executeStream(validation, sql, running, timings, generator);
+                } finally {
+                    pending.finished.countDown();
+                    runningQueryRegistry.unregister(running);
+                }
+            });
+            running.setFuture(future);
+            pending.future = future;
+            return pending;
+        } catch (RuntimeException e) {
+            runningQueryRegistry.unregister(running);
+            throw e;
+        }
+    }
+
+    // startStream で受け付けたクエリの結果を generator に書き出す（戻り値は履歴保存用、data は保持しない）
+    public QueryResult writeStream(PendingStream pending, JsonGenerator generator) throws IOException {
+        generator.setRootValueSeparator(null);
+        QueryResult result = pending.result;
+        if (result == null) {
+            pending.output.complete(generator);
+            result = awaitStream(pending);
+        }
+        if (result.getFingerprint() == null) {
+            result.setFingerprint(pending.fingerprint);
+        }
+        result.setTimings(pending.timings);
+        writeSummaryRecord(generator, result);
+        return result;
+    }
+
+    // キュー待ちは maxQueueWaitSeconds まで。実行開始後は終わるまで待つ
+    // （DB 側は setQueryTimeout で止まる。書き出しの速さはクライアント次第）
+    private QueryResult awaitStream(PendingStream pending) throws IOException {
+        RunningQueryRegistry.RunningQuery running = pending.running;
+        long queueDeadline = pending.submittedAt + TimeUnit.SECONDS.toNanos(maxQueueWaitSeconds);
+
+        try {
+            while (true) {
+                try {
+                    if (pending.isClaimed()) {
+                        return pending.future.get();
+                    }
+                    long remaining = queueDeadline - System.nanoTime();
+                    if (remaining <= 0 && pending.claim()) {
+                        running.cancel();
+                        return QueryResult.timeout(pending.sql, pending.elapsedMillis());
+                    }
+                    return pending.future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // 実行開始済みかどうかで待ち方を決め直す
+                }
+            }
+        } catch (CancellationException e) {
+            // 実行中なら書き出しが止まるまで待ってから summary を書く
+            if (!pending.claim()) {
+                pending.awaitFinished();
+            }
+            return QueryResult.cancelled(pending.sql, pending.elapsedMillis());
+        } catch (InterruptedException e) {
+            running.cancel();
+            if (!pending.claim()) {
+                pending.awaitFinished();
+            }
+            Thread.currentThread().interrupt();
+            return QueryResult.cancelled(pending.sql, pending.elapsedMillis());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                // クライアントへの書き出し失敗（切断など）
+                throw (IOException) cause;
+            }
+            return QueryResult.error(pending.sql, cause.getMessage(), pending.elapsedMillis());
+        } finally {
+            runningQueryRegistry.unregister(running);
+        }
+    }
+
+    // ワーカー上で実行し、columns / row レコードを書き出す（summary は writeStream が書く）
+    private QueryResult executeStream(SqlValidator.ValidationResult validation, String sql,
+                                      RunningQueryRegistry.RunningQuery running, QueryTimings timings,
+                                      JsonGenerator generator) throws IOException {
+        String processedSql = validation.getProcessedSql();
+        long startTime = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
+
+        try (Connection connection = openConnection(validation.isReadOnly())) {
+            phaseStart = timings.since(QueryPhase.CONNECT, phaseStart);
+            connection.setAutoCommit(false);
+
+            // 実行計画取得（ストリーミング中は同一コネクションで別クエリを発行できないため先に取得）
+            ExplainPlan plan = explain(connection, processedSql, defaultExplainMode,
+                    planKeyFor(validation, defaultExplainMode), resultCache.currentEpoch(), running);
+            if (plan != null) {
+                timings.since(QueryPhase.EXPLAIN, phaseStart);
+            }
+            String rejection = checkGuard(plan);
+            if (rejection != null) {
+                return QueryResult.rejected(sql, processedSql, plan, rejection,
+                        System.currentTimeMillis() - startTime);
+            }
 
-            // クエリ実行
-            List<Map<String, Object>> data = new ArrayList<>();
             List<String> columns = new ArrayList<>();
             int rowsReturned = 0;
 
-            try (Statement stmt = connection.createStatement()) {
+            try (Statement stmt = connection.createStatement(
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
                 stmt.setQueryTimeout(queryTimeoutSeconds);
+                // Integer.MIN_VALUE で1行ずつ受信（useCursorFetch=true なら正の値でサーバーサイドカーソル）
+                stmt.setFetchSize(streamFetchSize);
+                running.attach(stmt);
 
+                phaseStart = System.nanoTime();
                 try (ResultSet rs = stmt.executeQuery(processedSql)) {
+                    phaseStart = timings.since(QueryPhase.EXECUTE, phaseStart);
                     ResultSetMetaData metaData = rs.getMetaData();
                     int columnCount = metaData.getColumnCount();
 
-                    // カラム名取得
                     for (int i = 1; i <= columnCount; i++) {
                         columns.add(metaData.getColumnLabel(i));
                     }
+                    writeColumnsRecord(generator, columns);
 
-                    // データ取得
+                    // 1行ずつ書き出し（行の Map は作らない）
                     while (rs.next()) {
-                        Map<String, Object> row = new LinkedHashMap<>();
+                        generator.writeStartObject();
+                        generator.writeStringField("type", "row");
+                        generator.writeObjectFieldStart("data");
                         for (int i = 1; i <= columnCount; i++) {
-                            row.put(columns.get(i - 1), rs.getObject(i));
+                            generator.writeFieldName(columns.get(i - 1));
+                            generator.writeObject(rs.getObject(i));
                         }
-                        data.add(row);
+                        generator.writeEndObject();
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
                         rowsReturned++;
                     }
                 }
+                timings.since(QueryPhase.FETCH, phaseStart);
             }
 
             long executionTime = System.currentTimeMillis() - startTime;
-
-            // ロールバック（SELECT のみなので変更はないが念のため）
             connection.rollback();
 
             return QueryResult.success(
-                    originalSql,
+                    sql,
                     processedSql,
                     columns,
-                    data,
+                    null,
                     executionTime,
                     rowsReturned,
-                    rowsScanned,
-                    indexUsed,
-                    explainJson
+                    plan
             );
 
         } catch (SQLException e) {
             long executionTime = System.currentTimeMillis() - startTime;
-            return QueryResult.error(originalSql, "SQL Error: " + e.getMessage(), executionTime);
+            return running.isCancelled()
+                    ? QueryResult.cancelled(sql, executionTime)
+                    : QueryResult.error(sql, "SQL Error: " + e.getMessage(), executionTime);
+        }
+    }
+
+    private void writeColumnsRecord(JsonGenerator generator, List<String> columns) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "columns");
+        generator.writeArrayFieldStart("columns");
+        for (String column : columns) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeSummaryRecord(JsonGenerator generator, QueryResult result) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "summary");
+        generator.writeStringField("status", result.getStatus());
+        generator.writeStringField("originalSql", result.getOriginalSql());
+        generator.writeStringField("processedSql", result.getProcessedSql());
+        generator.writeObjectField("executionTimeMs", result.getExecutionTimeMs());
+        generator.writeObjectField("rowsReturned", result.getRowsReturned());
+        generator.writeObjectField("rowsScanned", result.getRowsScanned());
+        generator.writeStringField("indexUsed", result.getIndexUsed());
+        generator.writeStringField("fingerprint",
+                result.getFingerprint() != null ? result.getFingerprint().getHashHex() : null);
+        generator.writeObjectField("warnings", result.getWarnings());
+        generator.writeFieldName("explainResult");
+        if (result.getExplainResult() != null) {
+            generator.writeRawValue(result.getExplainResult());
+        } else {
+            generator.writeNull();
+        }
+        generator.writeStringField("errorMessage", result.getErrorMessage());
+        writeTimings(generator, result.getTimings());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    // ストリーミングではヘッダーを先に送るので Server-Timing の代わりに summary に載せる（ミリ秒）
+    private void writeTimings(JsonGenerator generator, QueryTimings timings) throws IOException {
+        if (timings == null) {
+            return;
+        }
+        generator.writeObjectFieldStart("timings");
+        for (QueryPhase phase : QueryPhase.values()) {
+            if (timings.isRecorded(phase)) {
+                generator.writeNumberField(phase.getMetricName(), timings.getNanos(phase) / 1_000_000.0);
+            }
         }
+        generator.writeEndObject();
     }
 
     public ExplainResult getExplainOnly(String sql, boolean isAdmin) {
-        SqlValidator.ValidationResult validation = sqlValidator.validate(sql, isAdmin);
+        return getExplainOnly(sql, null, isAdmin, null, null);
+    }
+
+    // explainMode: TRADITIONAL / CACHED / JSON / ANALYZE（null, NONE は TRADITIONAL）
+    // ANALYZE はクエリを実際に実行するので /execute と同じくスケジューラ経由で実行し、
+    // queryId で cancelQuery の対象にする（タイムアウトも /execute と同じ）
+    public ExplainResult getExplainOnly(String sql, Integer userId, boolean isAdmin, ExplainMode explainMode,
+                                        String queryId) {
+        if (explainMode == ExplainMode.ANALYZE) {
+            QueryResult result = awaitQuery(startQuery(sql, userId, isAdmin, queryId, false,
+                    ExplainMode.ANALYZE, true));
+            return result.isSuccess() && result.getPlan() != null
+                    ? ExplainResult.success(result.getPlan())
+                    : ExplainResult.error(result.getErrorMessage());
+        }
+
+        SqlValidator.ValidationResult validation = validationCache.validate(sql, isAdmin);
         if (!validation.isValid()) {
             return ExplainResult.error(validation.getErrorMessage());
         }
 
+        ExplainMode mode = explainMode == null || explainMode == ExplainMode.NONE
+                ? ExplainMode.TRADITIONAL
+                : explainMode;
         String processedSql = validation.getProcessedSql();
+        String planKey = planKeyFor(validation, mode);
 
-        try (Connection connection = dataSource.getConnection()) {
-            List<Map<String, Object>> explainResult = getExplainResult(connection, processedSql);
-            String indexUsed = extractIndexUsed(explainResult);
-            Integer rowsScanned = extractRowsScanned(explainResult);
+        ExplainPlan cachedPlan = planKey != null ? resultCache.getExplain(planKey) : null;
+        if (cachedPlan != null) {
+            return ExplainResult.success(cachedPlan);
+        }
 
-            return ExplainResult.success(explainResult, indexUsed, rowsScanned);
+        try (Connection connection = openConnection(validation.isReadOnly())) {
+            ExplainPlan plan = explain(connection, processedSql, mode, planKey, resultCache.currentEpoch(), null);
+            return ExplainResult.success(plan);
         } catch (SQLException e) {
             return ExplainResult.error("SQL Error: " + e.getMessage());
         }
     }
 
-    public List<QueryResult> compareQueries(List<String> sqls, boolean isAdmin) {
+    public List<QueryResult> compareQueries(List<String> sqls, Integer userId, boolean isAdmin) {
         List<QueryResult> results = new ArrayList<>();
         for (String sql : sqls) {
-            results.add(executeQuery(sql, isAdmin));
+            results.add(executeQuery(sql, userId, isAdmin));
+        }
+        return results;
+    }
+
+    // 全クエリを同時にワーカーへ投入（同時実行数はスケジューラのユーザー上限で制限される）
+    public List<QueryResult> compareQueriesParallel(List<String> sqls, Integer userId, boolean isAdmin) {
+        List<PendingQuery> pendings = new ArrayList<>();
+        try {
+            for (String sql : sqls) {
+                pendings.add(startQuery(sql, userId, isAdmin, null, true, defaultExplainMode));
+            }
+        } catch (RuntimeException e) {
+            // 投入途中で拒否された場合は投入済みのものを止める
+            for (PendingQuery pending : pendings) {
+                if (pending.running != null) {
+                    pending.running.cancel();
+                    runningQueryRegistry.unregister(pending.running);
+                }
+            }
+            throw e;
+        }
+
+        List<QueryResult> results = new ArrayList<>();
+        for (PendingQuery pending : pendings) {
+            results.add(awaitQuery(pending));
         }
         return results;
     }
 
+    // ベンチマーク比較: ウォームアップ後に各クエリを iterations 回ずつ実行し min/median/p95 を返す
+    // 1回ずつ直列に実行し、ラウンドごとに実行順をずらしてキャッシュ状態の偏りを抑える
+    // 計測するのはサーバー上の実行と結果の取得（EXECUTE + FETCH）のみ（キュー待ち・接続取得・EXPLAIN は含めない）
+    public List<QueryResult> benchmarkQueries(List<String> sqls, Integer userId, boolean isAdmin,
+                                              int iterations, int warmup) {
+        int count = sqls.size();
+        QueryResult[] lastResults = new QueryResult[count];
+        List<List<Long>> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            samples.add(new ArrayList<>());
+        }
+
+        int rounds = warmup + iterations;
+        for (int round = 0; round < rounds; round++) {
+            for (int offset = 0; offset < count; offset++) {
+                int index = (round + offset) % count;
+                // 失敗したクエリはそれ以降実行しない
+                if (lastResults[index] != null && !lastResults[index].isSuccess()) {
+                    continue;
+                }
+
+                // キャッシュを使うと計測にならないので常に実行する
+                // 実行計画は初回のみ取得（計測には EXPLAIN を含めない）
+                QueryResult result = awaitQuery(startQuery(sqls.get(index), userId, isAdmin, null,
+                        false, ExplainMode.CACHED));
+                lastResults[index] = result;
+                if (result.isSuccess() && round >= warmup) {
+                    QueryTimings timings = result.getTimings();
+                    samples.get(index).add(
+                            timings.getNanos(QueryPhase.EXECUTE) + timings.getNanos(QueryPhase.FETCH));
+                }
+            }
+        }
+
+        List<QueryResult> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QueryResult result = lastResults[i];
+            if (result.isSuccess()) {
+                result.setBenchmark(BenchmarkStats.of(samples.get(i), warmup));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // 読み取り専用クエリはレプリカ（無効・全滅ならプライマリ）、それ以外はプライマリの query プール
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        return readOnly ? replicaRouter.getReadConnection(dataSource) : dataSource.getConnection();
+    }
+
+    private static QueryResult withFingerprint(QueryResult result, SqlFingerprint fingerprint) {
+        result.setFingerprint(fingerprint);
+        return result;
+    }
+
+    // 実行計画のキャッシュキー（キャッシュしない場合は null）
+    // CACHED は結果キャッシュの有効/無効に関係なく計画を再利用、ANALYZE は実測値なのでキャッシュしない
+    private String planKeyFor(SqlValidator.ValidationResult validation, ExplainMode mode) {
+        switch (mode) {
+            case CACHED:
+                return resultCache.planKeyFor(validation, "traditional");
+            case TRADITIONAL:
+                return resultCache.isEnabled() ? resultCache.planKeyFor(validation, "traditional") : null;
+            case JSON:
+                return resultCache.isEnabled() ? resultCache.planKeyFor(validation, "json") : null;
+            default:
+                return null;
+        }
+    }
+
+    private ExplainPlan explain(Connection connection, String sql, ExplainMode mode, String planKey,
+                                long cacheEpoch, RunningQueryRegistry.RunningQuery running) throws SQLException {
+        if (mode == ExplainMode.NONE) {
+            return null;
+        }
+        if (planKey != null) {
+            ExplainPlan cached = resultCache.getExplain(planKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        ExplainPlan plan;
+        switch (mode) {
+            case JSON:
+                plan = explainPlanParser.fromJson(
+                        querySingleString(connection, "EXPLAIN FORMAT=JSON " + sql, running));
+                break;
+            case ANALYZE:
+                // EXPLAIN ANALYZE はクエリを実際に実行するのでキャンセル・タイムアウト対象にする
+                plan = explainPlanParser.fromAnalyze(
+                        querySingleString(connection, "EXPLAIN ANALYZE " + sql, running));
+                break;
+            default:
+                plan = explainPlanParser.fromTraditional(mode, getExplainResult(connection, sql));
+        }
+        explainAdvisor.analyze(plan);
+
+        if (planKey != null) {
+            resultCache.putExplain(planKey, plan, cacheEpoch);
+        }
+        return plan;
+    }
+
+    // query.guard.max-estimated-rows を超える推定読み取り行数のクエリは実行しない（0 で無効）
+    // EXPLAIN ANALYZE は計画取得時点で実行済みなので対象外
+    private String checkGuard(ExplainPlan plan) {
+        if (maxEstimatedRows <= 0 || plan == null || plan.getMode() == ExplainMode.ANALYZE) {
+            return null;
+        }
+        Long examined = plan.getEstimatedRowsExamined();
+        if (examined == null || examined <= maxEstimatedRows) {
+            return null;
+        }
+        return "Query rejected: estimated " + examined + " rows examined exceeds the limit of "
+                + maxEstimatedRows + ". Add selective conditions or a LIMIT.";
+    }
+
+    private String querySingleString(Connection connection, String sql,
+                                     RunningQueryRegistry.RunningQuery running) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+            if (running != null) {
+                running.attach(stmt);
+            }
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
     private List<Map<String, Object>> getExplainResult(Connection connection, String sql) throws SQLException {
         List<Map<String, Object>> result = new ArrayList<>();
 
@@ -175,33 +771,98 @@ public class QueryExecutionService {
         return result;
     }
 
-    private String extractIndexUsed(List<Map<String, Object>> explainResult) {
-        Set<String> indexes = new LinkedHashSet<>();
-        for (Map<String, Object> row : explainResult) {
-            Object key = row.get("key");
-            if (key != null && !key.toString().isEmpty()) {
-                indexes.add(key.toString());
-            }
+    private static class PendingQuery {
+        private final String sql;
+        private final SqlFingerprint fingerprint;
+        private final QueryTimings timings;
+        private final RunningQueryRegistry.RunningQuery running;
+        private final Future<QueryResult> future;
+        private final QueryResult result;
+        private final long submittedAt = System.nanoTime();
+
+        private PendingQuery(String sql, SqlFingerprint fingerprint, QueryTimings timings,
+                             RunningQueryRegistry.RunningQuery running, Future<QueryResult> future) {
+            this(sql, fingerprint, timings, running, future, null);
+        }
+
+        private PendingQuery(String sql, SqlFingerprint fingerprint, QueryTimings timings,
+                             RunningQueryRegistry.RunningQuery running, Future<QueryResult> future,
+                             QueryResult result) {
+            this.sql = sql;
+            this.fingerprint = fingerprint;
+            this.timings = timings;
+            this.running = running;
+            this.future = future;
+            this.result = result;
+        }
+
+        static PendingQuery completed(QueryResult result, QueryTimings timings) {
+            return new PendingQuery(result.getOriginalSql(), result.getFingerprint(), timings, null, null, result);
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
         }
-        return indexes.isEmpty() ? null : String.join(", ", indexes);
     }
 
-    private Integer extractRowsScanned(List<Map<String, Object>> explainResult) {
-        int total = 0;
-        for (Map<String, Object> row : explainResult) {
-            Object rows = row.get("rows");
-            if (rows instanceof Number) {
-                total += ((Number) rows).intValue();
+    // startStream で受け付けたストリーミングクエリ（検証エラーなら result のみ）
+    public static final class PendingStream {
+        private final String sql;
+        private final SqlFingerprint fingerprint;
+        private final QueryTimings timings;
+        private final RunningQueryRegistry.RunningQuery running;
+        private final QueryResult result;
+        private final long submittedAt = System.nanoTime();
+        // ワーカーへ書き出し先を渡す
+        private final CompletableFuture<JsonGenerator> output = new CompletableFuture<>();
+        // ワーカーが実行を始めたか、待機側がタイムアウト・キャンセルとして引き取ったか（先に取った方が summary の内容を決める）
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile Future<QueryResult> future;
+
+        private PendingStream(String sql, SqlFingerprint fingerprint, QueryTimings timings,
+                              RunningQueryRegistry.RunningQuery running) {
+            this(sql, fingerprint, timings, running, null);
+        }
+
+        private PendingStream(String sql, SqlFingerprint fingerprint, QueryTimings timings,
+                              RunningQueryRegistry.RunningQuery running, QueryResult result) {
+            this.sql = sql;
+            this.fingerprint = fingerprint;
+            this.timings = timings;
+            this.running = running;
+            this.result = result;
+        }
+
+        static PendingStream completed(QueryResult result, QueryTimings timings) {
+            return new PendingStream(result.getOriginalSql(), result.getFingerprint(), timings, null, result);
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private boolean isClaimed() {
+            return claimed.get();
+        }
+
+        private void awaitFinished() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
         }
-        return total > 0 ? total : null;
-    }
 
-    private String toJson(Object obj) {
-        try {
-            return objectMapper.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            return "[]";
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
         }
     }
 
@@ -211,18 +872,26 @@ public class QueryExecutionService {
         private final String originalSql;
         private final String processedSql;
         private final List<String> columns;
-        private final List<Map<String, Object>> data;
+        private final ColumnarResult data;
         private final Long executionTimeMs;
         private final Integer rowsReturned;
         private final Integer rowsScanned;
         private final String indexUsed;
         private final String explainResult;
         private final String errorMessage;
+        private final ExplainPlan plan;
+        private BenchmarkStats benchmark;
+        private boolean cached = false;
+        // レプリカで実行した結果（結果キャッシュには入れない）
+        private boolean fromReplica = false;
+        private SqlFingerprint fingerprint;
+        // 段階別の所要時間（レスポンスの Server-Timing とメトリクス用。キャッシュにはコピーしない）
+        private QueryTimings timings;
 
         private QueryResult(String status, String originalSql, String processedSql,
-                            List<String> columns, List<Map<String, Object>> data,
+                            List<String> columns, ColumnarResult data,
                             Long executionTimeMs, Integer rowsReturned, Integer rowsScanned,
-                            String indexUsed, String explainResult, String errorMessage) {
+                            String indexUsed, String explainResult, String errorMessage, ExplainPlan plan) {
             this.status = status;
             this.originalSql = originalSql;
             this.processedSql = processedSql;
@@ -234,29 +903,56 @@ public class QueryExecutionService {
             this.indexUsed = indexUsed;
             this.explainResult = explainResult;
             this.errorMessage = errorMessage;
+            this.plan = plan;
         }
 
+        // plan が null（ExplainMode.NONE）の場合は rowsScanned / indexUsed も null
         public static QueryResult success(String originalSql, String processedSql,
-                                          List<String> columns, List<Map<String, Object>> data,
-                                          long executionTimeMs, int rowsReturned,
-                                          Integer rowsScanned, String indexUsed, String explainResult) {
+                                          List<String> columns, ColumnarResult data,
+                                          long executionTimeMs, int rowsReturned, ExplainPlan plan) {
             return new QueryResult("SUCCESS", originalSql, processedSql, columns, data,
-                    executionTimeMs, rowsReturned, rowsScanned, indexUsed, explainResult, null);
+                    executionTimeMs, rowsReturned,
+                    plan != null ? plan.getRowsScannedAsInt() : null,
+                    plan != null ? plan.getIndexUsed() : null,
+                    plan != null ? plan.getRawJson() : null,
+                    null, plan);
+        }
+
+        // キャッシュから返す際のコピー（共有インスタンスは変更しない）
+        public QueryResult asCached(String requestedSql) {
+            QueryResult copy = new QueryResult(status, requestedSql, processedSql, columns, data,
+                    executionTimeMs, rowsReturned, rowsScanned, indexUsed, explainResult, errorMessage, plan);
+            copy.cached = true;
+            copy.fingerprint = fingerprint;
+            return copy;
         }
 
         public static QueryResult error(String originalSql, String errorMessage) {
             return new QueryResult("ERROR", originalSql, null, null, null,
-                    null, null, null, null, null, errorMessage);
+                    null, null, null, null, null, errorMessage, null);
         }
 
         public static QueryResult error(String originalSql, String errorMessage, long executionTimeMs) {
             return new QueryResult("ERROR", originalSql, null, null, null,
-                    executionTimeMs, null, null, null, null, errorMessage);
+                    executionTimeMs, null, null, null, null, errorMessage, null);
+        }
+
+        // 実行計画のチェックで実行前に拒否したクエリ（plan と warnings は返す）
+        public static QueryResult rejected(String originalSql, String processedSql, ExplainPlan plan,
+                                           String errorMessage, long executionTimeMs) {
+            return new QueryResult("ERROR", originalSql, processedSql, null, null,
+                    executionTimeMs, null, plan.getRowsScannedAsInt(), plan.getIndexUsed(),
+                    plan.getRawJson(), errorMessage, plan);
         }
 
         public static QueryResult timeout(String originalSql, long executionTimeMs) {
             return new QueryResult("TIMEOUT", originalSql, null, null, null,
-                    executionTimeMs, null, null, null, null, "Query execution timed out");
+                    executionTimeMs, null, null, null, null, "Query execution timed out", null);
+        }
+
+        public static QueryResult cancelled(String originalSql, long executionTimeMs) {
+            return new QueryResult("ERROR", originalSql, null, null, null,
+                    executionTimeMs, null, null, null, null, "Query was cancelled", null);
         }
 
         // Getters
@@ -264,14 +960,84 @@ public class QueryExecutionService {
         public String getOriginalSql() { return originalSql; }
         public String getProcessedSql() { return processedSql; }
         public List<String> getColumns() { return columns; }
-        public List<Map<String, Object>> getData() { return data; }
+        public ColumnarResult getData() { return data; }
         public Long getExecutionTimeMs() { return executionTimeMs; }
         public Integer getRowsReturned() { return rowsReturned; }
         public Integer getRowsScanned() { return rowsScanned; }
         public String getIndexUsed() { return indexUsed; }
         public String getExplainResult() { return explainResult; }
+        public ExplainPlan getPlan() { return plan; }
+        public List<PlanWarning> getWarnings() { return plan != null ? plan.getWarnings() : List.of(); }
         public String getErrorMessage() { return errorMessage; }
+        public BenchmarkStats getBenchmark() { return benchmark; }
+        public boolean isCached() { return cached; }
+        public boolean isFromReplica() { return fromReplica; }
+        public SqlFingerprint getFingerprint() { return fingerprint; }
+        public QueryTimings getTimings() { return timings; }
         public boolean isSuccess() { return "SUCCESS".equals(status); }
+
+        void setBenchmark(BenchmarkStats benchmark) { this.benchmark = benchmark; }
+        void setFromReplica(boolean fromReplica) { this.fromReplica = fromReplica; }
+        void setFingerprint(SqlFingerprint fingerprint) { this.fingerprint = fingerprint; }
+        void setTimings(QueryTimings timings) { this.timings = timings; }
+    }
+
+    // 値はミリ秒（小数部はマイクロ秒まで）
+    public static class BenchmarkStats {
+        private final int iterations;
+        private final int warmup;
+        private final double minMs;
+        private final double medianMs;
+        private final double p95Ms;
+        private final double maxMs;
+        private final double meanMs;
+
+        private BenchmarkStats(int iterations, int warmup, double minMs, double medianMs,
+                               double p95Ms, double maxMs, double meanMs) {
+            this.iterations = iterations;
+            this.warmup = warmup;
+            this.minMs = minMs;
+            this.medianMs = medianMs;
+            this.p95Ms = p95Ms;
+            this.maxMs = maxMs;
+            this.meanMs = meanMs;
+        }
+
+        // samples はナノ秒
+        static BenchmarkStats of(List<Long> samples, int warmup) {
+            if (samples.isEmpty()) {
+                return new BenchmarkStats(0, warmup, 0, 0, 0, 0, 0.0);
+            }
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            double mean = Arrays.stream(sorted).average().orElse(0.0);
+            return new BenchmarkStats(
+                    sorted.length,
+                    warmup,
+                    toMillis(sorted[0]),
+                    toMillis(percentile(sorted, 0.50)),
+                    toMillis(percentile(sorted, 0.95)),
+                    toMillis(sorted[sorted.length - 1]),
+                    toMillis(mean)
+            );
+        }
+
+        // nearest-rank 法
+        private static long percentile(long[] sorted, double p) {
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+
+        private static double toMillis(double nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+
+        public int getIterations() { return iterations; }
+        public int getWarmup() { return warmup; }
+        public double getMinMs() { return minMs; }
+        public double getMedianMs() { return medianMs; }
+        public double getP95Ms() { return p95Ms; }
+        public double getMaxMs() { return maxMs; }
+        public double getMeanMs() { return meanMs; }
     }
 
     public static class ExplainResult {
@@ -280,27 +1046,31 @@ public class QueryExecutionService {
         private final String indexUsed;
         private final Integer rowsScanned;
         private final String errorMessage;
+        private final ExplainPlan plan;
 
         private ExplainResult(boolean success, List<Map<String, Object>> explainData,
-                              String indexUsed, Integer rowsScanned, String errorMessage) {
+                              String indexUsed, Integer rowsScanned, String errorMessage, ExplainPlan plan) {
             this.success = success;
             this.explainData = explainData;
             this.indexUsed = indexUsed;
             this.rowsScanned = rowsScanned;
             this.errorMessage = errorMessage;
+            this.plan = plan;
         }
 
-        public static ExplainResult success(List<Map<String, Object>> explainData,
-                                            String indexUsed, Integer rowsScanned) {
-            return new ExplainResult(true, explainData, indexUsed, rowsScanned, null);
+        // explainData は表形式 EXPLAIN の行（JSON / ANALYZE では null、plan を参照）
+        public static ExplainResult success(ExplainPlan plan) {
+            return new ExplainResult(true, plan.getTraditionalRows(), plan.getIndexUsed(),
+                    plan.getRowsScannedAsInt(), null, plan);
         }
 
         public static ExplainResult error(String message) {
-            return new ExplainResult(false, null, null, null, message);
+            return new ExplainResult(false, null, null, null, message, null);
         }
 
         public boolean isSuccess() { return success; }
         public List<Map<String, Object>> getExplainData() { return explainData; }
+        public ExplainPlan getPlan() { return plan; }
         public String getIndexUsed() { return indexUsed; }
         public Integer getRowsScanned() { return rowsScanned; }
         public String getErrorMessage() { return errorMessage; }
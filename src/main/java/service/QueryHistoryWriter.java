@@ -0,0 +1,189 @@
+package service;
+
+import core.query.QueryHistory;
+import core.query.QueryHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import service.metrics.QueryMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// クエリ履歴の非同期書き込み
+// - リクエストスレッドはキューに積むだけ（INSERT の待ちとコネクションを応答時間に含めない）
+// - 専用スレッドが batch-size 件たまるか flush-interval-ms 経過ごとに複数行 INSERT でまとめて保存
+// - キューが満杯なら offer-timeout-ms まで待ち、それでも空かなければ破棄して dropped に数える
+// - 終了時は残りを書き切ってから止める
+@Component
+public class QueryHistoryWriter {
+
+    private final QueryHistoryRepository queryHistoryRepository;
+    private final QueryMetrics queryMetrics;
+    private final BlockingQueue<QueryHistory> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // メトリクス
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private volatile long lastFlushMs = 0;
+
+    public QueryHistoryWriter(
+            QueryHistoryRepository queryHistoryRepository,
+            QueryMetrics queryMetrics,
+            @Value("${query.history.queue-capacity:10000}") int queueCapacity,
+            @Value("${query.history.batch-size:200}") int batchSize,
+            @Value("${query.history.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${query.history.offer-timeout-ms:0}") long offerTimeoutMs,
+            @Value("${query.history.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.queryHistoryRepository = queryHistoryRepository;
+        this.queryMetrics = queryMetrics;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.shutdownTimeoutMs = Math.max(0, shutdownTimeoutMs);
+
+        this.worker = new Thread(this::writerLoop, "query-history-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // false: キューが満杯（または停止中）で破棄した
+    public boolean enqueue(QueryHistory history) {
+        if (!running) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        boolean accepted;
+        try {
+            accepted = offerTimeoutMs > 0
+                    ? queue.offer(history, offerTimeoutMs, TimeUnit.MILLISECONDS)
+                    : queue.offer(history);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted) {
+            enqueuedCount.incrementAndGet();
+        } else {
+            droppedCount.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    private void writerLoop() {
+        List<QueryHistory> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                long waitNanos = deadline - System.nanoTime();
+                QueryHistory history = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                if (history != null) {
+                    batch.add(history);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // shutdown() からの割り込み: ループ条件で残りを書き切る
+            }
+
+            if (batch.size() >= batchSize || System.nanoTime() - deadline >= 0 || !running) {
+                flush(batch);
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<QueryHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            queryHistoryRepository.saveAll(batch);
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            // 1行の不正でバッチ全体を失わないよう1件ずつやり直す
+            for (QueryHistory history : batch) {
+                try {
+                    queryHistoryRepository.save(history);
+                    writtenCount.incrementAndGet();
+                } catch (Exception rowError) {
+                    failedCount.incrementAndGet();
+                    System.err.println("Failed to save query history: " + rowError.getMessage());
+                }
+            }
+        }
+        batchCount.incrementAndGet();
+        long elapsedNanos = System.nanoTime() - start;
+        lastFlushMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        queryMetrics.recordHistoryFlush(elapsedNanos);
+        batch.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            System.err.println("Query history writer did not finish within " + shutdownTimeoutMs
+                    + "ms, " + queue.size() + " entries discarded");
+        }
+    }
+
+    public WriterStats getStats() {
+        return new WriterStats(queue.size(), queue.remainingCapacity(), enqueuedCount.get(),
+                writtenCount.get(), droppedCount.get(), failedCount.get(), batchCount.get(), lastFlushMs);
+    }
+
+    public static class WriterStats {
+        private final int queued;
+        private final int remainingCapacity;
+        private final long enqueued;
+        private final long written;
+        private final long dropped;
+        private final long failed;
+        private final long batches;
+        private final long lastFlushMs;
+
+        public WriterStats(int queued, int remainingCapacity, long enqueued, long written,
+                           long dropped, long failed, long batches, long lastFlushMs) {
+            this.queued = queued;
+            this.remainingCapacity = remainingCapacity;
+            this.enqueued = enqueued;
+            this.written = written;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.batches = batches;
+            this.lastFlushMs = lastFlushMs;
+        }
+
+        public int getQueued() { return queued; }
+        public int getRemainingCapacity() { return remainingCapacity; }
+        public long getEnqueued() { return enqueued; }
+        public long getWritten() { return written; }
+        public long getDropped() { return dropped; }
+        public long getFailed() { return failed; }
+        public long getBatches() { return batches; }
+        public long getLastFlushMs() { return lastFlushMs; }
+    }
+}
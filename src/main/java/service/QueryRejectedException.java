@@ -0,0 +1,8 @@
+package service;
+
+// 実行キューが満杯などでクエリを受け付けられない場合（429 Too Many Requests）
+public class QueryRejectedException extends RuntimeException {
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
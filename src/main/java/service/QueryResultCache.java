@@ -0,0 +1,325 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import service.explain.ExplainPlan;
+import service.explain.PlanNode;
+import service.sql.SqlFingerprint;
+import service.sql.SqlLexer;
+import service.sql.SqlToken;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 同一 SELECT の結果・EXPLAIN キャッシュ（query.cache.enabled=true で有効）
+// - キーは検証後の SQL を空白・コメント・大文字小文字で正規化したもの（リテラルはそのまま）
+//   SELECT の列リストと別名は列ラベルになるので正規化しない（SqlFingerprint.resultKey）
+// - 結果・実行計画それぞれ件数とおおよそのバイト数で上限を設けた LRU
+// - サンプルデータ再生成時に invalidateAll() で世代（epoch）ごと破棄する
+// - レプリカで実行した結果は入れない（再生成がまだ反映されていないデータを新しい世代として残さないように）
+@Component
+public class QueryResultCache {
+
+    // 結果が変わりうる関数を含むクエリはキャッシュしない（SqlLexer の語として照合するので文字列・コメント内は対象外）
+    // 呼び出し（直後に "("）のときだけ該当するもの
+    private static final Set<String> NON_DETERMINISTIC_FUNCTIONS = Set.of(
+            "rand", "now", "uuid", "uuid_short", "sysdate", "curdate", "curtime", "unix_timestamp",
+            "sleep", "user", "session_user", "system_user", "database", "schema", "connection_id",
+            "last_insert_id", "found_rows", "row_count"
+    );
+    // 括弧なしでも値になるもの（CURRENT_TIMESTAMP / LOCALTIME など）
+    private static final Set<String> NON_DETERMINISTIC_KEYWORDS = Set.of(
+            "current_timestamp", "current_date", "current_time", "current_user", "current_role",
+            "localtime", "localtimestamp", "utc_timestamp", "utc_date", "utc_time"
+    );
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long maxPlanBytes;
+
+    private final LinkedHashMap<String, ResultEntry> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, PlanEntry> explains = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private long totalPlanBytes = 0;
+
+    // データ世代（generateAllData のたびに進む）
+    private final AtomicLong epoch = new AtomicLong();
+
+    // メトリクス
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public QueryResultCache(
+            @Value("${query.cache.enabled:false}") boolean enabled,
+            @Value("${query.cache.max-entries:500}") int maxEntries,
+            @Value("${query.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${query.cache.plan-max-bytes:16777216}") long maxPlanBytes) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxPlanBytes = Math.max(1, maxPlanBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long currentEpoch() {
+        return epoch.get();
+    }
+
+    // キャッシュ対象ならキー、対象外なら null
+    public String keyFor(SqlValidator.ValidationResult validation) {
+        if (!enabled || !validation.isSelect()
+                || !SqlValidator.isSampleTablesOnly(validation.getTables())) {
+            return null;
+        }
+        List<SqlToken> tokens = SqlLexer.tokenize(validation.getProcessedSql());
+        if (isNonDeterministic(tokens)) {
+            return null;
+        }
+        return SqlFingerprint.resultKey(validation.getProcessedSql(), tokens);
+    }
+
+    // 時刻・乱数・セッション情報を返す関数、ユーザー変数・システム変数を含むか
+    static boolean isNonDeterministic(List<SqlToken> tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            SqlToken token = tokens.get(i);
+            if (token.getType() == SqlToken.Type.VARIABLE) {
+                return true;
+            }
+            if (token.getType() != SqlToken.Type.WORD) {
+                continue;
+            }
+            String word = token.identifier();
+            if (NON_DETERMINISTIC_KEYWORDS.contains(word)) {
+                return true;
+            }
+            if (NON_DETERMINISTIC_FUNCTIONS.contains(word)
+                    && i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("(")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 実行計画のキャッシュキー（結果キャッシュの有効/無効に関係なく、サンプルテーブルの SELECT のみ）
+    // format: EXPLAIN の出力形式（同じ SQL でも形式ごとに別エントリ）
+    public String planKeyFor(SqlValidator.ValidationResult validation, String format) {
+        if (!validation.isSelect() || !SqlValidator.isSampleTablesOnly(validation.getTables())) {
+            return null;
+        }
+        return format + ":" + normalize(validation.getProcessedSql());
+    }
+
+    public synchronized QueryExecutionService.QueryResult getResult(String key) {
+        ResultEntry entry = results.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.result;
+    }
+
+    // epochAtStart: 実行開始時の世代（実行中に再生成が走った結果は保存しない）
+    public synchronized void putResult(String key, QueryExecutionService.QueryResult result, long epochAtStart) {
+        if (epochAtStart != epoch.get()) {
+            return;
+        }
+
+        long bytes = estimateBytes(key, result);
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        ResultEntry previous = results.put(key, new ResultEntry(result, bytes));
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+        totalBytes += bytes;
+
+        // 古いものから削除
+        Iterator<ResultEntry> iterator = results.values().iterator();
+        while ((results.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            ResultEntry eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.bytes;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public synchronized ExplainPlan getExplain(String key) {
+        PlanEntry entry = explains.get(key);
+        return entry != null ? entry.plan : null;
+    }
+
+    public synchronized void putExplain(String key, ExplainPlan plan, long epochAtStart) {
+        if (epochAtStart != epoch.get()) {
+            return;
+        }
+
+        long bytes = estimateBytes(key, plan);
+        if (bytes > maxPlanBytes) {
+            return;
+        }
+
+        PlanEntry previous = explains.put(key, new PlanEntry(plan, bytes));
+        if (previous != null) {
+            totalPlanBytes -= previous.bytes;
+        }
+        totalPlanBytes += bytes;
+
+        Iterator<PlanEntry> iterator = explains.values().iterator();
+        while ((explains.size() > maxEntries || totalPlanBytes > maxPlanBytes) && iterator.hasNext()) {
+            PlanEntry eldest = iterator.next();
+            iterator.remove();
+            totalPlanBytes -= eldest.bytes;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        epoch.incrementAndGet();
+        results.clear();
+        explains.clear();
+        totalBytes = 0;
+        totalPlanBytes = 0;
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(enabled, results.size(), explains.size(), totalBytes, maxBytes,
+                totalPlanBytes, maxPlanBytes, hitCount.get(), missCount.get(), evictionCount.get(), epoch.get());
+    }
+
+    private long estimateBytes(String key, QueryExecutionService.QueryResult result) {
+        long bytes = 128 + 2L * key.length();
+        if (result.getData() != null) {
+            bytes += result.getData().estimatedBytes();
+        }
+        if (result.getExplainResult() != null) {
+            bytes += 40 + result.getExplainResult().length();
+        }
+        if (result.getOriginalSql() != null) {
+            bytes += 40 + result.getOriginalSql().length();
+        }
+        return bytes;
+    }
+
+    // 生の JSON / 従来形式の行 / ノードの木の合計（おおよそ）
+    private long estimateBytes(String key, ExplainPlan plan) {
+        long bytes = 128 + 2L * key.length();
+        if (plan.getRawJson() != null) {
+            bytes += 40 + plan.getRawJson().length();
+        }
+        if (plan.getTraditionalRows() != null) {
+            for (Map<String, Object> row : plan.getTraditionalRows()) {
+                bytes += 64;
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    bytes += 48 + column.getKey().length()
+                            + (column.getValue() != null ? String.valueOf(column.getValue()).length() : 0);
+                }
+            }
+        }
+        return bytes + estimateBytes(plan.getRoot());
+    }
+
+    private static long estimateBytes(PlanNode node) {
+        if (node == null) {
+            return 0;
+        }
+        long bytes = 160 + length(node.getOperation()) + length(node.getTable()) + length(node.getAccessType())
+                + length(node.getKey()) + length(node.getKeyLength());
+        if (node.getPossibleKeys() != null) {
+            for (String key : node.getPossibleKeys()) {
+                bytes += length(key);
+            }
+        }
+        if (node.getExtra() != null) {
+            for (String extra : node.getExtra()) {
+                bytes += length(extra);
+            }
+        }
+        for (PlanNode child : node.getChildren()) {
+            bytes += estimateBytes(child);
+        }
+        return bytes;
+    }
+
+    // 文字列1つ分（オブジェクトのヘッダ込み）
+    private static int length(String value) {
+        return value != null ? 40 + value.length() : 0;
+    }
+
+    // SqlLexer でトークン化して空白・コメントを揃え、キーワード・識別子を小文字化
+    static String normalize(String sql) {
+        return SqlFingerprint.canonical(sql);
+    }
+
+    private static final class PlanEntry {
+        private final ExplainPlan plan;
+        private final long bytes;
+
+        PlanEntry(ExplainPlan plan, long bytes) {
+            this.plan = plan;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class ResultEntry {
+        private final QueryExecutionService.QueryResult result;
+        private final long bytes;
+
+        ResultEntry(QueryExecutionService.QueryResult result, long bytes) {
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+
+    public static class CacheStats {
+        private final boolean enabled;
+        private final int resultEntries;
+        private final int explainEntries;
+        private final long bytes;
+        private final long maxBytes;
+        private final long planBytes;
+        private final long maxPlanBytes;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long epoch;
+
+        public CacheStats(boolean enabled, int resultEntries, int explainEntries, long bytes, long maxBytes,
+                          long planBytes, long maxPlanBytes, long hits, long misses, long evictions, long epoch) {
+            this.enabled = enabled;
+            this.resultEntries = resultEntries;
+            this.explainEntries = explainEntries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.planBytes = planBytes;
+            this.maxPlanBytes = maxPlanBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.epoch = epoch;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getResultEntries() { return resultEntries; }
+        public int getExplainEntries() { return explainEntries; }
+        public long getBytes() { return bytes; }
+        public long getMaxBytes() { return maxBytes; }
+        public long getPlanBytes() { return planBytes; }
+        public long getMaxPlanBytes() { return maxPlanBytes; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getEpoch() { return epoch; }
+    }
+}
@@ -0,0 +1,309 @@
+package service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ユーザークエリ用の実行スケジューラ
+// - ワーカー数は固定（Hikari プールを超える数のスレッドが接続待ちで詰まらないようにする）
+// - ユーザーごとの同時実行数を制限
+// - キューはユーザー単位のラウンドロビンで取り出す（1人が大量投入しても他のユーザーが待たされない）
+// - キュー長が上限を超えたら QueryRejectedException（429）。1ユーザーが待ちを占有しないようユーザーごとの待ち件数にも上限
+// - 待ち中にキャンセル（タイムアウト含む）されたタスクはその場でキューから外す
+@Component
+public class QueryScheduler {
+
+    private final int workerCount;
+    private final int perUserLimit;
+    private final int maxQueued;
+    private final int perUserMaxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // ユーザーごとの待ちキュー
+    private final Map<Integer, ArrayDeque<Task<?>>> queues = new HashMap<>();
+    // 取り出し可能なユーザー（待ちがあり、同時実行数に空きがある）
+    private final ArrayDeque<Integer> readyUsers = new ArrayDeque<>();
+    private final Map<Integer, Integer> activeByUser = new HashMap<>();
+    private int queued = 0;
+    private int active = 0;
+    private boolean shutdown = false;
+
+    // メトリクス
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    public QueryScheduler(
+            @Value("${query.executor.workers:8}") int workerCount,
+            @Value("${query.executor.per-user-limit:2}") int perUserLimit,
+            @Value("${query.executor.max-queued:200}") int maxQueued,
+            @Value("${query.executor.per-user-max-queued:20}") int perUserMaxQueued) {
+        this.workerCount = Math.max(1, workerCount);
+        this.perUserLimit = Math.max(1, perUserLimit);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.perUserMaxQueued = Math.max(0, perUserMaxQueued);
+
+        for (int i = 0; i < this.workerCount; i++) {
+            Thread worker = new Thread(this::workerLoop, "query-worker-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public <T> Future<T> submit(Integer userId, Callable<T> callable) {
+        Task<T> task = new Task<>(userId, callable);
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new QueryRejectedException("Query executor is shutting down");
+            }
+            if (queued >= maxQueued) {
+                rejectedCount.incrementAndGet();
+                throw new QueryRejectedException("Too many queries are waiting. Please retry later.");
+            }
+            ArrayDeque<Task<?>> waiting = queues.get(userId);
+            if (waiting != null && waiting.size() >= perUserMaxQueued) {
+                rejectedCount.incrementAndGet();
+                throw new QueryRejectedException("Too many of your queries are waiting. Please retry later.");
+            }
+
+            ArrayDeque<Task<?>> queue = queues.computeIfAbsent(userId, k -> new ArrayDeque<>());
+            queue.addLast(task);
+            queued++;
+            submittedCount.incrementAndGet();
+
+            if (queue.size() == 1 && activeByUser.getOrDefault(userId, 0) < perUserLimit) {
+                readyUsers.addLast(userId);
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return task;
+    }
+
+    private void workerLoop() {
+        while (true) {
+            Task<?> task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+
+            long waitNanos = System.nanoTime() - task.enqueuedAt;
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+            try {
+                task.run();
+            } finally {
+                // キャンセル時の割り込みフラグを次のタスクに持ち越さない
+                Thread.interrupted();
+                finished(task.userId);
+                completedCount.incrementAndGet();
+            }
+        }
+    }
+
+    private Task<?> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (readyUsers.isEmpty()) {
+                if (shutdown) {
+                    return null;
+                }
+                available.await();
+            }
+
+            Integer userId = readyUsers.pollFirst();
+            ArrayDeque<Task<?>> queue = queues.get(userId);
+            Task<?> task = queue.pollFirst();
+            queued--;
+            active++;
+            int userActive = activeByUser.merge(userId, 1, Integer::sum);
+
+            if (queue.isEmpty()) {
+                queues.remove(userId);
+            } else if (userActive < perUserLimit) {
+                // 次の順番は最後尾（ラウンドロビン）。空いている他のワーカーも起こす
+                readyUsers.addLast(userId);
+                available.signal();
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 待ち中のタスクをキューから外す（実行中・取り出し済みなら何もしない）
+    private void dequeue(Task<?> task) {
+        lock.lock();
+        try {
+            ArrayDeque<Task<?>> queue = queues.get(task.userId);
+            if (queue == null || !queue.remove(task)) {
+                return;
+            }
+            queued--;
+            if (queue.isEmpty()) {
+                queues.remove(task.userId);
+                readyUsers.remove(task.userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finished(Integer userId) {
+        lock.lock();
+        try {
+            active--;
+            int userActive = activeByUser.merge(userId, -1, Integer::sum);
+            if (userActive <= 0) {
+                activeByUser.remove(userId);
+            }
+
+            // 同時実行上限で止まっていたユーザーを再開
+            ArrayDeque<Task<?>> queue = queues.get(userId);
+            if (queue != null && !queue.isEmpty()
+                    && userActive < perUserLimit && !readyUsers.contains(userId)) {
+                readyUsers.addLast(userId);
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SchedulerStats getStats() {
+        lock.lock();
+        try {
+            long completed = completedCount.get();
+            double avgWaitMs = completed > 0
+                    ? totalWaitNanos.get() / (double) completed / 1_000_000.0
+                    : 0.0;
+            return new SchedulerStats(
+                    workerCount,
+                    perUserLimit,
+                    maxQueued,
+                    perUserMaxQueued,
+                    queued,
+                    active,
+                    submittedCount.get(),
+                    rejectedCount.get(),
+                    completed,
+                    avgWaitMs,
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Task<?>> waiting = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (ArrayDeque<Task<?>> queue : queues.values()) {
+                waiting.addAll(queue);
+            }
+            queues.clear();
+            readyUsers.clear();
+            queued = 0;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Task<?> task : waiting) {
+            task.cancel(false);
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private final class Task<T> extends FutureTask<T> {
+        private final Integer userId;
+        private final long enqueuedAt = System.nanoTime();
+
+        Task(Integer userId, Callable<T> callable) {
+            super(callable);
+            this.userId = userId;
+        }
+
+        // 待ち中にキャンセルされたら枠をすぐに返す（取り出されるまで max-queued を占有しない）
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                dequeue(this);
+            }
+            return cancelled;
+        }
+    }
+
+    public static class SchedulerStats {
+        private final int workers;
+        private final int perUserLimit;
+        private final int maxQueued;
+        private final int perUserMaxQueued;
+        private final int queued;
+        private final int active;
+        private final long submitted;
+        private final long rejected;
+        private final long completed;
+        private final double avgWaitMs;
+        private final long maxWaitMs;
+
+        public SchedulerStats(int workers, int perUserLimit, int maxQueued, int perUserMaxQueued, int queued, int active,
+                              long submitted, long rejected, long completed,
+                              double avgWaitMs, long maxWaitMs) {
+            this.workers = workers;
+            this.perUserLimit = perUserLimit;
+            this.maxQueued = maxQueued;
+            this.perUserMaxQueued = perUserMaxQueued;
+            this.queued = queued;
+            this.active = active;
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public int getWorkers() { return workers; }
+        public int getPerUserLimit() { return perUserLimit; }
+        public int getMaxQueued() { return maxQueued; }
+        public int getPerUserMaxQueued() { return perUserMaxQueued; }
+        public int getQueued() { return queued; }
+        public int getActive() { return active; }
+        public long getSubmitted() { return submitted; }
+        public long getRejected() { return rejected; }
+        public long getCompleted() { return completed; }
+        public double getAvgWaitMs() { return avgWaitMs; }
+        public long getMaxWaitMs() { return maxWaitMs; }
+    }
+}
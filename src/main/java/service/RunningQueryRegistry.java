@@ -0,0 +1,110 @@
+package service;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+// 実行中クエリの管理（(userId, queryId) → Statement / Future）
+// タイムアウト時やユーザーからのキャンセル要求時に、MySQL 側のクエリも止めて接続をすぐにプールへ返す
+// queryId はクライアントが指定できるのでユーザーごとの名前空間にする（他人の id の有無は見えず、塞ぐこともできない）
+@Component
+public class RunningQueryRegistry {
+
+    private final Map<String, RunningQuery> runningQueries = new ConcurrentHashMap<>();
+
+    public RunningQuery register(String queryId, Integer userId) {
+        String id = queryId != null && !queryId.isBlank() ? queryId : UUID.randomUUID().toString();
+        RunningQuery running = new RunningQuery(id, userId);
+        if (runningQueries.putIfAbsent(keyOf(userId, id), running) != null) {
+            throw new IllegalArgumentException("Query id is already in use: " + id);
+        }
+        return running;
+    }
+
+    public void unregister(RunningQuery running) {
+        runningQueries.remove(keyOf(running.getUserId(), running.getQueryId()), running);
+    }
+
+    // 自分のクエリのみキャンセル可能
+    public boolean cancel(String queryId, Integer userId) {
+        RunningQuery running = runningQueries.get(keyOf(userId, queryId));
+        if (running == null) {
+            return false;
+        }
+        running.cancel();
+        return true;
+    }
+
+    private static String keyOf(Integer userId, String queryId) {
+        return userId + ":" + queryId;
+    }
+
+    public int getRunningCount() {
+        return runningQueries.size();
+    }
+
+    public static class RunningQuery {
+        private final String queryId;
+        private final Integer userId;
+        private volatile Statement statement;
+        private volatile Future<?> future;
+        private volatile boolean cancelled = false;
+        private volatile long startedAt = 0;
+
+        private RunningQuery(String queryId, Integer userId) {
+            this.queryId = queryId;
+            this.userId = userId;
+        }
+
+        // 実行する Statement を登録（キャンセル済みなら即座に止める）
+        public void attach(Statement statement) {
+            this.statement = statement;
+            if (cancelled) {
+                cancelStatement(statement);
+            }
+        }
+
+        // ワーカーで実行が始まった時刻（System.nanoTime、未開始なら 0）
+        public void markStarted() {
+            this.startedAt = System.nanoTime();
+        }
+
+        public void setFuture(Future<?> future) {
+            this.future = future;
+            if (cancelled) {
+                future.cancel(true);
+            }
+        }
+
+        // Statement.cancel() は Connector/J が別接続から KILL QUERY <connection id> を発行する
+        public void cancel() {
+            cancelled = true;
+            Statement current = statement;
+            if (current != null) {
+                cancelStatement(current);
+            }
+            Future<?> currentFuture = future;
+            if (currentFuture != null) {
+                currentFuture.cancel(true);
+            }
+        }
+
+        private void cancelStatement(Statement statement) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Failed to cancel query " + queryId + ": " + e.getMessage());
+            }
+        }
+
+        public String getQueryId() { return queryId; }
+        public Integer getUserId() { return userId; }
+        public boolean isCancelled() { return cancelled; }
+        public long getStartedAt() { return startedAt; }
+    }
+}
@@ -2,31 +2,37 @@ package service;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import service.sql.SqlFingerprint;
+import service.sql.SqlLexer;
+import service.sql.SqlToken;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+// SQL の検証と LIMIT 付与
+// SqlLexer のトークン列を1回走査して判定する（文字列リテラル・コメント・バッククォート内の語には反応しない）
 @Service
 public class SqlValidator {
 
     private final int maxRows;
 
-    // 禁止コマンドパターン（大文字小文字無視）
-    private static final List<Pattern> FORBIDDEN_PATTERNS = List.of(
-            Pattern.compile("\\bDROP\\s+DATABASE\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bDROP\\s+SCHEMA\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bTRUNCATE\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bGRANT\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bREVOKE\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bCREATE\\s+USER\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bDROP\\s+USER\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bALTER\\s+USER\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bSHUTDOWN\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bLOAD\\s+DATA\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bINTO\\s+OUTFILE\\b", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("\\bINTO\\s+DUMPFILE\\b", Pattern.CASE_INSENSITIVE)
+    // 禁止コマンド（連続する語の並び、大文字小文字無視）
+    private static final List<List<String>> FORBIDDEN_SEQUENCES = List.of(
+            List.of("drop", "database"),
+            List.of("drop", "schema"),
+            List.of("truncate"),
+            List.of("grant"),
+            List.of("revoke"),
+            List.of("create", "user"),
+            List.of("drop", "user"),
+            List.of("alter", "user"),
+            List.of("shutdown"),
+            List.of("load", "data"),
+            List.of("into", "outfile"),
+            List.of("into", "dumpfile")
     );
 
     // 一般ユーザーに許可されるテーブル（sample_* テーブルのみ）
@@ -37,24 +43,21 @@ public class SqlValidator {
             "sample_order_items"
     );
 
-    // 複文チェック用パターン
-    private static final Pattern MULTI_STATEMENT_PATTERN = Pattern.compile(";\\s*\\S");
-
-    // SELECTステートメント判定
-    private static final Pattern SELECT_PATTERN = Pattern.compile("^\\s*SELECT\\b", Pattern.CASE_INSENSITIVE);
-
-    // EXPLAINステートメント判定
-    private static final Pattern EXPLAIN_PATTERN = Pattern.compile("^\\s*EXPLAIN\\b", Pattern.CASE_INSENSITIVE);
-
-    // LIMITチェック
-    private static final Pattern LIMIT_PATTERN = Pattern.compile("\\bLIMIT\\s+\\d+", Pattern.CASE_INSENSITIVE);
+    // FROM 句の終わりを表す語
+    private static final Set<String> FROM_CLAUSE_END = Set.of(
+            "where", "group", "having", "order", "limit", "union", "except", "intersect",
+            "window", "into", "for", "lock", "procedure"
+    );
 
-    // テーブル名抽出（FROM句、JOIN句から）
-    private static final Pattern TABLE_PATTERN = Pattern.compile(
-            "(?:\\bFROM\\b|\\bJOIN\\b)\\s+([`\\w]+)",
-            Pattern.CASE_INSENSITIVE
+    // テーブル名の直後に来ても別名ではない語
+    private static final Set<String> NOT_ALIAS = Set.of(
+            "where", "group", "having", "order", "limit", "union", "except", "intersect", "window",
+            "into", "for", "lock", "procedure", "join", "inner", "cross", "left", "right", "natural",
+            "straight_join", "on", "using", "use", "force", "ignore", "partition", "as"
     );
 
+    private static final String MISSING_TABLE = "Could not determine the tables referenced in the FROM clause";
+
     public SqlValidator(@Value("${query.max.rows:1000}") int maxRows) {
         this.maxRows = maxRows;
     }
@@ -64,37 +67,80 @@ public class SqlValidator {
             return ValidationResult.error("SQL cannot be empty");
         }
 
-        String trimmedSql = sql.trim();
+        List<SqlToken> tokens = SqlLexer.tokenize(sql);
+        SqlFingerprint fingerprint = SqlFingerprint.of(tokens);
+        return validate(sql, tokens, isAdmin).withFingerprint(fingerprint);
+    }
+
+    private ValidationResult validate(String sql, List<SqlToken> allTokens, boolean isAdmin) {
+        // 実行コメント /*! ... */ の中身は MySQL では通常の SQL として実行されるので、
+        // 境界のトークンを除いた列で判定する（INTO/*!*/OUTFILE や (/*!SELECT ...*/) もそのまま並びとして見る）
+        List<SqlToken> tokens = withoutExecutableComments(allTokens);
 
-        // 複文チェック
-        if (MULTI_STATEMENT_PATTERN.matcher(trimmedSql).find()) {
-            return ValidationResult.error("Multiple statements are not allowed");
+        // 末尾のセミコロンを除いた範囲
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).isSymbol(";")) {
+            end--;
+        }
+        if (end == 0) {
+            return ValidationResult.error("SQL cannot be empty");
         }
 
-        // 禁止コマンドチェック
-        for (Pattern pattern : FORBIDDEN_PATTERNS) {
-            if (pattern.matcher(trimmedSql).find()) {
+        // 字句・複文・禁止コマンドのチェック
+        int depth = 0;
+        for (int i = 0; i < end; i++) {
+            SqlToken token = tokens.get(i);
+            if (!token.isClosed()) {
+                return ValidationResult.error("Unterminated quoted string or identifier");
+            }
+            if (token.isSymbol(";")) {
+                return ValidationResult.error("Multiple statements are not allowed");
+            }
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")") && --depth < 0) {
+                return ValidationResult.error("Unbalanced parentheses");
+            }
+            if (startsForbiddenSequence(tokens, i, end)) {
                 return ValidationResult.error("Forbidden SQL command detected");
             }
         }
+        if (depth != 0) {
+            return ValidationResult.error("Unbalanced parentheses");
+        }
 
         // EXPLAIN の場合は内部のSQLを検証
-        if (EXPLAIN_PATTERN.matcher(trimmedSql).find()) {
-            String innerSql = trimmedSql.replaceFirst("(?i)^\\s*EXPLAIN\\s+", "");
-            return validate(innerSql, isAdmin);
+        int start = 0;
+        if (tokens.get(0).isWord("explain")) {
+            if (end == 1) {
+                return ValidationResult.error("SQL cannot be empty");
+            }
+            start = 1;
+        }
+
+        // 先頭の ( を読み飛ばして文の種類を判定
+        int first = start;
+        while (first < end && tokens.get(first).isSymbol("(")) {
+            first++;
+        }
+        boolean select = first < end && tokens.get(first).isWord("select");
+
+        // 参照テーブル抽出
+        Set<String> tables = new LinkedHashSet<>();
+        String tableError = collectTables(tokens, start, end, tables);
+        if (tableError != null && !isAdmin) {
+            return ValidationResult.error(tableError);
         }
 
         // 一般ユーザーの場合
         if (!isAdmin) {
             // SELECTのみ許可
-            if (!SELECT_PATTERN.matcher(trimmedSql).find()) {
+            if (!select) {
                 return ValidationResult.error("Only SELECT statements are allowed for non-admin users");
             }
 
             // sample_* テーブルのみ許可
-            Matcher tableMatcher = TABLE_PATTERN.matcher(trimmedSql);
-            while (tableMatcher.find()) {
-                String tableName = tableMatcher.group(1).replace("`", "").toLowerCase();
+            for (String tableName : tables) {
                 if (!ALLOWED_USER_TABLES.contains(tableName)) {
                     return ValidationResult.error(
                             "Access denied to table: " + tableName + ". Only sample_* tables are allowed."
@@ -103,46 +149,366 @@ public class SqlValidator {
             }
         }
 
-        // LIMIT強制付与
-        String processedSql = ensureLimit(trimmedSql);
+        // 文の範囲（EXPLAIN と末尾のセミコロン・コメントを除く。前後の実行コメントの境界は含める）
+        int statementStart = tokens.get(start).getStart();
+        int statementEnd = tokens.get(end - 1).getEnd();
+        int previousEnd = start > 0 ? tokens.get(start - 1).getEnd() : 0;
+        for (SqlToken token : allTokens) {
+            if (token.getType() != SqlToken.Type.EXECUTABLE_COMMENT) {
+                continue;
+            }
+            if (token.getStart() >= previousEnd && token.getEnd() <= statementStart && !token.getText().equals("*/")) {
+                statementStart = Math.min(statementStart, token.getStart());
+            } else if (token.getStart() >= statementEnd && token.getText().equals("*/")) {
+                statementEnd = token.getEnd();
+            }
+        }
+        String statement = sql.substring(statementStart, statementEnd);
+
+        // LIMIT強制付与（SELECT のみ）
+        String processedSql = select
+                ? ensureLimit(statement, tokens, start, end, statementStart)
+                : statement;
 
-        return ValidationResult.success(processedSql);
+        // ロック付き読み取り（FOR UPDATE 等）はプライマリで実行する必要がある
+        boolean readOnly = select && !hasLockingClause(tokens, start, end);
+
+        return ValidationResult.success(processedSql, tables, select, readOnly);
+    }
+
+    // サンプルデータ（DataGeneratorService でのみ更新される）だけを参照しているか
+    public static boolean isSampleTablesOnly(Set<String> tables) {
+        return !tables.isEmpty() && ALLOWED_USER_TABLES.containsAll(tables);
     }
 
-    private String ensureLimit(String sql) {
-        // すでにLIMITがある場合
-        Matcher limitMatcher = LIMIT_PATTERN.matcher(sql);
-        if (limitMatcher.find()) {
-            return sql;
+    private static List<SqlToken> withoutExecutableComments(List<SqlToken> tokens) {
+        List<SqlToken> code = new ArrayList<>(tokens.size());
+        for (SqlToken token : tokens) {
+            if (token.getType() != SqlToken.Type.EXECUTABLE_COMMENT) {
+                code.add(token);
+            }
         }
+        return code;
+    }
 
-        // SELECTクエリの場合のみLIMIT追加
-        if (SELECT_PATTERN.matcher(sql).find()) {
-            // 末尾のセミコロンを除去してLIMIT追加
-            String cleanSql = sql.replaceAll(";\\s*$", "");
-            return cleanSql + " LIMIT " + maxRows;
+    private static boolean startsForbiddenSequence(List<SqlToken> tokens, int index, int end) {
+        for (List<String> sequence : FORBIDDEN_SEQUENCES) {
+            if (index + sequence.size() > end) {
+                continue;
+            }
+            boolean matched = true;
+            for (int k = 0; k < sequence.size(); k++) {
+                if (!tokens.get(index + k).isWord(sequence.get(k))) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    // FROM / JOIN 句（カンマ区切り・括弧でくくった並び・{OJ ...} を含む）と TABLE t から参照テーブルを集める
+    // テーブルを特定できない FROM 句と、スキーマ修飾された名前は一般ユーザーには許可しないのでエラーメッセージを返す
+    // （管理者は schema.table で記録）
+    private static String collectTables(List<SqlToken> tokens, int start, int end, Set<String> tables) {
+        String error = null;
+        // 括弧の階層ごとの状態（0 はトップレベル）
+        // inFrom: FROM 句の中、functionCall: 関数の引数（EXTRACT(YEAR FROM d) の FROM はテーブルを取らない）
+        boolean[] inFrom = new boolean[tokens.size() + 1];
+        boolean[] functionCall = new boolean[tokens.size() + 1];
+        int level = 0;
+        // 次のトークンがテーブル・派生テーブル・テーブル関数のどれかでなければならない位置か
+        boolean expectTable = false;
 
-        return sql;
+        for (int i = start; i < end; i++) {
+            SqlToken token = tokens.get(i);
+
+            if (token.isSymbol("(")) {
+                boolean query = startsQuery(tokens, i + 1, end);
+                level++;
+                // ( の直後が SELECT / WITH なら派生テーブル・サブクエリ（中の FROM は別に数える）
+                // テーブルの位置でそれ以外なら (a, b) / (a JOIN b ON ...) のような括弧でくくったテーブルの並び
+                inFrom[level] = expectTable && !query;
+                functionCall[level] = !expectTable && !query
+                        && i > start && tokens.get(i - 1).getType() == SqlToken.Type.WORD;
+                expectTable = inFrom[level];
+                continue;
+            }
+            if (token.isSymbol(")")) {
+                if (expectTable) {
+                    error = firstError(error, MISSING_TABLE);
+                }
+                expectTable = false;
+                level = Math.max(0, level - 1);
+                continue;
+            }
+
+            // TABLE t（TABLE 文、UNION TABLE t、IN (TABLE t) など）
+            if (token.isWord("table")) {
+                if (i + 1 < end && isName(tokens.get(i + 1))) {
+                    int last = nameEnd(tokens, i + 1, end);
+                    error = addTable(tokens, i + 1, last, tables, error);
+                    i = last;
+                }
+                expectTable = false;
+                continue;
+            }
+
+            if (token.isWord("from") && !functionCall[level]) {
+                if (expectTable) {
+                    error = firstError(error, MISSING_TABLE);
+                }
+                inFrom[level] = true;
+                expectTable = true;
+                continue;
+            }
+            if (!inFrom[level]) {
+                continue;
+            }
+
+            // STRAIGHT_JOIN は SELECT の修飾子にもなるので FROM 句の中だけ結合とみなす
+            if (token.isWord("join") || token.isWord("straight_join") || token.isSymbol(",")) {
+                if (expectTable) {
+                    error = firstError(error, MISSING_TABLE);
+                }
+                expectTable = true;
+                continue;
+            }
+            if (token.getType() == SqlToken.Type.WORD && FROM_CLAUSE_END.contains(token.identifier())) {
+                if (expectTable) {
+                    error = firstError(error, MISSING_TABLE);
+                }
+                inFrom[level] = false;
+                expectTable = false;
+                continue;
+            }
+
+            if (!expectTable) {
+                // インデックスヒント USE / FORCE / IGNORE INDEX [FOR JOIN | ORDER BY | GROUP BY] (...)
+                // （中の FOR / ORDER / GROUP で FROM 句が終わったとみなさないように読み飛ばす）
+                if ((token.isWord("use") || token.isWord("force") || token.isWord("ignore"))
+                        && i + 1 < end && (tokens.get(i + 1).isWord("index") || tokens.get(i + 1).isWord("key"))) {
+                    i = skipIndexHint(tokens, i + 2, end);
+                }
+                continue;
+            }
+            if (token.isWord("lateral")) {
+                continue;
+            }
+            // ODBC の外部結合エスケープ {OJ a LEFT OUTER JOIN b ON ...}
+            if (token.isSymbol("{") && i + 1 < end && tokens.get(i + 1).isWord("oj")) {
+                i++;
+                continue;
+            }
+            expectTable = false;
+            if (!isName(token)) {
+                error = firstError(error, MISSING_TABLE);
+                continue;
+            }
+            // JSON_TABLE(...) などのテーブル関数
+            if (i + 1 < end && tokens.get(i + 1).isSymbol("(")) {
+                continue;
+            }
+            if (token.isWord("dual")) {
+                continue;
+            }
+            int last = nameEnd(tokens, i, end);
+            error = addTable(tokens, i, last, tables, error);
+            i = last;
+        }
+        if (expectTable) {
+            error = firstError(error, MISSING_TABLE);
+        }
+        return error;
+    }
+
+    // ( の直後が問い合わせ（派生テーブル・サブクエリ）か
+    private static boolean startsQuery(List<SqlToken> tokens, int index, int end) {
+        if (index >= end) {
+            return false;
+        }
+        SqlToken token = tokens.get(index);
+        return token.isWord("select") || token.isWord("with") || token.isWord("values") || token.isWord("table");
+    }
+
+    private static boolean isName(SqlToken token) {
+        return token.getType() == SqlToken.Type.WORD || token.getType() == SqlToken.Type.QUOTED_IDENTIFIER;
+    }
+
+    // name / schema.name の最後のトークンの位置
+    private static int nameEnd(List<SqlToken> tokens, int index, int end) {
+        if (index + 2 < end && tokens.get(index + 1).isSymbol(".") && isName(tokens.get(index + 2))) {
+            return index + 2;
+        }
+        return index;
+    }
+
+    private static String addTable(List<SqlToken> tokens, int first, int last, Set<String> tables, String error) {
+        String name = tokens.get(first).identifier();
+        if (last > first) {
+            name = name + "." + tokens.get(last).identifier();
+            error = firstError(error, "Schema-qualified table names are not allowed: " + name);
+        }
+        tables.add(name);
+        return error;
+    }
+
+    // ヒントの ( ... ) の閉じ括弧の位置（括弧がなければ index - 1）
+    private static int skipIndexHint(List<SqlToken> tokens, int index, int end) {
+        int i = index;
+        while (i < end && !tokens.get(i).isSymbol("(")) {
+            if (!tokens.get(i).isWord("for") && !tokens.get(i).isWord("join")
+                    && !tokens.get(i).isWord("order") && !tokens.get(i).isWord("group")
+                    && !tokens.get(i).isWord("by")) {
+                return index - 1;
+            }
+            i++;
+        }
+        int depth = 0;
+        for (; i < end; i++) {
+            if (tokens.get(i).isSymbol("(")) {
+                depth++;
+            } else if (tokens.get(i).isSymbol(")") && --depth == 0) {
+                return i;
+            }
+        }
+        return end - 1;
+    }
+
+    private static String firstError(String error, String message) {
+        return error != null ? error : message;
+    }
+
+    // トップレベルの FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE
+    private static boolean hasLockingClause(List<SqlToken> tokens, int start, int end) {
+        int depth = 0;
+        for (int i = start; i < end - 1; i++) {
+            SqlToken token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0) {
+                SqlToken next = tokens.get(i + 1);
+                if ((token.isWord("for") && (next.isWord("update") || next.isWord("share")))
+                        || (token.isWord("lock") && next.isWord("in"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // トップレベル（括弧の外）の LIMIT の行数を maxRows 以下にする。なければ末尾（FOR UPDATE 等の前）に付与
+    private String ensureLimit(String statement, List<SqlToken> tokens, int start, int end, int offset) {
+        int depth = 0;
+        int insertAt = -1;
+        boolean afterFrom = false;
+
+        for (int i = start; i < end; i++) {
+            SqlToken token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+                continue;
+            }
+            if (token.isSymbol(")")) {
+                depth--;
+                continue;
+            }
+            if (depth != 0) {
+                continue;
+            }
+            if (token.isWord("from")) {
+                afterFrom = true;
+            } else if (token.isWord("limit")) {
+                return capLimit(statement, tokens, i, end, offset);
+            } else if (afterFrom && insertAt < 0
+                    && ((token.isWord("for") && i + 1 < end
+                    && (tokens.get(i + 1).isWord("update") || tokens.get(i + 1).isWord("share")))
+                    || (token.isWord("lock") && i + 1 < end && tokens.get(i + 1).isWord("in")))) {
+                insertAt = token.getStart() - offset;
+            } else if (token.isWord("union") || token.isWord("except") || token.isWord("intersect")) {
+                insertAt = -1;
+                afterFrom = false;
+            }
+        }
+
+        if (insertAt >= 0) {
+            return statement.substring(0, insertAt) + "LIMIT " + maxRows + " " + statement.substring(insertAt);
+        }
+        return statement + " LIMIT " + maxRows;
+    }
+
+    // LIMIT n / LIMIT off, n / LIMIT n OFFSET off の行数部分を maxRows で頭打ちにする
+    private String capLimit(String statement, List<SqlToken> tokens, int limitIndex, int end, int offset) {
+        int countIndex = limitIndex + 1;
+        if (countIndex + 2 < end && tokens.get(countIndex + 1).isSymbol(",")) {
+            countIndex += 2;
+        }
+        if (countIndex >= end) {
+            return statement;
+        }
+        SqlToken count = tokens.get(countIndex);
+        if (count.getType() != SqlToken.Type.NUMBER || !exceeds(count.getText(), maxRows)) {
+            return statement;
+        }
+        return statement.substring(0, count.getStart() - offset)
+                + maxRows
+                + statement.substring(count.getEnd() - offset);
+    }
+
+    private static boolean exceeds(String number, int max) {
+        try {
+            return Long.parseLong(number) > max;
+        } catch (NumberFormatException e) {
+            // 桁あふれ・16進表記など
+            return true;
+        }
     }
 
     public static class ValidationResult {
         private final boolean valid;
         private final String errorMessage;
         private final String processedSql;
+        private final Set<String> tables;
+        private final boolean select;
+        private final boolean readOnly;
+        private final SqlFingerprint fingerprint;
 
-        private ValidationResult(boolean valid, String errorMessage, String processedSql) {
+        private ValidationResult(boolean valid, String errorMessage, String processedSql,
+                                 Set<String> tables, boolean select, boolean readOnly, SqlFingerprint fingerprint) {
             this.valid = valid;
             this.errorMessage = errorMessage;
             this.processedSql = processedSql;
+            this.tables = tables;
+            this.select = select;
+            this.readOnly = readOnly;
+            this.fingerprint = fingerprint;
         }
 
         public static ValidationResult success(String processedSql) {
-            return new ValidationResult(true, null, processedSql);
+            return new ValidationResult(true, null, processedSql, Collections.emptySet(), false, false, null);
+        }
+
+        public static ValidationResult success(String processedSql, Set<String> tables, boolean select) {
+            return success(processedSql, tables, select, select);
+        }
+
+        public static ValidationResult success(String processedSql, Set<String> tables, boolean select,
+                                               boolean readOnly) {
+            return new ValidationResult(true, null, processedSql, Collections.unmodifiableSet(tables), select,
+                    readOnly, null);
         }
 
         public static ValidationResult error(String message) {
-            return new ValidationResult(false, message, null);
+            return new ValidationResult(false, message, null, Collections.emptySet(), false, false, null);
+        }
+
+        ValidationResult withFingerprint(SqlFingerprint fingerprint) {
+            return new ValidationResult(valid, errorMessage, processedSql, tables, select, readOnly, fingerprint);
         }
 
         public boolean isValid() {
@@ -156,5 +522,23 @@ public class SqlValidator {
         public String getProcessedSql() {
             return processedSql;
         }
+
+        public Set<String> getTables() {
+            return tables;
+        }
+
+        public boolean isSelect() {
+            return select;
+        }
+
+        // レプリカで実行してよいか（ロック句のない SELECT）
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        // 元の SQL のクエリの形（検証と同じトークン列から求める。空の SQL では null）
+        public SqlFingerprint getFingerprint() {
+            return fingerprint;
+        }
     }
 }
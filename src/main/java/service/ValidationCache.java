@@ -0,0 +1,139 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SqlValidator の検証結果キャッシュ（実行・EXPLAIN・比較で同じ SQL を何度も検証しないため）
+// - キーは元の SQL 文字列そのものと管理者かどうか（結果は query.max.rows 以外に依存しない）
+// - 件数上限の LRU。一意な SQL を大量に送られても上限を超えて増えない
+// - max-sql-length を超える SQL はキャッシュしない（1エントリの大きさを抑える）
+@Component
+public class ValidationCache {
+
+    private final SqlValidator sqlValidator;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxSqlLength;
+
+    private final LinkedHashMap<Key, SqlValidator.ValidationResult> entries;
+
+    // メトリクス
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong bypassCount = new AtomicLong();
+
+    public ValidationCache(
+            SqlValidator sqlValidator,
+            @Value("${query.validation.cache.enabled:true}") boolean enabled,
+            @Value("${query.validation.cache.max-entries:2000}") int maxEntries,
+            @Value("${query.validation.cache.max-sql-length:4096}") int maxSqlLength) {
+        this.sqlValidator = sqlValidator;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxSqlLength = Math.max(0, maxSqlLength);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SqlValidator.ValidationResult> eldest) {
+                if (size() > ValidationCache.this.maxEntries) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public SqlValidator.ValidationResult validate(String sql, boolean isAdmin) {
+        if (!enabled || sql == null || sql.length() > maxSqlLength) {
+            bypassCount.incrementAndGet();
+            return sqlValidator.validate(sql, isAdmin);
+        }
+
+        Key key = new Key(sql, isAdmin);
+        SqlValidator.ValidationResult cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            return cached;
+        }
+
+        // 検証はロックの外で行う（同じ SQL が同時に来た場合は両方検証して後勝ち）
+        missCount.incrementAndGet();
+        SqlValidator.ValidationResult result = sqlValidator.validate(sql, isAdmin);
+        synchronized (this) {
+            entries.put(key, result);
+        }
+        return result;
+    }
+
+    public synchronized ValidationCacheStats getStats() {
+        return new ValidationCacheStats(enabled, entries.size(), maxEntries, maxSqlLength,
+                hitCount.get(), missCount.get(), evictionCount.get(), bypassCount.get());
+    }
+
+    private static final class Key {
+        private final String sql;
+        private final boolean admin;
+
+        Key(String sql, boolean admin) {
+            this.sql = sql;
+            this.admin = admin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return admin == other.admin && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + (admin ? 1 : 0);
+        }
+    }
+
+    public static class ValidationCacheStats {
+        private final boolean enabled;
+        private final int entries;
+        private final int maxEntries;
+        private final int maxSqlLength;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long bypassed;
+
+        public ValidationCacheStats(boolean enabled, int entries, int maxEntries, int maxSqlLength,
+                                    long hits, long misses, long evictions, long bypassed) {
+            this.enabled = enabled;
+            this.entries = entries;
+            this.maxEntries = maxEntries;
+            this.maxSqlLength = maxSqlLength;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.bypassed = bypassed;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getEntries() { return entries; }
+        public int getMaxEntries() { return maxEntries; }
+        public int getMaxSqlLength() { return maxSqlLength; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getBypassed() { return bypassed; }
+    }
+}
@@ -0,0 +1,126 @@
+package service.analytics;
+
+import org.HdrHistogram.IntCountsHistogram;
+import service.sql.SqlFingerprint;
+
+// 1つのクエリ形状（ユーザー別または全体）の時間別集計
+// 直近 windowHours 時間分の時間バケットをリングで持ち、古い時間のバケットは再利用時に捨てる
+class FingerprintSeries {
+
+    // 記録できる最大実行時間（ms）。これを超える値は上限に丸める
+    static final long MAX_TRACKABLE_MS = 3_600_000L;
+
+    private final SqlFingerprint fingerprint;
+    private final HourBucket[] buckets;
+    private volatile String sampleSql;
+    private volatile long lastSeenMillis;
+
+    FingerprintSeries(SqlFingerprint fingerprint, int windowHours) {
+        this.fingerprint = fingerprint;
+        this.buckets = new HourBucket[windowHours];
+    }
+
+    synchronized void record(long hour, String sql, Integer executionTimeMs, Integer rowsScanned,
+                             Integer rowsReturned, boolean timeout, boolean error, long epochMillis) {
+        int index = (int) Math.floorMod(hour, (long) buckets.length);
+        HourBucket bucket = buckets[index];
+        if (bucket == null || bucket.hour != hour) {
+            if (bucket != null && bucket.hour > hour) {
+                // ウィンドウより古い記録（起動時の読み込みなど）は捨てる
+                return;
+            }
+            bucket = new HourBucket(hour);
+            buckets[index] = bucket;
+        }
+
+        bucket.count++;
+        if (executionTimeMs != null) {
+            bucket.latency.recordValue(Math.min(Math.max(executionTimeMs, 0), MAX_TRACKABLE_MS));
+        }
+        if (rowsScanned != null) {
+            bucket.rowsScanned += rowsScanned;
+        }
+        if (rowsReturned != null) {
+            bucket.rowsReturned += rowsReturned;
+        }
+        if (timeout) {
+            bucket.timeouts++;
+        }
+        if (error) {
+            bucket.errors++;
+        }
+        if (sampleSql == null) {
+            sampleSql = sql;
+        }
+        lastSeenMillis = Math.max(lastSeenMillis, epochMillis);
+    }
+
+    // fromHour 以降のバケットを合算（該当がなければ null）
+    synchronized FingerprintStats aggregate(Integer userId, long fromHour) {
+        IntCountsHistogram latency = null;
+        long count = 0;
+        long timeouts = 0;
+        long errors = 0;
+        long rowsScanned = 0;
+        long rowsReturned = 0;
+
+        for (HourBucket bucket : buckets) {
+            if (bucket == null || bucket.hour < fromHour) {
+                continue;
+            }
+            count += bucket.count;
+            timeouts += bucket.timeouts;
+            errors += bucket.errors;
+            rowsScanned += bucket.rowsScanned;
+            rowsReturned += bucket.rowsReturned;
+            if (latency == null) {
+                latency = bucket.latency.copy();
+            } else {
+                latency.add(bucket.latency);
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        boolean hasLatency = latency != null && latency.getTotalCount() > 0;
+        return new FingerprintStats(
+                fingerprint.getHashHex(),
+                fingerprint.getShape(),
+                sampleSql,
+                userId,
+                count,
+                hasLatency ? latency.getValueAtPercentile(50) : null,
+                hasLatency ? latency.getValueAtPercentile(95) : null,
+                hasLatency ? latency.getValueAtPercentile(99) : null,
+                hasLatency ? latency.getMaxValue() : null,
+                hasLatency ? latency.getMean() : null,
+                rowsScanned,
+                rowsReturned,
+                rowsReturned > 0 ? (double) rowsScanned / rowsReturned : null,
+                (double) timeouts / count,
+                (double) errors / count,
+                lastSeenMillis
+        );
+    }
+
+    long getLastSeenMillis() {
+        return lastSeenMillis;
+    }
+
+    private static final class HourBucket {
+        private final long hour;
+        // 2桁精度。最大値に合わせて自動で配列を広げる（短いクエリしかない形状は小さいまま）
+        private final IntCountsHistogram latency = new IntCountsHistogram(2);
+        private long count;
+        private long timeouts;
+        private long errors;
+        private long rowsScanned;
+        private long rowsReturned;
+
+        HourBucket(long hour) {
+            this.hour = hour;
+            latency.setAutoResize(true);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package service.analytics;
+
+// クエリ形状ごとの集計結果（userId が null なら全ユーザー分）
+public class FingerprintStats {
+    private final String fingerprint;
+    private final String shape;
+    private final String sampleSql;
+    private final Integer userId;
+    private final long count;
+    private final Long p50Ms;
+    private final Long p95Ms;
+    private final Long p99Ms;
+    private final Long maxMs;
+    private final Double meanMs;
+    private final long rowsScanned;
+    private final long rowsReturned;
+    private final Double scanToReturnRatio;
+    private final double timeoutRate;
+    private final double errorRate;
+    private final long lastSeenMillis;
+
+    public FingerprintStats(String fingerprint, String shape, String sampleSql, Integer userId, long count,
+                            Long p50Ms, Long p95Ms, Long p99Ms, Long maxMs, Double meanMs,
+                            long rowsScanned, long rowsReturned, Double scanToReturnRatio,
+                            double timeoutRate, double errorRate, long lastSeenMillis) {
+        this.fingerprint = fingerprint;
+        this.shape = shape;
+        this.sampleSql = sampleSql;
+        this.userId = userId;
+        this.count = count;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+        this.meanMs = meanMs;
+        this.rowsScanned = rowsScanned;
+        this.rowsReturned = rowsReturned;
+        this.scanToReturnRatio = scanToReturnRatio;
+        this.timeoutRate = timeoutRate;
+        this.errorRate = errorRate;
+        this.lastSeenMillis = lastSeenMillis;
+    }
+
+    // 合計実行時間の目安（平均 × 件数）。共有 MySQL への負荷順に並べるときに使う
+    public double getTotalMs() {
+        return meanMs != null ? meanMs * count : 0.0;
+    }
+
+    public String getFingerprint() { return fingerprint; }
+    public String getShape() { return shape; }
+    public String getSampleSql() { return sampleSql; }
+    public Integer getUserId() { return userId; }
+    public long getCount() { return count; }
+    public Long getP50Ms() { return p50Ms; }
+    public Long getP95Ms() { return p95Ms; }
+    public Long getP99Ms() { return p99Ms; }
+    public Long getMaxMs() { return maxMs; }
+    public Double getMeanMs() { return meanMs; }
+    public long getRowsScanned() { return rowsScanned; }
+    public long getRowsReturned() { return rowsReturned; }
+    public Double getScanToReturnRatio() { return scanToReturnRatio; }
+    public double getTimeoutRate() { return timeoutRate; }
+    public double getErrorRate() { return errorRate; }
+    public long getLastSeenMillis() { return lastSeenMillis; }
+}
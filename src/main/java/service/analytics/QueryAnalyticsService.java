@@ -0,0 +1,224 @@
+package service.analytics;
+
+import core.query.QueryHistory;
+import core.query.QueryHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import service.sql.SqlFingerprint;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// クエリ形状（SqlFingerprint）ごとの実行統計
+// - 実行のたびに時間別の HDR ヒストグラムへ加算（生の query_history を GROUP BY しない）
+// - ユーザー別と全体の2系統。直近 window-hours 時間分のみ保持
+// - 形状数はユーザーごと・全体それぞれ上限付きの LRU
+// - 起動時に直近 window-hours 時間分の履歴を読み込んで再構築する
+//   （読み込むのはリクエスト受付前に取得した最大 id まで。受付後の実行は record で加算済みなので二重に数えない）
+@Component
+public class QueryAnalyticsService {
+
+    private final QueryHistoryRepository queryHistoryRepository;
+    private final boolean enabled;
+    private final int windowHours;
+    private final int maxFingerprintsPerUser;
+    private final int maxGlobalFingerprints;
+    private final int warmupMaxRows;
+    // ウォームアップで読み込む履歴の上限 id（-1 なら読み込まない）
+    private final long warmupMaxId;
+
+    private final LinkedHashMap<Long, FingerprintSeries> global = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, LinkedHashMap<Long, FingerprintSeries>> byUser = new HashMap<>();
+
+    // メトリクス
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public QueryAnalyticsService(
+            QueryHistoryRepository queryHistoryRepository,
+            @Value("${query.analytics.enabled:true}") boolean enabled,
+            @Value("${query.analytics.window-hours:24}") int windowHours,
+            @Value("${query.analytics.max-fingerprints-per-user:200}") int maxFingerprintsPerUser,
+            @Value("${query.analytics.max-global-fingerprints:2000}") int maxGlobalFingerprints,
+            @Value("${query.analytics.warmup-max-rows:100000}") int warmupMaxRows) {
+        this.queryHistoryRepository = queryHistoryRepository;
+        this.enabled = enabled;
+        this.windowHours = Math.max(1, windowHours);
+        this.maxFingerprintsPerUser = Math.max(1, maxFingerprintsPerUser);
+        this.maxGlobalFingerprints = Math.max(1, maxGlobalFingerprints);
+        this.warmupMaxRows = Math.max(0, warmupMaxRows);
+        // Bean 生成はWebサーバーの受付開始より前なので、ここで取った id 以下の行は起動前の履歴
+        this.warmupMaxId = enabled && this.warmupMaxRows > 0 ? loadWarmupMaxId() : -1L;
+    }
+
+    private long loadWarmupMaxId() {
+        try {
+            return queryHistoryRepository.findMaxId();
+        } catch (Exception e) {
+            System.err.println("Failed to read query history high-water id: " + e.getMessage());
+            return -1L;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || warmupMaxRows == 0 || warmupMaxId <= 0) {
+            return;
+        }
+        try {
+            LocalDateTime since = LocalDateTime.now().minusHours(windowHours);
+            queryHistoryRepository.forEachSince(since, warmupMaxId, warmupMaxRows, history -> record(history, null));
+        } catch (Exception e) {
+            System.err.println("Failed to load query analytics from history: " + e.getMessage());
+        }
+    }
+
+    // fingerprint が null なら history の SQL から求める
+    public void record(QueryHistory history, SqlFingerprint fingerprint) {
+        if (!enabled || history.getSqlText() == null || history.getSqlText().isBlank()) {
+            return;
+        }
+        SqlFingerprint shape = fingerprint != null ? fingerprint : SqlFingerprint.of(history.getSqlText());
+        long epochMillis = history.getCreatedAt() != null
+                ? history.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        long hour = TimeUnit.MILLISECONDS.toHours(epochMillis);
+        boolean timeout = history.getStatus() == QueryHistory.Status.TIMEOUT;
+        boolean error = history.getStatus() == QueryHistory.Status.ERROR;
+
+        FingerprintSeries userSeries;
+        FingerprintSeries globalSeries;
+        synchronized (this) {
+            LinkedHashMap<Long, FingerprintSeries> userMap =
+                    byUser.computeIfAbsent(history.getUserId(), k -> new LinkedHashMap<>(16, 0.75f, true));
+            userSeries = seriesFor(userMap, shape, maxFingerprintsPerUser);
+            globalSeries = seriesFor(global, shape, maxGlobalFingerprints);
+        }
+
+        userSeries.record(hour, history.getSqlText(), history.getExecutionTimeMs(), history.getRowsScanned(),
+                history.getRowsReturned(), timeout, error, epochMillis);
+        globalSeries.record(hour, history.getSqlText(), history.getExecutionTimeMs(), history.getRowsScanned(),
+                history.getRowsReturned(), timeout, error, epochMillis);
+        recordedCount.incrementAndGet();
+    }
+
+    // userId: null なら全体。hours: 直近何時間分か（window-hours まで）
+    // sort: count / p95 / p99 / total / scan-ratio / timeout-rate
+    public List<FingerprintStats> report(Integer userId, int hours, int limit, String sort) {
+        List<FingerprintSeries> series;
+        synchronized (this) {
+            Map<Long, FingerprintSeries> source = userId == null ? global : byUser.get(userId);
+            series = source != null ? new ArrayList<>(source.values()) : List.of();
+        }
+
+        int span = Math.min(Math.max(hours, 1), windowHours);
+        long fromHour = TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis()) - span + 1;
+
+        List<FingerprintStats> stats = new ArrayList<>();
+        for (FingerprintSeries s : series) {
+            FingerprintStats aggregated = s.aggregate(userId, fromHour);
+            if (aggregated != null) {
+                stats.add(aggregated);
+            }
+        }
+        stats.sort(comparatorFor(sort));
+        return stats.size() > limit ? new ArrayList<>(stats.subList(0, Math.max(limit, 0))) : stats;
+    }
+
+    public synchronized AnalyticsStats getStats() {
+        int userSeries = 0;
+        for (LinkedHashMap<Long, FingerprintSeries> map : byUser.values()) {
+            userSeries += map.size();
+        }
+        return new AnalyticsStats(enabled, windowHours, global.size(), userSeries, byUser.size(),
+                recordedCount.get(), evictionCount.get());
+    }
+
+    private FingerprintSeries seriesFor(LinkedHashMap<Long, FingerprintSeries> map, SqlFingerprint fingerprint,
+                                        int max) {
+        FingerprintSeries series = map.get(fingerprint.getHash());
+        if (series == null) {
+            series = new FingerprintSeries(fingerprint, windowHours);
+            map.put(fingerprint.getHash(), series);
+            Iterator<FingerprintSeries> iterator = map.values().iterator();
+            while (map.size() > max && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+        return series;
+    }
+
+    private static Comparator<FingerprintStats> comparatorFor(String sort) {
+        String key = sort != null ? sort.toLowerCase(Locale.ROOT) : "total";
+        Comparator<FingerprintStats> comparator;
+        switch (key) {
+            case "count":
+                comparator = Comparator.comparingLong(FingerprintStats::getCount);
+                break;
+            case "p95":
+                comparator = Comparator.comparing(FingerprintStats::getP95Ms,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case "p99":
+                comparator = Comparator.comparing(FingerprintStats::getP99Ms,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case "scan-ratio":
+                comparator = Comparator.comparing(FingerprintStats::getScanToReturnRatio,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case "timeout-rate":
+                comparator = Comparator.comparingDouble(FingerprintStats::getTimeoutRate);
+                break;
+            case "total":
+                comparator = Comparator.comparingDouble(FingerprintStats::getTotalMs);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+        return comparator.reversed();
+    }
+
+    public static class AnalyticsStats {
+        private final boolean enabled;
+        private final int windowHours;
+        private final int globalFingerprints;
+        private final int userFingerprints;
+        private final int users;
+        private final long recorded;
+        private final long evictions;
+
+        public AnalyticsStats(boolean enabled, int windowHours, int globalFingerprints, int userFingerprints,
+                              int users, long recorded, long evictions) {
+            this.enabled = enabled;
+            this.windowHours = windowHours;
+            this.globalFingerprints = globalFingerprints;
+            this.userFingerprints = userFingerprints;
+            this.users = users;
+            this.recorded = recorded;
+            this.evictions = evictions;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getWindowHours() { return windowHours; }
+        public int getGlobalFingerprints() { return globalFingerprints; }
+        public int getUserFingerprints() { return userFingerprints; }
+        public int getUsers() { return users; }
+        public long getRecorded() { return recorded; }
+        public long getEvictions() { return evictions; }
+    }
+}
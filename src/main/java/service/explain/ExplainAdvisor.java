@@ -0,0 +1,119 @@
+package service.explain;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 実行計画のアンチパターン検出
+// - FULL_TABLE_SCAN: 大きなテーブルの全件走査
+// - FULL_INDEX_SCAN: 大きなテーブルのインデックス全体の走査
+// - JOIN_WITHOUT_INDEX: 結合の内側テーブルをインデックスなしで読んでいる（ループごとに全件走査 / ハッシュ結合）
+// - FILESORT / TEMPORARY_TABLE: ORDER BY / GROUP BY にインデックスが使えていない
+// - UNUSED_INDEX: 候補のインデックスがあるのに使われていない
+// - LARGE_ROWS_EXAMINED: 結合全体の推定読み取り行数が多い
+@Component
+public class ExplainAdvisor {
+
+    private final long largeTableRows;
+    private final long largeExaminedRows;
+
+    public ExplainAdvisor(
+            @Value("${query.advisor.large-table-rows:10000}") long largeTableRows,
+            @Value("${query.advisor.large-examined-rows:1000000}") long largeExaminedRows) {
+        this.largeTableRows = Math.max(1, largeTableRows);
+        this.largeExaminedRows = Math.max(1, largeExaminedRows);
+    }
+
+    // 指摘を計算して plan に設定し、そのまま返す
+    public ExplainPlan analyze(ExplainPlan plan) {
+        if (plan == null) {
+            return null;
+        }
+        List<PlanWarning> warnings = new ArrayList<>();
+        checkBlocks(plan.getRoot(), warnings);
+        checkOperations(plan.getRoot(), warnings);
+
+        Long examined = plan.getEstimatedRowsExamined();
+        if (examined != null && examined >= largeExaminedRows) {
+            warnings.add(new PlanWarning("LARGE_ROWS_EXAMINED", PlanWarning.Severity.WARNING, null,
+                    "Estimated " + examined + " rows examined in total. Add selective conditions or indexes."));
+        }
+
+        plan.setWarnings(warnings);
+        return plan;
+    }
+
+    // ルート直下と各 select / query_block ごとに結合順でテーブルを調べる
+    private void checkBlocks(PlanNode root, List<PlanWarning> warnings) {
+        checkTables(ExplainPlan.blockTableAccesses(root), warnings);
+        for (PlanNode block : ExplainPlan.blocks(root)) {
+            checkTables(ExplainPlan.blockTableAccesses(block), warnings);
+        }
+    }
+
+    // tables はブロック内の結合順
+    private void checkTables(List<PlanNode> tables, List<PlanWarning> warnings) {
+        for (int i = 0; i < tables.size(); i++) {
+            PlanNode table = tables.get(i);
+            // <derived2> / <temporary> などの内部テーブルは対象外
+            if (table.getTable().startsWith("<")) {
+                continue;
+            }
+            long rows = table.getEstimatedRows() != null ? table.getEstimatedRows() : 0;
+            boolean joined = i > 0;
+
+            if (joined && (table.isFullScan() || table.isUsingJoinBuffer())) {
+                warnings.add(new PlanWarning("JOIN_WITHOUT_INDEX", PlanWarning.Severity.WARNING, table.getTable(),
+                        "Table " + table.getTable() + " is joined without an index (" + rows
+                                + " rows per scan). Add an index on the join column."));
+            } else if ("ALL".equals(table.getAccessType()) && rows >= largeTableRows) {
+                warnings.add(new PlanWarning("FULL_TABLE_SCAN", PlanWarning.Severity.WARNING, table.getTable(),
+                        "Full table scan on " + table.getTable() + " (" + rows
+                                + " rows). Add a WHERE condition on an indexed column."));
+            } else if ("index".equals(table.getAccessType()) && rows >= largeTableRows) {
+                warnings.add(new PlanWarning("FULL_INDEX_SCAN", PlanWarning.Severity.INFO, table.getTable(),
+                        "Full index scan on " + table.getTable() + " using " + table.getKey()
+                                + " (" + rows + " rows)."));
+            }
+
+            if (table.getKey() == null && table.getPossibleKeys() != null && !table.getPossibleKeys().isEmpty()) {
+                warnings.add(new PlanWarning("UNUSED_INDEX", PlanWarning.Severity.INFO, table.getTable(),
+                        "Possible keys " + String.join(", ", table.getPossibleKeys()) + " on "
+                                + table.getTable() + " were not used."));
+            }
+            if (table.isUsingFilesort()) {
+                warnings.add(filesort(table.getTable()));
+            }
+            if (table.isUsingTemporary()) {
+                warnings.add(temporary(table.getTable()));
+            }
+        }
+    }
+
+    // ソート・集約ノード（FORMAT=JSON / ANALYZE）
+    private void checkOperations(PlanNode node, List<PlanWarning> warnings) {
+        if (!node.isTableAccess()) {
+            if (node.isUsingFilesort()) {
+                warnings.add(filesort(null));
+            }
+            if (node.isUsingTemporary()) {
+                warnings.add(temporary(null));
+            }
+        }
+        for (PlanNode child : node.getChildren()) {
+            checkOperations(child, warnings);
+        }
+    }
+
+    private static PlanWarning filesort(String table) {
+        return new PlanWarning("FILESORT", PlanWarning.Severity.WARNING, table,
+                "Result is sorted without an index (filesort). Consider an index matching the ORDER BY columns.");
+    }
+
+    private static PlanWarning temporary(String table) {
+        return new PlanWarning("TEMPORARY_TABLE", PlanWarning.Severity.WARNING, table,
+                "A temporary table is used for GROUP BY / DISTINCT / UNION.");
+    }
+}
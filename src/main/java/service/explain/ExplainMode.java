@@ -0,0 +1,28 @@
+package service.explain;
+
+import java.util.Locale;
+
+// クエリ実行時の実行計画取得モード
+public enum ExplainMode {
+    // EXPLAIN を実行しない（1往復で済む）
+    NONE,
+    // 従来の表形式 EXPLAIN
+    TRADITIONAL,
+    // 表形式 EXPLAIN を同一 SQL ごとにキャッシュして再利用
+    CACHED,
+    // EXPLAIN FORMAT=JSON（コスト情報付き）
+    JSON,
+    // EXPLAIN ANALYZE（実際の行数・時間。クエリ自体も実行される）
+    ANALYZE;
+
+    public static ExplainMode parse(String value, ExplainMode defaultMode) {
+        if (value == null || value.isBlank()) {
+            return defaultMode;
+        }
+        try {
+            return ExplainMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown explain mode: " + value);
+        }
+    }
+}
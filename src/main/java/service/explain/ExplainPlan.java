@@ -0,0 +1,191 @@
+package service.explain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 型付きの実行計画（EXPLAIN の形式によらず同じツリーで扱う）
+public class ExplainPlan {
+
+    private final ExplainMode mode;
+    private final PlanNode root;
+    // 元の EXPLAIN 出力を JSON 化したもの（履歴保存用）
+    private final String rawJson;
+    // 表形式 EXPLAIN の行（それ以外の形式では null）
+    private final List<Map<String, Object>> traditionalRows;
+    // ExplainAdvisor の指摘（計画と一緒にキャッシュされる）
+    private List<PlanWarning> warnings = List.of();
+
+    public ExplainPlan(ExplainMode mode, PlanNode root, String rawJson) {
+        this(mode, root, rawJson, null);
+    }
+
+    public ExplainPlan(ExplainMode mode, PlanNode root, String rawJson, List<Map<String, Object>> traditionalRows) {
+        this.mode = mode;
+        this.root = root;
+        this.rawJson = rawJson;
+        this.traditionalRows = traditionalRows != null ? List.copyOf(traditionalRows) : null;
+    }
+
+    public ExplainMode getMode() { return mode; }
+    public PlanNode getRoot() { return root; }
+    public List<PlanWarning> getWarnings() { return warnings; }
+
+    void setWarnings(List<PlanWarning> warnings) {
+        this.warnings = List.copyOf(warnings);
+    }
+
+    @JsonIgnore
+    public String getRawJson() { return rawJson; }
+
+    @JsonIgnore
+    public List<Map<String, Object>> getTraditionalRows() { return traditionalRows; }
+
+    @JsonIgnore
+    public List<PlanNode> getTableAccesses() {
+        List<PlanNode> tables = new ArrayList<>();
+        collectTableAccesses(root, tables);
+        return tables;
+    }
+
+    public String getIndexUsed() {
+        Set<String> indexes = new LinkedHashSet<>();
+        for (PlanNode node : getTableAccesses()) {
+            if (node.getKey() != null && !node.getKey().isEmpty()) {
+                indexes.add(node.getKey());
+            }
+        }
+        return indexes.isEmpty() ? null : String.join(", ", indexes);
+    }
+
+    // EXPLAIN ANALYZE なら実測（rows × loops）、それ以外は推定行数の合計
+    public Long getRowsScanned() {
+        long total = 0;
+        for (PlanNode node : getTableAccesses()) {
+            if (node.getActualRows() != null) {
+                long loops = node.getLoops() != null ? node.getLoops() : 1;
+                total = saturatedAdd(total, saturatedMultiply(node.getActualRows(), loops));
+            } else if (node.getEstimatedRows() != null) {
+                total = saturatedAdd(total, node.getEstimatedRows());
+            }
+        }
+        return total > 0 ? total : null;
+    }
+
+    // オプティマイザの推定コスト（FORMAT=JSON / ANALYZE のみ、表形式 EXPLAIN では null）
+    // ツリーの最上位にあるコストが全体のコスト
+    public Double getEstimatedCost() {
+        return topCost(root);
+    }
+
+    // 結合順を考慮した推定読み取り行数（ネステッドループ: 前段の行数 × このテーブルの行数）
+    // select / query_block ごとに計算して合計する
+    public Long getEstimatedRowsExamined() {
+        List<PlanNode> blocks = blocks(root);
+        if (blocks.isEmpty()) {
+            blocks.add(root);
+        }
+
+        double total = 0;
+        for (PlanNode block : blocks) {
+            double fanout = 1;
+            for (PlanNode table : blockTableAccesses(block)) {
+                if (table.getEstimatedRows() == null) {
+                    continue;
+                }
+                double rows = table.getEstimatedRows();
+                total += fanout * rows;
+                double filtered = table.getFiltered() != null ? table.getFiltered() / 100.0 : 1.0;
+                fanout *= Math.max(1, rows * filtered);
+            }
+        }
+        return total > 0 ? (long) Math.min(total, Long.MAX_VALUE) : null;
+    }
+
+    // ブロック直下のテーブルアクセス（入れ子のブロックは含めない、結合順）
+    public static List<PlanNode> blockTableAccesses(PlanNode block) {
+        List<PlanNode> tables = new ArrayList<>();
+        for (PlanNode child : block.getChildren()) {
+            collectBlockTables(child, tables);
+        }
+        return tables;
+    }
+
+    public static List<PlanNode> blocks(PlanNode root) {
+        List<PlanNode> blocks = new ArrayList<>();
+        collectBlocks(root, blocks);
+        return blocks;
+    }
+
+    public static boolean isBlock(PlanNode node) {
+        return "select".equals(node.getOperation()) || "query_block".equals(node.getOperation());
+    }
+
+    private static void collectBlockTables(PlanNode node, List<PlanNode> result) {
+        if (isBlock(node)) {
+            return;
+        }
+        if (node.isTableAccess()) {
+            result.add(node);
+        }
+        for (PlanNode child : node.getChildren()) {
+            collectBlockTables(child, result);
+        }
+    }
+
+    private static void collectBlocks(PlanNode node, List<PlanNode> result) {
+        if (isBlock(node)) {
+            result.add(node);
+        }
+        for (PlanNode child : node.getChildren()) {
+            collectBlocks(child, result);
+        }
+    }
+
+    private static Double topCost(PlanNode node) {
+        if (node.getCost() != null) {
+            return node.getCost();
+        }
+        for (PlanNode child : node.getChildren()) {
+            Double cost = topCost(child);
+            if (cost != null) {
+                return cost;
+            }
+        }
+        return null;
+    }
+
+    // QueryResult / 履歴の INT カラム用
+    @JsonIgnore
+    public Integer getRowsScannedAsInt() {
+        Long rows = getRowsScanned();
+        return rows == null ? null : (int) Math.min(rows, Integer.MAX_VALUE);
+    }
+
+    private static void collectTableAccesses(PlanNode node, List<PlanNode> result) {
+        if (node == null) {
+            return;
+        }
+        if (node.isTableAccess()) {
+            result.add(node);
+        }
+        for (PlanNode child : node.getChildren()) {
+            collectTableAccesses(child, result);
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        return (hi == 0 && lo >= 0) ? lo : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,323 @@
+package service.explain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// EXPLAIN の各出力形式を PlanNode ツリーに変換する
+public class ExplainPlanParser {
+
+    // FORMAT=JSON（version 1）でノードとして扱う操作
+    private static final Set<String> JSON_OPERATIONS = Set.of(
+            "query_block", "nested_loop", "ordering_operation", "grouping_operation",
+            "duplicates_removal", "union_result", "windowing", "materialized_from_subquery",
+            "attached_subqueries", "optimized_away_subqueries", "query_specifications"
+    );
+
+    // EXPLAIN ANALYZE（TREE 形式）の各行
+    private static final Pattern COST_PATTERN = Pattern.compile(
+            "\\(cost=([0-9.eE+-]+)(?:\\.\\.[0-9.eE+-]+)? rows=([0-9.eE+-]+)\\)");
+    private static final Pattern ACTUAL_PATTERN = Pattern.compile(
+            "\\(actual time=([0-9.]+)\\.\\.([0-9.]+) rows=([0-9.eE+-]+) loops=([0-9]+)\\)");
+    private static final Pattern TABLE_ACCESS_PATTERN = Pattern.compile(
+            "^(Table scan|Index scan|Covering index scan|Index lookup|Covering index lookup|"
+                    + "Single-row index lookup|Single-row covering index lookup|Index range scan|"
+                    + "Covering index range scan|Index skip scan|Full-text index search|Constant row from)"
+                    + " on (\\S+)(?: using (\\S+))?");
+
+    private final ObjectMapper objectMapper;
+
+    public ExplainPlanParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // 表形式 EXPLAIN（1行 = 1テーブルアクセス、id ごとに select ノードにまとめる。行の順序が結合順）
+    public ExplainPlan fromTraditional(ExplainMode mode, List<Map<String, Object>> rows) {
+        PlanNode root = new PlanNode("query");
+        Map<String, PlanNode> selects = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            String id = String.valueOf(row.get("id"));
+            PlanNode select = selects.computeIfAbsent(id, k -> {
+                PlanNode node = new PlanNode("select");
+                root.addChild(node);
+                return node;
+            });
+
+            PlanNode node = new PlanNode("table");
+            node.setTable(asString(row.get("table")));
+            node.setAccessType(asString(row.get("type")));
+            node.setKey(asString(row.get("key")));
+            node.setPossibleKeys(splitList(asString(row.get("possible_keys")), ","));
+            node.setKeyLength(asString(row.get("key_len")));
+            node.setEstimatedRows(asLong(row.get("rows")));
+            if (row.get("filtered") instanceof Number) {
+                node.setFiltered(((Number) row.get("filtered")).doubleValue());
+            }
+            List<String> extra = splitList(asString(row.get("Extra")), ";");
+            if (extra != null) {
+                extra.forEach(node::addExtra);
+            }
+            select.addChild(node);
+        }
+        return new ExplainPlan(mode, root, toJson(rows), rows);
+    }
+
+    // EXPLAIN FORMAT=JSON（version 1 の query_block 形式と version 2 の inputs 形式の両方に対応）
+    public ExplainPlan fromJson(String json) {
+        try {
+            JsonNode document = objectMapper.readTree(json);
+            PlanNode root = new PlanNode("query");
+            walkJson(document, root);
+            JsonNode queryCost = document.path("query_block").path("cost_info").path("query_cost");
+            if (!queryCost.isMissingNode()) {
+                root.setCost(asDouble(queryCost.asText()));
+            }
+            return new ExplainPlan(ExplainMode.JSON, root, json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid EXPLAIN JSON output", e);
+        }
+    }
+
+    private void walkJson(JsonNode json, PlanNode parent) {
+        if (json.isArray()) {
+            for (JsonNode element : json) {
+                walkJson(element, parent);
+            }
+            return;
+        }
+        if (!json.isObject()) {
+            return;
+        }
+
+        // version 2: {"operation": ..., "inputs": [...]}
+        if (json.has("operation")) {
+            String operation = json.get("operation").asText();
+            PlanNode node = new PlanNode(operation);
+            applyOperation(node, operation);
+            if (json.has("table_name")) {
+                node.setTable(json.get("table_name").asText());
+                if (node.getAccessType() == null) {
+                    node.setAccessType(textOrNull(json, "access_type"));
+                }
+                node.setKey(textOrNull(json, "index_name"));
+            }
+            node.setEstimatedRows(json.has("estimated_rows") ? (long) json.get("estimated_rows").asDouble() : null);
+            node.setCost(json.has("estimated_total_cost") ? json.get("estimated_total_cost").asDouble() : null);
+            parent.addChild(node);
+            if (json.has("inputs")) {
+                walkJson(json.get("inputs"), node);
+            }
+            return;
+        }
+
+        // version 1: テーブルアクセス
+        PlanNode current = parent;
+        if (json.has("table_name")) {
+            PlanNode node = new PlanNode("table");
+            node.setTable(json.get("table_name").asText());
+            node.setAccessType(textOrNull(json, "access_type"));
+            node.setKey(textOrNull(json, "key"));
+            node.setKeyLength(textOrNull(json, "key_length"));
+            node.setPossibleKeys(textList(json.get("possible_keys")));
+            if (json.has("filtered")) {
+                node.setFiltered(asDouble(json.get("filtered").asText()));
+            }
+            if (json.path("using_index").asBoolean(false)) {
+                node.addExtra("Using index");
+            }
+            if (json.has("using_join_buffer")) {
+                node.addExtra("Using join buffer (" + json.get("using_join_buffer").asText() + ")");
+            }
+            if (json.has("rows_examined_per_scan")) {
+                node.setEstimatedRows(json.get("rows_examined_per_scan").asLong());
+            }
+            JsonNode prefixCost = json.path("cost_info").path("prefix_cost");
+            if (!prefixCost.isMissingNode()) {
+                node.setCost(asDouble(prefixCost.asText()));
+            }
+            parent.addChild(node);
+            current = node;
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (!value.isContainerNode()) {
+                continue;
+            }
+            if (JSON_OPERATIONS.contains(field.getKey())) {
+                PlanNode operation = new PlanNode(field.getKey());
+                if (value.path("using_filesort").asBoolean(false)) {
+                    operation.addExtra("Using filesort");
+                }
+                if (value.path("using_temporary_table").asBoolean(false)) {
+                    operation.addExtra("Using temporary");
+                }
+                current.addChild(operation);
+                walkJson(value, operation);
+            } else if (field.getKey().equals("table")) {
+                walkJson(value, current);
+            }
+        }
+    }
+
+    // EXPLAIN ANALYZE（TREE 形式のテキスト）
+    public ExplainPlan fromAnalyze(String tree) {
+        PlanNode root = new PlanNode("query");
+        Deque<PlanNode> stack = new ArrayDeque<>();
+        Deque<Integer> indents = new ArrayDeque<>();
+
+        for (String line : tree.split("\\R")) {
+            int arrow = line.indexOf("-> ");
+            if (arrow < 0 || !line.substring(0, arrow).isBlank()) {
+                continue;
+            }
+
+            String body = line.substring(arrow + 3);
+            int detailStart = body.indexOf("  (");
+            String description = detailStart >= 0 ? body.substring(0, detailStart).trim() : body.trim();
+            PlanNode node = new PlanNode(description);
+            applyOperation(node, description);
+
+            Matcher costMatcher = COST_PATTERN.matcher(body);
+            if (costMatcher.find()) {
+                node.setCost(asDouble(costMatcher.group(1)));
+                node.setEstimatedRows(asLong(asDouble(costMatcher.group(2))));
+            }
+
+            Matcher actualMatcher = ACTUAL_PATTERN.matcher(body);
+            if (actualMatcher.find()) {
+                node.setActualTimeMs(asDouble(actualMatcher.group(2)));
+                node.setActualRows(asLong(asDouble(actualMatcher.group(3))));
+                node.setLoops(Long.parseLong(actualMatcher.group(4)));
+            }
+
+            // インデントで親子関係を決める
+            while (!indents.isEmpty() && indents.peek() >= arrow) {
+                indents.pop();
+                stack.pop();
+            }
+            PlanNode parent = stack.isEmpty() ? root : stack.peek();
+            parent.addChild(node);
+            stack.push(node);
+            indents.push(arrow);
+        }
+
+        return new ExplainPlan(ExplainMode.ANALYZE, root, toJson(Map.of("format", "tree", "plan", tree)));
+    }
+
+    // TREE 形式 / JSON version 2 の操作名からテーブルアクセスと Extra 相当のフラグを取り出す
+    private static void applyOperation(PlanNode node, String operation) {
+        Matcher tableMatcher = TABLE_ACCESS_PATTERN.matcher(operation);
+        if (tableMatcher.find()) {
+            node.setTable(tableMatcher.group(2));
+            node.setAccessType(accessTypeOf(tableMatcher.group(1)));
+            node.setKey(tableMatcher.group(3));
+        }
+
+        String lower = operation.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("sort") || lower.contains("filesort")) {
+            node.addExtra("Using filesort");
+        }
+        if (lower.contains("temporary")) {
+            node.addExtra("Using temporary");
+        }
+        if (lower.contains("hash join")) {
+            node.addExtra("Using join buffer (hash join)");
+        }
+    }
+
+    // TREE 形式のアクセス方法を表形式 EXPLAIN の type に揃える
+    private static String accessTypeOf(String operation) {
+        switch (operation) {
+            case "Table scan":
+                return "ALL";
+            case "Index scan":
+            case "Covering index scan":
+                return "index";
+            case "Index lookup":
+            case "Covering index lookup":
+                return "ref";
+            case "Single-row index lookup":
+            case "Single-row covering index lookup":
+                return "eq_ref";
+            case "Index range scan":
+            case "Covering index range scan":
+            case "Index skip scan":
+                return "range";
+            case "Full-text index search":
+                return "fulltext";
+            case "Constant row from":
+                return "const";
+            default:
+                return null;
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return "[]";
+        }
+    }
+
+    private static String textOrNull(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static List<String> textList(JsonNode json) {
+        if (json == null || !json.isArray()) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        json.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    private static List<String> splitList(String value, String separator) {
+        if (value == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(separator)) {
+            if (!part.isBlank()) {
+                values.add(part.trim());
+            }
+        }
+        return values.isEmpty() ? null : values;
+    }
+
+    private static String asString(Object value) {
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+
+    private static Long asLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    private static Double asDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
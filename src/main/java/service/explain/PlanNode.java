@@ -0,0 +1,112 @@
+package service.explain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 実行計画ツリーのノード（テーブルアクセスまたは結合・ソートなどの操作）
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanNode {
+
+    private final String operation;
+    private String table;
+    private String accessType;
+    private String key;
+    private List<String> possibleKeys;
+    private String keyLength;
+    // テーブル条件で残る行の割合（%）
+    private Double filtered;
+    // Extra 列（"Using filesort" など）
+    private List<String> extra;
+    // オプティマイザの推定
+    private Long estimatedRows;
+    private Double cost;
+    // EXPLAIN ANALYZE の実測値（rows は1ループあたり）
+    private Long actualRows;
+    private Double actualTimeMs;
+    private Long loops;
+    private final List<PlanNode> children = new ArrayList<>();
+
+    public PlanNode(String operation) {
+        this.operation = operation;
+    }
+
+    public boolean isTableAccess() {
+        return table != null;
+    }
+
+    public boolean hasExtra(String flag) {
+        if (extra == null) {
+            return false;
+        }
+        for (String value : extra) {
+            if (value.startsWith(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @JsonIgnore
+    public boolean isUsingFilesort() {
+        return hasExtra("Using filesort");
+    }
+
+    @JsonIgnore
+    public boolean isUsingTemporary() {
+        return hasExtra("Using temporary");
+    }
+
+    @JsonIgnore
+    public boolean isUsingJoinBuffer() {
+        return hasExtra("Using join buffer");
+    }
+
+    // 全件走査（ALL）またはインデックス全体の走査（index）
+    @JsonIgnore
+    public boolean isFullScan() {
+        return "ALL".equals(accessType) || "index".equals(accessType);
+    }
+
+    void addExtra(String flag) {
+        if (extra == null) {
+            extra = new ArrayList<>();
+        }
+        if (!extra.contains(flag)) {
+            extra.add(flag);
+        }
+    }
+
+    public void addChild(PlanNode child) {
+        children.add(child);
+    }
+
+    public String getOperation() { return operation; }
+    public String getTable() { return table; }
+    public String getAccessType() { return accessType; }
+    public String getKey() { return key; }
+    public List<String> getPossibleKeys() { return possibleKeys; }
+    public String getKeyLength() { return keyLength; }
+    public Double getFiltered() { return filtered; }
+    public List<String> getExtra() { return extra; }
+    public Long getEstimatedRows() { return estimatedRows; }
+    public Double getCost() { return cost; }
+    public Long getActualRows() { return actualRows; }
+    public Double getActualTimeMs() { return actualTimeMs; }
+    public Long getLoops() { return loops; }
+    public List<PlanNode> getChildren() { return children; }
+
+    void setTable(String table) { this.table = table; }
+    void setAccessType(String accessType) { this.accessType = accessType; }
+    void setKey(String key) { this.key = key; }
+    void setPossibleKeys(List<String> possibleKeys) { this.possibleKeys = possibleKeys; }
+    void setKeyLength(String keyLength) { this.keyLength = keyLength; }
+    void setFiltered(Double filtered) { this.filtered = filtered; }
+    void setEstimatedRows(Long estimatedRows) { this.estimatedRows = estimatedRows; }
+    void setCost(Double cost) { this.cost = cost; }
+    void setActualRows(Long actualRows) { this.actualRows = actualRows; }
+    void setActualTimeMs(Double actualTimeMs) { this.actualTimeMs = actualTimeMs; }
+    void setLoops(Long loops) { this.loops = loops; }
+}
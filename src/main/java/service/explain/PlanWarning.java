@@ -0,0 +1,27 @@
+package service.explain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// 実行計画から見つかったチューニング上の指摘
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanWarning {
+
+    public enum Severity { INFO, WARNING }
+
+    private final String code;
+    private final Severity severity;
+    private final String table;
+    private final String message;
+
+    public PlanWarning(String code, Severity severity, String table, String message) {
+        this.code = code;
+        this.severity = severity;
+        this.table = table;
+        this.message = message;
+    }
+
+    public String getCode() { return code; }
+    public Severity getSeverity() { return severity; }
+    public String getTable() { return table; }
+    public String getMessage() { return message; }
+}
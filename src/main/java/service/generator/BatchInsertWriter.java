@@ -0,0 +1,68 @@
+package service.generator;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+
+// PreparedStatement のバッチに書き込む（rewriteBatchedStatements=true なら複数行 INSERT にまとめて送信される）
+public class BatchInsertWriter implements RowWriter {
+
+    private final PreparedStatement statement;
+    private final int batchRows;
+    private int parameterIndex = 1;
+    private int pendingRows = 0;
+
+    public BatchInsertWriter(PreparedStatement statement, int batchRows) {
+        this.statement = statement;
+        this.batchRows = Math.max(1, batchRows);
+    }
+
+    @Override
+    public void writeLong(long value) throws SQLException {
+        statement.setLong(parameterIndex++, value);
+    }
+
+    @Override
+    public void writeString(String value) throws SQLException {
+        statement.setString(parameterIndex++, value);
+    }
+
+    @Override
+    public void writeDate(long epochDay) throws SQLException {
+        statement.setDate(parameterIndex++, Date.valueOf(LocalDate.ofEpochDay(epochDay)));
+    }
+
+    @Override
+    public void writeCents(long cents) throws SQLException {
+        statement.setBigDecimal(parameterIndex++, BigDecimal.valueOf(cents, 2));
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws SQLException {
+        statement.setBoolean(parameterIndex++, value);
+    }
+
+    @Override
+    public void writeNull() throws SQLException {
+        statement.setNull(parameterIndex++, Types.NULL);
+    }
+
+    @Override
+    public void endRow() throws SQLException {
+        statement.addBatch();
+        parameterIndex = 1;
+        if (++pendingRows >= batchRows) {
+            flush();
+        }
+    }
+
+    public void flush() throws SQLException {
+        if (pendingRows > 0) {
+            statement.executeBatch();
+            pendingRows = 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package service.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// LOAD DATA INFILE の既定形式（タブ区切り、改行で行区切り、\ でエスケープ、NULL は \N）で書き出す
+public class DelimitedTextWriter implements RowWriter, AutoCloseable {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final OutputStream out;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private boolean firstColumn = true;
+
+    public DelimitedTextWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void writeLong(long value) {
+        separator();
+        buffer.append(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        separator();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    @Override
+    public void writeDate(long epochDay) {
+        separator();
+        buffer.append(LocalDate.ofEpochDay(epochDay));
+    }
+
+    @Override
+    public void writeCents(long cents) {
+        separator();
+        if (cents < 0) {
+            buffer.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        buffer.append(cents / 100).append('.');
+        if (fraction < 10) {
+            buffer.append('0');
+        }
+        buffer.append(fraction);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        separator();
+        buffer.append(value ? '1' : '0');
+    }
+
+    @Override
+    public void writeNull() {
+        separator();
+        buffer.append("\\N");
+    }
+
+    @Override
+    public void endRow() {
+        buffer.append('\n');
+        firstColumn = true;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void separator() {
+        if (!firstColumn) {
+            buffer.append('\t');
+        }
+        firstColumn = false;
+    }
+
+    private void flushBuffer() {
+        try {
+            out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            buffer.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
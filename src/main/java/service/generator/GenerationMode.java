@@ -0,0 +1,22 @@
+package service.generator;
+
+import java.util.Locale;
+
+// サンプルデータの書き込み方式
+public enum GenerationMode {
+    // rewriteBatchedStatements による複数行 INSERT
+    INSERT,
+    // 生成した行を TSV でパイプに流し LOAD DATA LOCAL INFILE で取り込む（サーバー側で local_infile=ON が必要）
+    LOAD_DATA;
+
+    public static GenerationMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return INSERT;
+        }
+        try {
+            return GenerationMode.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown generation mode: " + value);
+        }
+    }
+}
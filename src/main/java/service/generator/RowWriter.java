@@ -0,0 +1,23 @@
+package service.generator;
+
+import java.sql.SQLException;
+
+// 生成した1行分の値の書き込み先（カラム順に write*、最後に endRow）
+public interface RowWriter {
+
+    void writeLong(long value) throws SQLException;
+
+    void writeString(String value) throws SQLException;
+
+    // LocalDate.toEpochDay() の値
+    void writeDate(long epochDay) throws SQLException;
+
+    // DECIMAL(?, 2) の値を 1/100 単位の整数で渡す
+    void writeCents(long cents) throws SQLException;
+
+    void writeBoolean(boolean value) throws SQLException;
+
+    void writeNull() throws SQLException;
+
+    void endRow() throws SQLException;
+}
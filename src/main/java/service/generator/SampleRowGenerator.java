@@ -0,0 +1,185 @@
+package service.generator;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.random.RandomGenerator;
+
+// サンプルテーブルの行生成（金額は BigDecimal を使わず 1/100 単位の long で計算）
+public final class SampleRowGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "John", "Jane", "Michael", "Emily", "David", "Sarah", "James", "Emma",
+            "Robert", "Olivia", "William", "Sophia", "Joseph", "Isabella", "Thomas",
+            "Mia", "Charles", "Charlotte", "Daniel", "Amelia", "Taro", "Hanako",
+            "Yuki", "Kenji", "Sakura", "Takeshi", "Yui", "Hiroshi", "Aoi", "Ren"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez",
+            "Wilson", "Anderson", "Tanaka", "Yamada", "Sato", "Suzuki", "Takahashi",
+            "Watanabe", "Ito", "Nakamura", "Kobayashi", "Kato"
+    };
+
+    private static final String[] CITIES = {
+            "Tokyo", "Osaka", "New York", "London", "Paris", "Berlin", "Sydney",
+            "Singapore", "Hong Kong", "Seoul", "Bangkok", "Mumbai", "Dubai",
+            "Los Angeles", "Chicago", "Toronto", "Vancouver", "Amsterdam"
+    };
+
+    private static final String[] COUNTRIES = {
+            "Japan", "USA", "UK", "Germany", "France", "Australia", "Canada",
+            "Singapore", "China", "South Korea", "Thailand", "India", "UAE"
+    };
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Clothing", "Home & Garden", "Sports", "Books",
+            "Toys", "Food", "Beauty", "Automotive", "Health"
+    };
+
+    private static final String[] SUBCATEGORIES = {
+            "Smartphones", "Laptops", "T-Shirts", "Dresses", "Furniture",
+            "Kitchen", "Running", "Swimming", "Fiction", "Non-Fiction",
+            "Board Games", "Snacks", "Skincare", "Car Parts", "Vitamins"
+    };
+
+    private static final String[] BRANDS = {
+            "TechCorp", "FashionBrand", "HomeStyle", "SportMax", "BookWorld",
+            "ToyLand", "FoodCo", "BeautyPlus", "AutoParts", "HealthFirst"
+    };
+
+    private static final String[] PAYMENT_METHODS = {
+            "CREDIT_CARD", "DEBIT_CARD", "PAYPAL", "BANK_TRANSFER", "CASH"
+    };
+
+    private static final String[] CUSTOMER_STATUSES = {
+            "ACTIVE", "ACTIVE", "ACTIVE", "INACTIVE", "SUSPENDED"
+    };
+
+    private static final String[] ORDER_STATUSES = {
+            "PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "DELIVERED",
+            "DELIVERED", "CANCELLED", "REFUNDED"
+    };
+
+    // 事前計算した小文字の名前（メールアドレス用）
+    private static final String[] FIRST_NAMES_LOWER = toLowerCase(FIRST_NAMES);
+    private static final String[] LAST_NAMES_LOWER = toLowerCase(LAST_NAMES);
+
+    private static final long REGISTRATION_START = LocalDate.of(2018, 1, 1).toEpochDay();
+    private static final long REGISTRATION_END = LocalDate.of(2024, 12, 31).toEpochDay();
+    private static final long ORDER_START = LocalDate.of(2020, 1, 1).toEpochDay();
+    private static final long ORDER_END = LocalDate.of(2024, 12, 31).toEpochDay();
+
+    private SampleRowGenerator() {
+    }
+
+    public static void customer(long id, RandomGenerator random, RowWriter writer) throws SQLException {
+        int first = random.nextInt(FIRST_NAMES.length);
+        int last = random.nextInt(LAST_NAMES.length);
+
+        writer.writeLong(id);
+        writer.writeString(FIRST_NAMES[first]);
+        writer.writeString(LAST_NAMES[last]);
+        writer.writeString(FIRST_NAMES_LOWER[first] + "." + LAST_NAMES_LOWER[last] + (id - 1) + "@example.com");
+        writer.writeString("+1-" + randomInt(random, 100, 999) + "-" + randomInt(random, 100, 999)
+                + "-" + randomInt(random, 1000, 9999));
+        writer.writeString(randomInt(random, 1, 9999) + " " + randomElement(random, LAST_NAMES) + " Street");
+        writer.writeString(randomElement(random, CITIES));
+        writer.writeString(randomElement(random, COUNTRIES));
+        writer.writeString(Integer.toString(randomInt(random, 10000, 99999)));
+        writer.writeDate(random.nextLong(REGISTRATION_START, REGISTRATION_END));
+        writer.writeString(randomElement(random, CUSTOMER_STATUSES));
+        writer.endRow();
+    }
+
+    public static void product(long id, RandomGenerator random, RowWriter writer) throws SQLException {
+        String category = randomElement(random, CATEGORIES);
+        String brand = randomElement(random, BRANDS);
+        long priceCents = randomInt(random, 100, 100000);
+        // price × 0.6（HALF_UP）
+        long costCents = (priceCents * 6 + 5) / 10;
+
+        writer.writeLong(id);
+        writer.writeString(brand + " " + category + " Product " + (id - 1));
+        writer.writeString("High quality " + category.toLowerCase() + " product from " + brand);
+        writer.writeString(category);
+        writer.writeString(randomElement(random, SUBCATEGORIES));
+        writer.writeCents(priceCents);
+        writer.writeCents(costCents);
+        writer.writeLong(randomInt(random, 0, 10000));
+        writer.writeString(String.format("SKU-%08d", id - 1));
+        writer.writeString(brand);
+        writer.writeCents(randomInt(random, 10, 10000));
+        writer.writeBoolean(random.nextDouble() > 0.1);
+        writer.endRow();
+    }
+
+    public static void order(long id, int customerCount, RandomGenerator random, RowWriter writer)
+            throws SQLException {
+        long totalCents = randomInt(random, 1000, 500000);
+        // total × 0.1（HALF_UP）
+        long taxCents = (totalCents + 5) / 10;
+        long shippingCents = randomInt(random, 0, 2000);
+        long discountCents = Math.round(totalCents * random.nextDouble() * 0.2);
+
+        writer.writeLong(id);
+        writer.writeLong(randomInt(random, 1, customerCount));
+        writer.writeDate(random.nextLong(ORDER_START, ORDER_END));
+        writer.writeString(randomElement(random, ORDER_STATUSES));
+        writer.writeCents(totalCents);
+        writer.writeCents(taxCents);
+        writer.writeCents(shippingCents);
+        writer.writeCents(discountCents);
+        writer.writeString(randomElement(random, PAYMENT_METHODS));
+        writer.writeString(randomInt(random, 1, 9999) + " " + randomElement(random, LAST_NAMES)
+                + " St, " + randomElement(random, CITIES));
+        if (random.nextDouble() > 0.8) {
+            writer.writeString("Please handle with care");
+        } else {
+            writer.writeNull();
+        }
+        writer.endRow();
+    }
+
+    // 1注文分の明細を書き込み、行数を返す
+    // 明細 id は (orderId - 1) × maxItems + 1 からの連番なので、注文 id の範囲から明細 id の範囲が決まる
+    public static int orderItems(long orderId, int productCount, int avgItemsPerOrder,
+                                 RandomGenerator random, RowWriter writer) throws SQLException {
+        int maxItems = avgItemsPerOrder * 2;
+        int itemCount = randomInt(random, 1, maxItems);
+        long firstItemId = (orderId - 1) * maxItems + 1;
+        for (int i = 0; i < itemCount; i++) {
+            int quantity = randomInt(random, 1, 5);
+            long unitPriceCents = randomInt(random, 100, 50000);
+            int discountPercent = randomInt(random, 0, 20);
+            // unit_price × quantity × (100 - discount) / 100（HALF_UP）
+            long subtotalCents = (unitPriceCents * quantity * (100 - discountPercent) + 50) / 100;
+
+            writer.writeLong(firstItemId + i);
+            writer.writeLong(orderId);
+            writer.writeLong(randomInt(random, 1, productCount));
+            writer.writeLong(quantity);
+            writer.writeCents(unitPriceCents);
+            writer.writeCents(discountPercent * 100L);
+            writer.writeCents(subtotalCents);
+            writer.endRow();
+        }
+        return itemCount;
+    }
+
+    private static int randomInt(RandomGenerator random, int min, int max) {
+        return random.nextInt(min, max + 1);
+    }
+
+    private static String randomElement(RandomGenerator random, String[] array) {
+        return array[random.nextInt(array.length)];
+    }
+
+    private static String[] toLowerCase(String[] values) {
+        String[] lower = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lower[i] = values[i].toLowerCase();
+        }
+        return lower;
+    }
+}
@@ -0,0 +1,42 @@
+package service.generator;
+
+import java.util.Collections;
+import java.util.List;
+
+// 生成対象テーブルと書き込むカラム（RowWriter に渡す順）
+public enum SampleTable {
+    CUSTOMERS("sample_customers", List.of(
+            "id", "first_name", "last_name", "email", "phone", "address", "city", "country",
+            "postal_code", "registration_date", "status")),
+    PRODUCTS("sample_products", List.of(
+            "id", "name", "description", "category", "subcategory", "price", "cost",
+            "stock_quantity", "sku", "brand", "weight", "is_active")),
+    ORDERS("sample_orders", List.of(
+            "id", "customer_id", "order_date", "order_status", "total_amount", "tax_amount",
+            "shipping_amount", "discount_amount", "payment_method", "shipping_address", "notes")),
+    // id は注文 id ごとに (itemsPerOrder × 2) 個ずつ割り当てた範囲から採番（欠番あり）
+    ORDER_ITEMS("sample_order_items", List.of(
+            "id", "order_id", "product_id", "quantity", "unit_price", "discount_percent", "subtotal"));
+
+    private final String tableName;
+    private final List<String> columns;
+
+    SampleTable(String tableName, List<String> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public String getTableName() { return tableName; }
+    public List<String> getColumns() { return columns; }
+
+    public String insertSql() {
+        return "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    // ファイル名は Connector/J の setLocalInfileInputStream で差し替えられるのでダミー
+    public String loadDataSql() {
+        return "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + tableName
+                + " CHARACTER SET utf8mb4 (" + String.join(", ", columns) + ")";
+    }
+}
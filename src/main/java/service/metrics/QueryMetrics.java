@@ -0,0 +1,56 @@
+package service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 段階別の所要時間を Micrometer のヒストグラムとして記録（/actuator/prometheus, /actuator/metrics/query.phase）
+// - query.phase{phase=validate|queue|connect|explain|execute|fetch|serialize|history|total}
+// - query.history.flush: 履歴のバッチ INSERT（QueryHistoryWriter）
+@Component
+public class QueryMetrics {
+
+    private final Map<QueryPhase, Timer> phaseTimers = new EnumMap<>(QueryPhase.class);
+    private final Timer totalTimer;
+    private final Timer historyFlushTimer;
+
+    public QueryMetrics(MeterRegistry registry) {
+        for (QueryPhase phase : QueryPhase.values()) {
+            phaseTimers.put(phase, phaseTimer(registry, phase.getMetricName()));
+        }
+        this.totalTimer = phaseTimer(registry, "total");
+        this.historyFlushTimer = Timer.builder("query.history.flush")
+                .description("Batch insert of queued query history rows")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String phase) {
+        return Timer.builder("query.phase")
+                .description("Time spent in each phase of the query pipeline")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // 計測した段階だけを記録（キャッシュヒットでは validate と serialize などのみ）
+    public void record(QueryTimings timings) {
+        if (timings == null) {
+            return;
+        }
+        for (Map.Entry<QueryPhase, Timer> entry : phaseTimers.entrySet()) {
+            if (timings.isRecorded(entry.getKey())) {
+                entry.getValue().record(timings.getNanos(entry.getKey()), TimeUnit.NANOSECONDS);
+            }
+        }
+        totalTimer.record(timings.getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHistoryFlush(long elapsedNanos) {
+        historyFlushTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,31 @@
+package service.metrics;
+
+// クエリ処理の段階（Server-Timing の名前とメトリクスの phase タグに使う）
+public enum QueryPhase {
+    // SQL 検証（ValidationCache 経由）
+    VALIDATE("validate"),
+    // ワーカーの空き待ち（QueryScheduler）
+    QUEUE("queue"),
+    // プールからのコネクション取得
+    CONNECT("connect"),
+    // 実行計画の取得
+    EXPLAIN("explain"),
+    // executeQuery が返るまで
+    EXECUTE("execute"),
+    // ResultSet の読み取りと列配列への格納（ストリーミングでは書き出しを含む）
+    FETCH("fetch"),
+    // レスポンスの JSON 化と書き出し（ヘッダーより後なので Server-Timing には含まれない。メトリクスのみ）
+    SERIALIZE("serialize"),
+    // 履歴の登録（非同期の書き込みキューへの投入と集計）
+    HISTORY("history");
+
+    private final String metricName;
+
+    QueryPhase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,66 @@
+package service.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 1リクエスト分の段階別の所要時間（System.nanoTime() ベース）
+// ワーカースレッドで記録してリクエストスレッドで読むため AtomicLongArray に持つ
+public final class QueryTimings {
+
+    private static final QueryPhase[] PHASES = QueryPhase.values();
+
+    // 未計測は -1
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+    private final long createdAt = System.nanoTime();
+
+    public QueryTimings() {
+        for (int i = 0; i < PHASES.length; i++) {
+            nanos.set(i, -1);
+        }
+    }
+
+    // 同じ段階を複数回記録した場合は合算（ベンチマークの反復など）
+    public void add(QueryPhase phase, long elapsedNanos) {
+        int index = phase.ordinal();
+        long value = Math.max(0, elapsedNanos);
+        nanos.getAndUpdate(index, current -> current < 0 ? value : current + value);
+    }
+
+    // startNanos からの経過を記録し、現在時刻を返す（次の段階の開始時刻に使う）
+    public long since(QueryPhase phase, long startNanos) {
+        long now = System.nanoTime();
+        add(phase, now - startNanos);
+        return now;
+    }
+
+    public boolean isRecorded(QueryPhase phase) {
+        return nanos.get(phase.ordinal()) >= 0;
+    }
+
+    public long getNanos(QueryPhase phase) {
+        return Math.max(0, nanos.get(phase.ordinal()));
+    }
+
+    public long getTotalNanos() {
+        return System.nanoTime() - createdAt;
+    }
+
+    // Server-Timing ヘッダーの値（例: validate;dur=0.041, queue;dur=0.003, ..., total;dur=12.5）
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (QueryPhase phase : PHASES) {
+            if (isRecorded(phase)) {
+                appendEntry(header, phase.getMetricName(), getNanos(phase));
+            }
+        }
+        appendEntry(header, "total", getTotalNanos());
+        return header.toString();
+    }
+
+    private static void appendEntry(StringBuilder header, String name, long elapsedNanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1_000_000.0));
+    }
+}
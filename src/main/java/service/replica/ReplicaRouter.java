@@ -0,0 +1,269 @@
+package service.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 検証済みの読み取り専用クエリをリードレプリカへ振り分ける
+// - query.replica.urls が空なら無効（すべてプライマリの query プール）
+// - レプリカごとに読み取り専用の Hikari プールを持つ
+// - 定期的に SHOW REPLICA STATUS でレプリケーションの稼働と遅延を確認し、
+//   停止中・max-lag-seconds を超えて遅れている・接続できないレプリカには送らない
+// - 正常なレプリカがない、または接続に失敗した場合はプライマリ（fallback）で実行する
+@Component
+public class ReplicaRouter {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaSelection selection;
+    private final long maxLagSeconds;
+    private final boolean requireReplication;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    // メトリクス
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    public ReplicaRouter(
+            @Value("${query.replica.urls:}") String[] urls,
+            @Value("${query.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${query.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${query.replica.selection:LEAST_LOADED}") String selection,
+            @Value("${query.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${query.replica.require-replication:true}") boolean requireReplication,
+            @Value("${query.replica.pool-size:12}") int poolSize,
+            @Value("${query.replica.connection-timeout-ms:3000}") long connectionTimeoutMs) {
+        this.selection = ReplicaSelection.parse(selection, ReplicaSelection.LEAST_LOADED);
+        this.maxLagSeconds = Math.max(0, maxLagSeconds);
+        this.requireReplication = requireReplication;
+
+        for (String url : urls) {
+            if (url == null || url.isBlank()) {
+                continue;
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-pool-" + (replicas.size() + 1));
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+            dataSource.setMinimumIdle(0);
+            dataSource.setConnectionTimeout(Math.max(250, connectionTimeoutMs));
+            // 起動時にレプリカが落ちていてもアプリは起動する（ヘルスチェックで復帰を待つ）
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(url.trim(), dataSource));
+        }
+    }
+
+    public boolean isEnabled() {
+        return !replicas.isEmpty();
+    }
+
+    // 読み取り専用クエリ用のコネクション（正常なレプリカがなければ fallback から）
+    public Connection getReadConnection(DataSource fallback) throws SQLException {
+        Connection connection = getReplicaConnection();
+        return connection != null ? connection : fallback.getConnection();
+    }
+
+    // 正常なレプリカへのコネクション（なければ null。呼び出し側でプライマリを使う）
+    public Connection getReplicaConnection() {
+        for (Replica replica : candidates()) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.routedCount.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                // 次のヘルスチェックまで外す
+                replica.markUnhealthy(e.getMessage());
+                System.err.println("Replica " + replica.url + " is unavailable: " + e.getMessage());
+            }
+        }
+        if (isEnabled()) {
+            fallbackCount.incrementAndGet();
+        }
+        return null;
+    }
+
+    // 正常なレプリカを選択順に並べる（先頭から接続を試す）
+    private List<Replica> candidates() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.size() <= 1) {
+            return healthy;
+        }
+
+        if (selection == ReplicaSelection.LEAST_LOADED) {
+            healthy.sort((a, b) -> Integer.compare(a.load(), b.load()));
+            return healthy;
+        }
+        int offset = Math.floorMod(nextIndex.getAndIncrement(), healthy.size());
+        List<Replica> ordered = new ArrayList<>(healthy.size());
+        for (int i = 0; i < healthy.size(); i++) {
+            ordered.add(healthy.get((offset + i) % healthy.size()));
+        }
+        return ordered;
+    }
+
+    // レプリケーションの稼働状況と遅延を確認
+    @Scheduled(initialDelayString = "${query.replica.health-check-initial-delay-ms:0}",
+            fixedDelayString = "${query.replica.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+            replica.lastCheckedAt = LocalDateTime.now();
+            if (!rs.next()) {
+                // レプリカとして構成されていない（ローカルで別インスタンスを代用する場合など）
+                replica.lagSeconds = null;
+                replica.update(!requireReplication, requireReplication ? "Replication is not configured" : null);
+                return;
+            }
+
+            boolean running = "Yes".equalsIgnoreCase(rs.getString("Replica_IO_Running"))
+                    && "Yes".equalsIgnoreCase(rs.getString("Replica_SQL_Running"));
+            long lag = rs.getLong("Seconds_Behind_Source");
+            boolean lagKnown = !rs.wasNull();
+            replica.lagSeconds = lagKnown ? lag : null;
+
+            if (!running || !lagKnown) {
+                replica.update(false, "Replication is not running");
+            } else if (lag > maxLagSeconds) {
+                replica.update(false, "Replica lag " + lag + "s exceeds " + maxLagSeconds + "s");
+            } else {
+                replica.update(true, null);
+            }
+        } catch (SQLException e) {
+            replica.lastCheckedAt = LocalDateTime.now();
+            replica.update(false, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    public ReplicaRouterStats getStats() {
+        List<ReplicaStats> stats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            stats.add(new ReplicaStats(replica.url, replica.healthy, replica.lagSeconds, replica.lastError,
+                    replica.lastCheckedAt, replica.load(), replica.routedCount.get()));
+        }
+        return new ReplicaRouterStats(isEnabled(), selection.name(), maxLagSeconds, fallbackCount.get(), stats);
+    }
+
+    private static final class Replica {
+        private final String url;
+        private final HikariDataSource dataSource;
+        private final AtomicLong routedCount = new AtomicLong();
+        // 最初のヘルスチェックが通るまでは送らない
+        private volatile boolean healthy = false;
+        private volatile Long lagSeconds;
+        private volatile String lastError;
+        private volatile LocalDateTime lastCheckedAt;
+
+        Replica(String url, HikariDataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+
+        void update(boolean healthy, String error) {
+            if (this.healthy != healthy) {
+                if (healthy) {
+                    System.out.println("Replica " + url + " is healthy");
+                } else {
+                    System.err.println("Replica " + url + " is unhealthy: " + error);
+                }
+            }
+            this.healthy = healthy;
+            this.lastError = error;
+        }
+
+        void markUnhealthy(String error) {
+            update(false, error);
+        }
+
+        // 使用中 + 接続待ち（プール未作成なら 0）
+        int load() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+        }
+    }
+
+    public static class ReplicaStats {
+        private final String url;
+        private final boolean healthy;
+        private final Long lagSeconds;
+        private final String lastError;
+        private final LocalDateTime lastCheckedAt;
+        private final int load;
+        private final long routed;
+
+        public ReplicaStats(String url, boolean healthy, Long lagSeconds, String lastError,
+                            LocalDateTime lastCheckedAt, int load, long routed) {
+            this.url = url;
+            this.healthy = healthy;
+            this.lagSeconds = lagSeconds;
+            this.lastError = lastError;
+            this.lastCheckedAt = lastCheckedAt;
+            this.load = load;
+            this.routed = routed;
+        }
+
+        public String getUrl() { return url; }
+        public boolean isHealthy() { return healthy; }
+        public Long getLagSeconds() { return lagSeconds; }
+        public String getLastError() { return lastError; }
+        public LocalDateTime getLastCheckedAt() { return lastCheckedAt; }
+        public int getLoad() { return load; }
+        public long getRouted() { return routed; }
+    }
+
+    public static class ReplicaRouterStats {
+        private final boolean enabled;
+        private final String selection;
+        private final long maxLagSeconds;
+        private final long fallbacks;
+        private final List<ReplicaStats> replicas;
+
+        public ReplicaRouterStats(boolean enabled, String selection, long maxLagSeconds, long fallbacks,
+                                  List<ReplicaStats> replicas) {
+            this.enabled = enabled;
+            this.selection = selection;
+            this.maxLagSeconds = maxLagSeconds;
+            this.fallbacks = fallbacks;
+            this.replicas = replicas;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public String getSelection() { return selection; }
+        public long getMaxLagSeconds() { return maxLagSeconds; }
+        public long getFallbacks() { return fallbacks; }
+        public List<ReplicaStats> getReplicas() { return replicas; }
+    }
+}
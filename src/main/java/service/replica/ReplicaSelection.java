@@ -0,0 +1,22 @@
+package service.replica;
+
+import java.util.Locale;
+
+// 読み取りクエリを送るレプリカの選び方
+public enum ReplicaSelection {
+    // 正常なレプリカを順番に使う
+    ROUND_ROBIN,
+    // 使用中 + 接続待ちのコネクション数が最も少ないレプリカを使う
+    LEAST_LOADED;
+
+    public static ReplicaSelection parse(String value, ReplicaSelection defaultSelection) {
+        if (value == null || value.isBlank()) {
+            return defaultSelection;
+        }
+        try {
+            return ReplicaSelection.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown replica selection: " + value);
+        }
+    }
+}
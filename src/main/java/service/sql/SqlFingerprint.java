@@ -0,0 +1,313 @@
+package service.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// クエリの形（リテラルを除いた SQL）と、その 64bit ハッシュ
+// - 文字列・数値・プレースホルダ・TRUE/FALSE は ? に置き換える（符号付き数値も1つの ?）
+// - キーワード・識別子は小文字化、空白とコメントは正規化
+// - IN (?, ?, ...) は件数に関係なく IN (?+)、VALUES の同形の行は1行にまとめる
+// 同じ形のクエリは同じ hash になる（履歴・集計・キャッシュで「リテラル違いの同じクエリ」を扱う）
+public final class SqlFingerprint {
+
+    // 直後の ( の前に空白を入れる語（関数呼び出しと区別する）、単項演算子の直前になりうる語
+    private static final Set<String> KEYWORDS = Set.of(
+            "select", "from", "where", "and", "or", "not", "in", "exists", "join", "on", "using",
+            "as", "values", "value", "set", "into", "union", "all", "any", "some", "when", "then",
+            "else", "case", "by", "limit", "offset", "having", "like", "between", "is", "return",
+            "distinct", "with", "over", "partition", "xor", "div", "mod", "regexp", "rlike", "escape"
+    );
+
+    // SELECT の列リストの終わりを表す語（同じ括弧の深さで現れたもの）
+    private static final Set<String> SELECT_LIST_END = Set.of(
+            "from", "into", "where", "group", "having", "order", "limit", "union", "except", "intersect",
+            "window", "for", "lock"
+    );
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long hash;
+    private final String shape;
+
+    private SqlFingerprint(long hash, String shape) {
+        this.hash = hash;
+        this.shape = shape;
+    }
+
+    public static SqlFingerprint of(String sql) {
+        return of(SqlLexer.tokenize(sql));
+    }
+
+    public static SqlFingerprint of(List<SqlToken> tokens) {
+        List<String> parts = new ArrayList<>(tokens.size());
+        List<SqlToken.Type> types = new ArrayList<>(tokens.size());
+        int end = trimTrailingSemicolons(tokens);
+        // ")" の位置 → 対応する "(" の位置（対応がなければ -1）。"(" は openStack に積む
+        int[] openOf = new int[end + 1];
+        int[] openStack = new int[end + 1];
+        int depth = 0;
+
+        for (int i = 0; i < end; i++) {
+            SqlToken token = tokens.get(i);
+
+            // 単項の +/- と数値は1つのリテラル
+            if ((token.isSymbol("-") || token.isSymbol("+")) && i + 1 < end
+                    && tokens.get(i + 1).getType() == SqlToken.Type.NUMBER
+                    && isUnaryPosition(parts, types)) {
+                continue;
+            }
+
+            if (token.isLiteral() || token.isWord("true") || token.isWord("false")) {
+                parts.add("?");
+                types.add(SqlToken.Type.PLACEHOLDER);
+            } else if (token.getType() == SqlToken.Type.WORD || token.getType() == SqlToken.Type.QUOTED_IDENTIFIER) {
+                parts.add(token.getType() == SqlToken.Type.WORD
+                        ? token.getText().toLowerCase(Locale.ROOT)
+                        : token.getText());
+                types.add(token.getType());
+            } else {
+                parts.add(token.getType() == SqlToken.Type.VARIABLE
+                        ? token.getText().toLowerCase(Locale.ROOT)
+                        : token.getText());
+                types.add(token.getType());
+            }
+
+            if (token.isSymbol("(")) {
+                openStack[depth++] = parts.size() - 1;
+            } else if (token.isSymbol(")")) {
+                openOf[parts.size() - 1] = depth > 0 ? openStack[--depth] : -1;
+                collapseInList(parts, types, openOf);
+                collapseValuesRow(parts, types, openOf);
+            }
+        }
+
+        String shape = render(parts, types);
+        return new SqlFingerprint(hash(shape), shape);
+    }
+
+    // 結果キャッシュのキー用: リテラルは残したまま、空白・コメント・大文字小文字だけを揃える
+    public static String canonical(String sql) {
+        return canonical(SqlLexer.tokenize(sql));
+    }
+
+    public static String canonical(List<SqlToken> tokens) {
+        int end = trimTrailingSemicolons(tokens);
+        List<String> parts = new ArrayList<>(end);
+        List<SqlToken.Type> types = new ArrayList<>(end);
+        for (int i = 0; i < end; i++) {
+            SqlToken token = tokens.get(i);
+            parts.add(token.getType() == SqlToken.Type.WORD
+                    ? token.getText().toLowerCase(Locale.ROOT)
+                    : token.getText());
+            types.add(token.getType());
+        }
+        return render(parts, types);
+    }
+
+    // 結果キャッシュのキー用: canonical と同じだが、大文字小文字・書き方が結果の列ラベルになる部分はそのまま残す
+    // - SELECT の列リスト（サブクエリ・派生テーブルのものも）は元の SQL の綴りのまま
+    // - AS の後の別名は小文字化しない
+    public static String resultKey(String sql, List<SqlToken> tokens) {
+        int end = trimTrailingSemicolons(tokens);
+        List<String> parts = new ArrayList<>(end);
+        List<SqlToken.Type> types = new ArrayList<>(end);
+        int i = 0;
+        while (i < end) {
+            SqlToken token = tokens.get(i);
+            if (token.isWord("select")) {
+                parts.add("select");
+                types.add(SqlToken.Type.WORD);
+                int listEnd = selectListEnd(tokens, i + 1, end);
+                if (listEnd > i + 1) {
+                    // 1つの不透明な部品として扱う（前後の空白の入れ方は識別子と同じ）
+                    parts.add(sql.substring(tokens.get(i + 1).getStart(), tokens.get(listEnd - 1).getEnd()));
+                    types.add(SqlToken.Type.QUOTED_IDENTIFIER);
+                }
+                i = listEnd;
+                continue;
+            }
+            boolean alias = i > 0 && tokens.get(i - 1).isWord("as");
+            parts.add(token.getType() == SqlToken.Type.WORD && !alias
+                    ? token.getText().toLowerCase(Locale.ROOT)
+                    : token.getText());
+            types.add(token.getType());
+            i++;
+        }
+        return render(parts, types);
+    }
+
+    // SELECT の直後から列リストの終わり（FROM など、または外側の閉じ括弧）の位置
+    private static int selectListEnd(List<SqlToken> tokens, int start, int end) {
+        int depth = 0;
+        for (int i = start; i < end; i++) {
+            SqlToken token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            } else if (depth == 0 && token.getType() == SqlToken.Type.WORD
+                    && SELECT_LIST_END.contains(token.identifier())) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    // 16桁の16進表記（API・ログ用）
+    public String getHashHex() {
+        return toHex(hash);
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private static int trimTrailingSemicolons(List<SqlToken> tokens) {
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).isSymbol(";")) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isUnaryPosition(List<String> parts, List<SqlToken.Type> types) {
+        if (parts.isEmpty()) {
+            return true;
+        }
+        String previous = parts.get(parts.size() - 1);
+        SqlToken.Type previousType = types.get(types.size() - 1);
+        if (previousType == SqlToken.Type.SYMBOL) {
+            return !previous.equals(")");
+        }
+        return previousType == SqlToken.Type.WORD && KEYWORDS.contains(previous);
+    }
+
+    // in ( ? , ? , ... ) → in ( ?+ )
+    private static void collapseInList(List<String> parts, List<SqlToken.Type> types, int[] openOf) {
+        int close = parts.size() - 1;
+        int i = close - 1;
+        int literals = 0;
+        while (i >= 0 && parts.get(i).equals("?")) {
+            literals++;
+            if (i - 1 >= 0 && parts.get(i - 1).equals(",")) {
+                i -= 2;
+            } else {
+                i--;
+                break;
+            }
+        }
+        if (literals == 0 || i < 1 || !parts.get(i).equals("(") || !parts.get(i - 1).equals("in")) {
+            return;
+        }
+        truncate(parts, types, i + 1);
+        parts.add("?+");
+        types.add(SqlToken.Type.PLACEHOLDER);
+        parts.add(")");
+        types.add(SqlToken.Type.SYMBOL);
+        openOf[parts.size() - 1] = i;
+    }
+
+    // values (?, ?) , (?, ?) → values (?, ?)（直前の行と同じ形の行を捨てる）
+    // 対応する "(" は openOf で引く（後ろ向きに走査すると入れ子の深さに対して2乗の時間がかかる）
+    private static void collapseValuesRow(List<String> parts, List<SqlToken.Type> types, int[] openOf) {
+        int open = openOf[parts.size() - 1];
+        if (open < 2 || !parts.get(open - 1).equals(",") || !parts.get(open - 2).equals(")")) {
+            return;
+        }
+        int previousOpen = openOf[open - 2];
+        if (previousOpen < 1) {
+            return;
+        }
+        String before = parts.get(previousOpen - 1);
+        if (!before.equals("values") && !before.equals("value")) {
+            return;
+        }
+        if (parts.subList(previousOpen, open - 1).equals(parts.subList(open, parts.size()))) {
+            truncate(parts, types, open - 1);
+        }
+    }
+
+    private static void truncate(List<String> parts, List<SqlToken.Type> types, int size) {
+        parts.subList(size, parts.size()).clear();
+        types.subList(size, types.size()).clear();
+    }
+
+    // 区切り記号の前後以外は空白1つで連結（関数呼び出しの ( の前には空白を入れない）
+    private static String render(List<String> parts, List<SqlToken.Type> types) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
+            if (i > 0 && needsSpace(parts.get(i - 1), types.get(i - 1), part)) {
+                sb.append(' ');
+            }
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+
+    private static boolean needsSpace(String previous, SqlToken.Type previousType, String current) {
+        if (current.equals(",") || current.equals(")") || current.equals(".") || current.equals(";")) {
+            return false;
+        }
+        if (previous.equals("(") || previous.equals(".")) {
+            return false;
+        }
+        if (current.equals("(")) {
+            return !(previousType == SqlToken.Type.WORD && !KEYWORDS.contains(previous))
+                    && previousType != SqlToken.Type.QUOTED_IDENTIFIER;
+        }
+        return true;
+    }
+
+    // FNV-1a の後に SplitMix64 の最終化で下位ビットまで攪拌
+    private static long hash(String shape) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < shape.length(); i++) {
+            char c = shape.charAt(i);
+            h ^= c & 0xff;
+            h *= FNV_PRIME;
+            h ^= c >>> 8;
+            h *= FNV_PRIME;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SqlFingerprint)) {
+            return false;
+        }
+        SqlFingerprint other = (SqlFingerprint) o;
+        return hash == other.hash && shape.equals(other.shape);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return getHashHex() + " " + shape;
+    }
+}
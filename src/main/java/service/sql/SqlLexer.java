@@ -0,0 +1,241 @@
+package service.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// MySQL 方言の SQL を1パスでトークンに分割する
+// - 空白と通常のコメント（#, -- , /* */, オプティマイザヒント /*+ */）は捨てる
+// - 実行コメント /*!50000 ... */ は境界を EXECUTABLE_COMMENT として残し、中身は通常どおり分割する
+// - 閉じていない文字列・識別子は末尾までを1トークンにする（検証側でエラーにする）
+public final class SqlLexer {
+
+    private static final String[] MULTI_CHAR_SYMBOLS = {
+            "<=>", "->>", "<=", ">=", "<>", "!=", ":=", "||", "&&", "<<", ">>", "->"
+    };
+
+    private SqlLexer() {
+    }
+
+    public static List<SqlToken> tokenize(String sql) {
+        List<SqlToken> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        boolean inExecutableComment = false;
+
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            // コメント
+            if (c == '#') {
+                i = skipLine(sql, i);
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-'
+                    && (i + 2 >= length || Character.isWhitespace(sql.charAt(i + 2))
+                    || Character.isISOControl(sql.charAt(i + 2)))) {
+                i = skipLine(sql, i);
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                if (i + 2 < length && sql.charAt(i + 2) == '!') {
+                    int end = i + 3;
+                    while (end < length && Character.isDigit(sql.charAt(end))) {
+                        end++;
+                    }
+                    tokens.add(new SqlToken(SqlToken.Type.EXECUTABLE_COMMENT, sql.substring(i, end), i, end));
+                    inExecutableComment = true;
+                    i = end;
+                } else {
+                    int close = sql.indexOf("*/", i + 2);
+                    i = close < 0 ? length : close + 2;
+                }
+                continue;
+            }
+            if (inExecutableComment && c == '*' && i + 1 < length && sql.charAt(i + 1) == '/') {
+                tokens.add(new SqlToken(SqlToken.Type.EXECUTABLE_COMMENT, "*/", i, i + 2));
+                inExecutableComment = false;
+                i += 2;
+                continue;
+            }
+
+            // 文字列・識別子
+            if (c == '\'' || c == '"') {
+                int close = closingQuote(sql, i, c, true);
+                int end = close < 0 ? length : close + 1;
+                tokens.add(new SqlToken(SqlToken.Type.STRING, sql.substring(i, end), i, end, close >= 0));
+                i = end;
+                continue;
+            }
+            if (c == '`') {
+                int close = closingQuote(sql, i, '`', false);
+                int end = close < 0 ? length : close + 1;
+                tokens.add(new SqlToken(SqlToken.Type.QUOTED_IDENTIFIER, sql.substring(i, end), i, end, close >= 0));
+                i = end;
+                continue;
+            }
+            // x'0F' / b'01' / n'abc'
+            if ((c == 'x' || c == 'X' || c == 'b' || c == 'B' || c == 'n' || c == 'N')
+                    && i + 1 < length && sql.charAt(i + 1) == '\'') {
+                int close = closingQuote(sql, i + 1, '\'', true);
+                int end = close < 0 ? length : close + 1;
+                tokens.add(new SqlToken(SqlToken.Type.STRING, sql.substring(i, end), i, end, close >= 0));
+                i = end;
+                continue;
+            }
+
+            // 数値
+            if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                int end = scanNumber(sql, i);
+                if (end < length && isWordPart(sql.charAt(end))) {
+                    // 1abc のように数字で始まる識別子
+                    end = scanWord(sql, end);
+                    tokens.add(new SqlToken(SqlToken.Type.WORD, sql.substring(i, end), i, end));
+                } else {
+                    tokens.add(new SqlToken(SqlToken.Type.NUMBER, sql.substring(i, end), i, end));
+                }
+                i = end;
+                continue;
+            }
+
+            // キーワード・識別子
+            if (isWordStart(c)) {
+                int end = scanWord(sql, i);
+                tokens.add(new SqlToken(SqlToken.Type.WORD, sql.substring(i, end), i, end));
+                i = end;
+                continue;
+            }
+
+            // ユーザー変数・システム変数
+            if (c == '@') {
+                int end = i + 1;
+                if (end < length && sql.charAt(end) == '@') {
+                    end++;
+                }
+                if (end < length && (sql.charAt(end) == '\'' || sql.charAt(end) == '"' || sql.charAt(end) == '`')) {
+                    int close = closingQuote(sql, end, sql.charAt(end), sql.charAt(end) != '`');
+                    end = close < 0 ? length : close + 1;
+                } else {
+                    while (end < length && (isWordPart(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                        end++;
+                    }
+                }
+                tokens.add(new SqlToken(SqlToken.Type.VARIABLE, sql.substring(i, end), i, end));
+                i = end;
+                continue;
+            }
+
+            if (c == '?') {
+                tokens.add(new SqlToken(SqlToken.Type.PLACEHOLDER, "?", i, i + 1));
+                i++;
+                continue;
+            }
+
+            // 記号
+            String symbol = String.valueOf(c);
+            for (String candidate : MULTI_CHAR_SYMBOLS) {
+                if (sql.startsWith(candidate, i)) {
+                    symbol = candidate;
+                    break;
+                }
+            }
+            tokens.add(new SqlToken(SqlToken.Type.SYMBOL, symbol, i, i + symbol.length()));
+            i += symbol.length();
+        }
+        return tokens;
+    }
+
+    private static int skipLine(String sql, int i) {
+        int newline = sql.indexOf('\n', i);
+        return newline < 0 ? sql.length() : newline + 1;
+    }
+
+    // 開きクォート位置から対応する閉じクォートの位置（'' のような二重化と、文字列ならバックスラッシュエスケープに対応）
+    // 閉じていなければ -1
+    private static int closingQuote(String sql, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int scanNumber(String sql, int start) {
+        int length = sql.length();
+        int i = start;
+        if (sql.charAt(i) == '0' && i + 1 < length) {
+            char next = sql.charAt(i + 1);
+            if (next == 'x' || next == 'X') {
+                int end = i + 2;
+                while (end < length && Character.digit(sql.charAt(end), 16) >= 0) {
+                    end++;
+                }
+                if (end > i + 2) {
+                    return end;
+                }
+            } else if (next == 'b' || next == 'B') {
+                int end = i + 2;
+                while (end < length && (sql.charAt(end) == '0' || sql.charAt(end) == '1')) {
+                    end++;
+                }
+                if (end > i + 2) {
+                    return end;
+                }
+            }
+        }
+        while (i < length && Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        if (i < length && sql.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(sql.charAt(i))) {
+                i++;
+            }
+        }
+        if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < length && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static int scanWord(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && isWordPart(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '$' || c >= 0x80;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c >= 0x80;
+    }
+}
@@ -0,0 +1,68 @@
+package service.sql;
+
+import java.util.Locale;
+
+// SqlLexer が返すトークン（text は元の SQL のまま、start/end は元の SQL 上の位置）
+public final class SqlToken {
+
+    public enum Type {
+        WORD,                // キーワード・識別子・関数名
+        QUOTED_IDENTIFIER,   // `name`
+        STRING,              // 'abc' / "abc" / x'0f' / b'01' / N'abc'
+        NUMBER,              // 12 / 1.5e3 / 0x1F / 0b101
+        PLACEHOLDER,         // ?
+        VARIABLE,            // @name / @@session.name
+        SYMBOL,              // 演算子・括弧・区切り
+        EXECUTABLE_COMMENT   // /*!50000 と対応する */（中身は通常のトークンとして並ぶ）
+    }
+
+    private final Type type;
+    private final String text;
+    private final int start;
+    private final int end;
+    // 文字列・クォート識別子が閉じているか（閉じていなければ SQL の末尾まで）
+    private final boolean closed;
+
+    public SqlToken(Type type, String text, int start, int end) {
+        this(type, text, start, end, true);
+    }
+
+    public SqlToken(Type type, String text, int start, int end, boolean closed) {
+        this.type = type;
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.closed = closed;
+    }
+
+    public Type getType() { return type; }
+    public String getText() { return text; }
+    public int getStart() { return start; }
+    public int getEnd() { return end; }
+    public boolean isClosed() { return closed; }
+
+    public boolean isWord(String word) {
+        return type == Type.WORD && text.equalsIgnoreCase(word);
+    }
+
+    public boolean isSymbol(String symbol) {
+        return type == Type.SYMBOL && text.equals(symbol);
+    }
+
+    public boolean isLiteral() {
+        return type == Type.STRING || type == Type.NUMBER || type == Type.PLACEHOLDER;
+    }
+
+    // 識別子として見たときの名前（バッククォートを外し小文字化）
+    public String identifier() {
+        if (type == Type.QUOTED_IDENTIFIER) {
+            return text.substring(1, text.length() - 1).replace("``", "`").toLowerCase(Locale.ROOT);
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ")";
+    }
+}
@@ -0,0 +1,51 @@
+package controller;
+
+import controller.dto.ApiError;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+public class HistoryControllerTest {
+
+    @Test
+    public void should_decode_encoded_cursor() {
+        // 秒が 0（toString で秒が省略される）やナノ秒付きでも戻せるか
+        for (LocalDateTime createdAt : new LocalDateTime[] {
+                LocalDateTime.of(2026, 1, 15, 12, 0, 0),
+                LocalDateTime.of(2026, 1, 15, 12, 0, 5),
+                LocalDateTime.of(2026, 1, 15, 12, 0, 5, 123_456_000)}) {
+            HistoryController.Cursor cursor = HistoryController.decodeCursor(HistoryController.encodeCursor(createdAt, 42L));
+            Assertions.assertEquals(createdAt, cursor.createdAt);
+            Assertions.assertEquals(42L, cursor.id);
+        }
+        // URL にそのまま載せられる
+        Assertions.assertFalse(HistoryController.encodeCursor(LocalDateTime.now(), Long.MAX_VALUE).matches(".*[+/=].*"));
+    }
+
+    @Test
+    public void should_reject_invalid_cursor() {
+        for (String cursor : new String[] {"%%%", encode("no-separator"), encode("2026-01-15T12:00_abc"), encode("yesterday_1")}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> HistoryController.decodeCursor(cursor));
+        }
+    }
+
+    @Test
+    public void should_return_400_for_invalid_cursor() {
+        // カーソルの解釈は履歴の取得より先（リポジトリ・認証情報に触れない）
+        HistoryController controller = new HistoryController(null);
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> controller.getHistory(0, 20, "not-a-cursor", null));
+
+        ResponseEntity<ApiError> response = new GlobalExceptionHandler().handleIllegalArgument(e);
+        Assertions.assertEquals(400, response.getStatusCode().value());
+        Assertions.assertEquals("Invalid cursor", response.getBody().getMessage());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+public class CompressedTextTest {
+
+    // MySQL の SELECT HEX(COMPRESS('hello')) の結果
+    private static final byte[] MYSQL_COMPRESSED_HELLO = HexFormat.of().parseHex("05000000789CCB48CDC9C90700062C0215");
+
+    @Test
+    public void should_round_trip_text() {
+        for (String text : new String[] {"", "SELECT * FROM users WHERE id = 1", "日本語のテキスト 🍣", "a".repeat(100_000)}) {
+            Assertions.assertEquals(text, CompressedText.decompress(CompressedText.compress(text)));
+        }
+    }
+
+    @Test
+    public void should_encode_empty_text_as_empty_bytes() {
+        Assertions.assertArrayEquals(new byte[0], CompressedText.compress(""));
+        Assertions.assertEquals("", CompressedText.decompress(new byte[0]));
+        Assertions.assertNull(CompressedText.compress(null));
+        Assertions.assertNull(CompressedText.decompress(null));
+    }
+
+    @Test
+    public void should_write_length_prefix_in_little_endian() {
+        byte[] compressed = CompressedText.compress("日本語");
+        // UTF-8 で9バイト
+        Assertions.assertEquals(9, compressed[0]);
+        Assertions.assertEquals(0, compressed[1]);
+        Assertions.assertEquals(0, compressed[2]);
+        Assertions.assertEquals(0, compressed[3]);
+    }
+
+    @Test
+    public void should_read_and_produce_mysql_compress_format() {
+        Assertions.assertEquals("hello", CompressedText.decompress(MYSQL_COMPRESSED_HELLO));
+        // zlib の既定レベルは MySQL と同じなので出力も一致する
+        Assertions.assertArrayEquals(MYSQL_COMPRESSED_HELLO, CompressedText.compress("hello"));
+    }
+
+    @Test
+    public void should_ignore_trailing_dot_added_by_mysql() {
+        // MySQL は圧縮結果が空白で終わると末尾に '.' を足す。zlib ストリームの後ろは読まない
+        byte[] withDot = new byte[MYSQL_COMPRESSED_HELLO.length + 1];
+        System.arraycopy(MYSQL_COMPRESSED_HELLO, 0, withDot, 0, MYSQL_COMPRESSED_HELLO.length);
+        withDot[withDot.length - 1] = '.';
+        Assertions.assertEquals("hello", CompressedText.decompress(withDot));
+    }
+
+    @Test
+    public void should_reject_broken_data() {
+        Assertions.assertThrows(IllegalStateException.class, () -> CompressedText.decompress(new byte[] {1, 0}));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> CompressedText.decompress(HexFormat.of().parseHex("05000000FFFFFFFF")));
+    }
+}
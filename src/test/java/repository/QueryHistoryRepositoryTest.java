@@ -0,0 +1,84 @@
+package repository;
+
+import core.query.QueryHistory;
+import core.query.QueryHistorySummary;
+import core.user.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@JdbcTest
+@Import({repository.QueryHistoryRepository.class, repository.UserRepository.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@org.springframework.test.context.ContextConfiguration(classes = org.example.Main.class)
+public class QueryHistoryRepositoryTest {
+
+    @Autowired
+    QueryHistoryRepository queryHistoryRepository;
+    @Autowired
+    UserRepository userRepository;
+
+    private Integer userId;
+    private final static String TEST_USER_EMAIL = "history_test@example.com";
+    private final static LocalDateTime TIED_AT = LocalDateTime.of(2026, 1, 15, 12, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(new User("history_test_user", TEST_USER_EMAIL, "test_password"));
+        userId = userRepository.findUserByMail(TEST_USER_EMAIL).orElseThrow().getId().orElseThrow();
+    }
+
+    @Test
+    public void should_page_through_rows_with_equal_created_at() {
+        // 5件中3件が同じ created_at。ページ境界がその3件の途中に来る
+        List<Long> expected = new ArrayList<>();
+        expected.add(save(TIED_AT.minusMinutes(2)));
+        expected.add(save(TIED_AT.minusMinutes(1)));
+        expected.add(save(TIED_AT));
+        expected.add(save(TIED_AT));
+        expected.add(save(TIED_AT));
+        // created_at DESC, id DESC の順
+        List<Long> newestFirst = List.of(expected.get(4), expected.get(3), expected.get(2), expected.get(1), expected.get(0));
+
+        List<Long> visited = new ArrayList<>();
+        LocalDateTime createdAt = TIED_AT.plusDays(1);
+        Long id = Long.MAX_VALUE;
+        List<QueryHistorySummary> page;
+        do {
+            page = queryHistoryRepository.findSummariesByUserIdBefore(userId, createdAt, id, 2);
+            for (QueryHistorySummary summary : page) {
+                visited.add(summary.getId());
+            }
+            if (!page.isEmpty()) {
+                createdAt = page.get(page.size() - 1).getCreatedAt();
+                id = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        Assertions.assertEquals(newestFirst, visited, "同じ created_at の行も重複・欠落なく辿れるか");
+    }
+
+    @Test
+    public void should_exclude_the_cursor_row_itself() {
+        Long older = save(TIED_AT);
+        Long newer = save(TIED_AT);
+        List<QueryHistorySummary> page = queryHistoryRepository.findSummariesByUserIdBefore(userId, TIED_AT, newer, 10);
+        Assertions.assertEquals(1, page.size());
+        Assertions.assertEquals(older, page.get(0).getId());
+    }
+
+    private Long save(LocalDateTime createdAt) {
+        QueryHistory history = new QueryHistory(null, userId, "SELECT 1", 1, 0, 1, null, null,
+                QueryHistory.Status.SUCCESS, createdAt);
+        queryHistoryRepository.save(history);
+        return history.getId();
+    }
+}
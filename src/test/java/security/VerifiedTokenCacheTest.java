@@ -0,0 +1,85 @@
+package security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+public class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_800_000_000_000L;
+    private static final long LIFETIME = 86_400_000L;
+
+    @Test
+    public void should_reject_revoked_token_until_it_expires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 10);
+        Claims claims = claims("1", NOW);
+        cache.put("a", claims, NOW);
+        cache.revoke("a", claims, NOW + LIFETIME, NOW);
+
+        Assertions.assertNull(cache.get("a", NOW), "失効したトークンは検証済みキャッシュからも消える");
+        Assertions.assertTrue(cache.isRevoked("a", NOW + LIFETIME - 1));
+        Assertions.assertFalse(cache.isRevoked("b", NOW));
+        // 期限後は参照したときに削除される
+        Assertions.assertFalse(cache.isRevoked("a", NOW + LIFETIME));
+        Assertions.assertEquals(0, cache.revokedSize());
+    }
+
+    @Test
+    public void should_fold_revocations_beyond_the_per_user_limit_into_a_cutoff() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 2);
+        Claims first = claims("1", NOW);
+        Claims second = claims("1", NOW + 1000);
+        Claims third = claims("1", NOW + 2000);
+        cache.revoke("first", first, NOW + LIFETIME, NOW + 3000);
+        cache.revoke("second", second, NOW + 1000 + LIFETIME, NOW + 3000);
+        cache.revoke("third", third, NOW + 2000 + LIFETIME, NOW + 3000);
+
+        Assertions.assertEquals(2, cache.revokedSize());
+        // 個別の一覧からは外れても区切りで拒否され続ける
+        Assertions.assertFalse(cache.isRevoked("first", NOW + 3000));
+        Assertions.assertTrue(cache.isRevokedByCutoff(first, NOW + 3000));
+        Assertions.assertTrue(cache.isRevoked("second", NOW + 3000));
+        Assertions.assertTrue(cache.isRevoked("third", NOW + 3000));
+        // 区切りより後に発行されたトークンは有効
+        Assertions.assertFalse(cache.isRevokedByCutoff(second, NOW + 3000));
+        Assertions.assertFalse(cache.isRevokedByCutoff(claims("1", NOW + 5000), NOW + 5000));
+    }
+
+    @Test
+    public void should_not_let_one_user_exhaust_revocations_of_others() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 5);
+        for (int i = 0; i < 10_000; i++) {
+            cache.revoke("spam-" + i, claims("1", NOW + i), NOW + i + LIFETIME, NOW + i);
+        }
+        Assertions.assertEquals(5, cache.revokedSize());
+
+        Claims other = claims("2", NOW);
+        cache.revoke("other", other, NOW + LIFETIME, NOW + 10_000);
+        Assertions.assertTrue(cache.isRevoked("other", NOW + 10_000));
+        Assertions.assertFalse(cache.isRevokedByCutoff(claims("2", NOW - 1000), NOW + 10_000));
+    }
+
+    @Test
+    public void should_purge_expired_revocations_and_cutoffs() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 1);
+        Claims old = claims("1", NOW);
+        cache.revoke("old", old, NOW + LIFETIME, NOW);
+        cache.revoke("new", claims("1", NOW + 1000), NOW + 1000 + LIFETIME, NOW + 1000);
+        Assertions.assertTrue(cache.isRevokedByCutoff(old, NOW + 1000));
+
+        Assertions.assertEquals(1, cache.purgeExpired(NOW + 1000 + LIFETIME));
+        Assertions.assertEquals(0, cache.revokedSize());
+        Assertions.assertFalse(cache.isRevokedByCutoff(old, NOW + 1000 + LIFETIME));
+    }
+
+    private static Claims claims(String subject, long issuedAt) {
+        return Jwts.claims()
+                .subject(subject)
+                .issuedAt(new Date(issuedAt))
+                .expiration(new Date(issuedAt + LIFETIME))
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class QuerySchedulerTest {
+
+    private QueryScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void should_take_users_in_round_robin_order() throws Exception {
+        scheduler = new QueryScheduler(1, 10, 100, 100);
+        CountDownLatch gateStarted = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(0, () -> block(gateStarted, gate));
+        Assertions.assertTrue(gateStarted.await(5, TimeUnit.SECONDS));
+
+        // ワーカーが塞がっている間に user 1 が3件、user 2 が2件まとめて投入
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        for (String name : List.of("A1", "A2", "A3")) {
+            futures.add(scheduler.submit(1, () -> order.add(name)));
+        }
+        for (String name : List.of("B1", "B2")) {
+            futures.add(scheduler.submit(2, () -> order.add(name)));
+        }
+        gate.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assertions.assertEquals(List.of("A1", "B1", "A2", "B2", "A3"), order);
+    }
+
+    @Test
+    public void should_limit_concurrent_queries_per_user() throws Exception {
+        scheduler = new QueryScheduler(4, 2, 100, 100);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit(1, () -> block(started, release)));
+        }
+
+        // ワーカーに空きがあっても user 1 の3件目は待たされる
+        Assertions.assertFalse(started.await(300, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1L, started.getCount());
+        QueryScheduler.SchedulerStats stats = scheduler.getStats();
+        Assertions.assertEquals(2, stats.getActive());
+        Assertions.assertEquals(1, stats.getQueued());
+
+        // 他のユーザーは空いているワーカーですぐに実行される
+        Future<String> other = scheduler.submit(2, () -> "done");
+        Assertions.assertEquals("done", other.get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        Assertions.assertEquals(0L, started.getCount());
+    }
+
+    @Test
+    public void should_reject_when_queue_is_full() throws Exception {
+        scheduler = new QueryScheduler(1, 10, 2, 100);
+        CountDownLatch gateStarted = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(0, () -> block(gateStarted, gate));
+        Assertions.assertTrue(gateStarted.await(5, TimeUnit.SECONDS));
+
+        // 実行中の1件はキュー長に数えない
+        Future<String> first = scheduler.submit(1, () -> "first");
+        Future<String> second = scheduler.submit(2, () -> "second");
+        Assertions.assertThrows(QueryRejectedException.class, () -> scheduler.submit(3, () -> "third"));
+        Assertions.assertEquals(1L, scheduler.getStats().getRejected());
+
+        gate.countDown();
+        Assertions.assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_limit_queued_queries_per_user() throws Exception {
+        scheduler = new QueryScheduler(1, 10, 100, 2);
+        CountDownLatch gateStarted = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(0, () -> block(gateStarted, gate));
+        Assertions.assertTrue(gateStarted.await(5, TimeUnit.SECONDS));
+
+        scheduler.submit(1, () -> "a1");
+        scheduler.submit(1, () -> "a2");
+        // user 1 は自分の待ち件数の上限で断られるが、キュー全体には空きがあるので他のユーザーは入れる
+        Assertions.assertThrows(QueryRejectedException.class, () -> scheduler.submit(1, () -> "a3"));
+        Future<String> other = scheduler.submit(2, () -> "b1");
+
+        gate.countDown();
+        Assertions.assertEquals("b1", other.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_release_queue_slot_when_waiting_task_is_cancelled() throws Exception {
+        scheduler = new QueryScheduler(1, 10, 1, 100);
+        CountDownLatch gateStarted = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(0, () -> block(gateStarted, gate));
+        Assertions.assertTrue(gateStarted.await(5, TimeUnit.SECONDS));
+
+        Future<String> timedOut = scheduler.submit(1, () -> "timed out");
+        Assertions.assertThrows(QueryRejectedException.class, () -> scheduler.submit(2, () -> "rejected"));
+        // キュー待ちのタイムアウト・キャンセルで枠が空く（ワーカーが取り出すまで待たない）
+        Assertions.assertTrue(timedOut.cancel(true));
+        Assertions.assertEquals(0, scheduler.getStats().getQueued());
+        Future<String> next = scheduler.submit(2, () -> "next");
+
+        gate.countDown();
+        Assertions.assertEquals("next", next.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(timedOut.isCancelled());
+    }
+
+    private static Void block(CountDownLatch started, CountDownLatch release) throws InterruptedException {
+        started.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return null;
+    }
+}
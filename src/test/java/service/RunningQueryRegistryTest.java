@@ -0,0 +1,28 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RunningQueryRegistryTest {
+
+    private final RunningQueryRegistry registry = new RunningQueryRegistry();
+
+    @Test
+    public void should_scope_query_ids_per_user() {
+        RunningQueryRegistry.RunningQuery mine = registry.register("q1", 1);
+        // 他のユーザーが同じ id を使っていても登録できる
+        RunningQueryRegistry.RunningQuery theirs = registry.register("q1", 2);
+        Assertions.assertEquals(2, registry.getRunningCount());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register("q1", 1));
+
+        // 他人のクエリはキャンセルできない
+        Assertions.assertFalse(registry.cancel("q1", 3));
+        Assertions.assertTrue(registry.cancel("q1", 2));
+        Assertions.assertTrue(theirs.isCancelled());
+        Assertions.assertFalse(mine.isCancelled());
+
+        registry.unregister(theirs);
+        Assertions.assertFalse(registry.cancel("q1", 2));
+        Assertions.assertEquals(1, registry.getRunningCount());
+    }
+}
@@ -0,0 +1,136 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class SqlValidatorTest {
+
+    private final SqlValidator validator = new SqlValidator(1000);
+
+    @Test
+    public void should_append_limit_before_trailing_comment() {
+        SqlValidator.ValidationResult result = validator.validate("SELECT * FROM sample_orders -- latest", false);
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals("SELECT * FROM sample_orders LIMIT 1000", result.getProcessedSql());
+    }
+
+    @Test
+    public void should_cap_top_level_limit() {
+        Assertions.assertEquals("SELECT * FROM sample_orders LIMIT 10, 1000",
+                validator.validate("SELECT * FROM sample_orders LIMIT 10, 5000", false).getProcessedSql());
+        Assertions.assertEquals("SELECT * FROM sample_orders LIMIT 50",
+                validator.validate("SELECT * FROM sample_orders LIMIT 50;", false).getProcessedSql());
+        // サブクエリ内の LIMIT はトップレベルの LIMIT とみなさない
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM sample_orders LIMIT 5) t LIMIT 1000",
+                validator.validate("SELECT * FROM (SELECT * FROM sample_orders LIMIT 5) t", false).getProcessedSql());
+    }
+
+    @Test
+    public void should_ignore_keywords_inside_literals() {
+        SqlValidator.ValidationResult result = validator.validate("SELECT 'DROP DATABASE x; 1' FROM sample_orders", false);
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals(Set.of("sample_orders"), result.getTables());
+    }
+
+    @Test
+    public void should_reject_forbidden_and_multiple_statements() {
+        Assertions.assertFalse(validator.validate("SELECT 1; DROP TABLE users", true).isValid());
+        Assertions.assertFalse(validator.validate("SELECT /*!50000 1 INTO OUTFILE '/tmp/x' */", true).isValid());
+        Assertions.assertFalse(validator.validate("SELECT 'abc FROM sample_orders", false).isValid());
+    }
+
+    @Test
+    public void should_collect_tables_from_comma_joins_and_reject_other_schemas() {
+        SqlValidator.ValidationResult result = validator.validate(
+                "SELECT * FROM sample_orders o, `sample_customers` c JOIN users u ON u.id = c.id", false);
+        Assertions.assertFalse(result.isValid());
+        Assertions.assertEquals("Access denied to table: users. Only sample_* tables are allowed.",
+                result.getErrorMessage());
+        Assertions.assertFalse(validator.validate("SELECT * FROM mysql.user", false).isValid());
+    }
+
+    @Test
+    public void should_collect_tables_inside_parenthesized_table_lists() {
+        Assertions.assertFalse(validator.validate("SELECT * FROM (users)", false).isValid());
+        Assertions.assertFalse(validator.validate("SELECT * FROM (sample_orders, users)", false).isValid());
+        Assertions.assertFalse(validator.validate(
+                "SELECT * FROM sample_orders o JOIN (sample_customers c JOIN users u ON u.id = c.id) ON 1 = 1", false)
+                .isValid());
+
+        SqlValidator.ValidationResult result = validator.validate(
+                "SELECT * FROM ((sample_orders o JOIN sample_customers c ON o.customer_id = c.id))", false);
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals(Set.of("sample_orders", "sample_customers"), result.getTables());
+    }
+
+    @Test
+    public void should_collect_tables_inside_oj_escape() {
+        SqlValidator.ValidationResult result = validator.validate(
+                "SELECT * FROM {OJ users u LEFT OUTER JOIN sample_orders o ON 1=1}", false);
+        Assertions.assertFalse(result.isValid());
+        Assertions.assertEquals("Access denied to table: users. Only sample_* tables are allowed.",
+                result.getErrorMessage());
+        Assertions.assertTrue(validator.validate(
+                "SELECT * FROM {OJ sample_customers c LEFT OUTER JOIN sample_orders o ON o.customer_id = c.id}", false)
+                .isValid());
+    }
+
+    @Test
+    public void should_collect_tables_of_table_statements() {
+        Assertions.assertFalse(validator.validate("SELECT * FROM sample_orders WHERE id IN (TABLE users)", false).isValid());
+        Assertions.assertFalse(validator.validate("SELECT * FROM sample_orders UNION TABLE users", false).isValid());
+        Assertions.assertFalse(validator.validate("TABLE sample_orders", false).isValid());
+    }
+
+    @Test
+    public void should_reject_from_clause_without_known_tables() {
+        Assertions.assertFalse(validator.validate("SELECT * FROM \"users\"", false).isValid());
+        Assertions.assertFalse(validator.validate("SELECT * FROM sample_orders,", false).isValid());
+        // 派生テーブル・DUAL・テーブル関数はテーブルを参照しなくてよい
+        Assertions.assertTrue(validator.validate("SELECT * FROM (SELECT 1 AS x) t", false).isValid());
+        Assertions.assertTrue(validator.validate("SELECT 1 FROM dual", false).isValid());
+    }
+
+    @Test
+    public void should_not_treat_function_arguments_or_index_hints_as_from_clauses() {
+        SqlValidator.ValidationResult result = validator.validate(
+                "SELECT EXTRACT(YEAR FROM order_date), TRIM(LEADING 'x' FROM notes) FROM sample_orders", false);
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals(Set.of("sample_orders"), result.getTables());
+        Assertions.assertFalse(validator.validate(
+                "SELECT * FROM sample_orders FORCE INDEX FOR JOIN (idx_customer_id), users", false).isValid());
+        Assertions.assertFalse(validator.validate(
+                "SELECT EXTRACT(YEAR FROM (SELECT MAX(created_at) FROM users))", false).isValid());
+    }
+
+    @Test
+    public void should_share_fingerprint_with_validation() {
+        SqlValidator.ValidationResult a = validator.validate("SELECT * FROM sample_orders WHERE id = 1", false);
+        SqlValidator.ValidationResult b = validator.validate("select * from sample_orders where id = 42", false);
+        Assertions.assertNotNull(a.getFingerprint());
+        Assertions.assertEquals(a.getFingerprint().getHash(), b.getFingerprint().getHash());
+    }
+
+    @Test
+    public void should_check_the_contents_of_executable_comments() {
+        Assertions.assertFalse(validator.validate(
+                "SELECT (/*!SELECT password FROM users LIMIT 1*/) FROM sample_orders", false).isValid());
+        Assertions.assertFalse(validator.validate(
+                "SELECT * FROM sample_orders WHERE id IN (/*!SELECT id FROM users*/)", false).isValid());
+        Assertions.assertFalse(validator.validate(
+                "SELECT * INTO/*!*/OUTFILE '/tmp/x' FROM sample_orders", false).isValid());
+        Assertions.assertFalse(validator.validate(
+                "SELECT * INTO/*!*/OUTFILE '/tmp/x' FROM sample_orders", true).isValid());
+        Assertions.assertFalse(validator.validate("DROP/*!*/DATABASE x", true).isValid());
+
+        // 境界は文にそのまま残す
+        SqlValidator.ValidationResult result = validator.validate(
+                "SELECT /*!50000 SQL_NO_CACHE */ * FROM sample_orders", false);
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals("SELECT /*!50000 SQL_NO_CACHE */ * FROM sample_orders LIMIT 1000", result.getProcessedSql());
+        Assertions.assertEquals("/*!SELECT * FROM sample_orders*/ LIMIT 1000",
+                validator.validate("/*!SELECT * FROM sample_orders*/;", false).getProcessedSql());
+    }
+}
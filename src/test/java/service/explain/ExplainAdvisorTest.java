@@ -0,0 +1,87 @@
+package service.explain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ExplainAdvisorTest {
+
+    private final ExplainPlanParser parser = new ExplainPlanParser(new ObjectMapper());
+    private final ExplainAdvisor advisor = new ExplainAdvisor(10000, 1000000);
+
+    @Test
+    public void should_report_full_table_scan_unused_index_filesort_and_temporary() {
+        ExplainPlan plan = advisor.analyze(parser.fromTraditional(ExplainMode.TRADITIONAL, ExplainSamples.traditional()));
+
+        Assertions.assertEquals(List.of("FULL_TABLE_SCAN", "UNUSED_INDEX", "FILESORT", "TEMPORARY_TABLE"), codes(plan));
+        Assertions.assertEquals("o", plan.getWarnings().get(0).getTable());
+        Assertions.assertEquals(PlanWarning.Severity.WARNING, plan.getWarnings().get(0).getSeverity());
+        Assertions.assertEquals(PlanWarning.Severity.INFO, plan.getWarnings().get(1).getSeverity());
+    }
+
+    @Test
+    public void should_report_sort_nodes_in_json_and_analyze_plans() {
+        Assertions.assertEquals(List.of("FULL_TABLE_SCAN", "UNUSED_INDEX", "FILESORT"),
+                codes(advisor.analyze(parser.fromJson(ExplainSamples.JSON_V1))));
+        Assertions.assertEquals(List.of("FULL_TABLE_SCAN", "FILESORT"),
+                codes(advisor.analyze(parser.fromJson(ExplainSamples.JSON_V2))));
+        Assertions.assertEquals(List.of("FULL_TABLE_SCAN", "FILESORT"),
+                codes(advisor.analyze(parser.fromAnalyze(ExplainSamples.ANALYZE))));
+    }
+
+    @Test
+    public void should_report_join_without_index() {
+        ExplainPlan plan = advisor.analyze(traditional(
+                ExplainSamples.row(1L, "c", "ALL", null, null, null, 50L, 10.0, "Using where"),
+                ExplainSamples.row(1L, "o", "ALL", null, null, null, 50000L, 10.0,
+                        "Using where; Using join buffer (hash join)")));
+
+        Assertions.assertEquals(List.of("JOIN_WITHOUT_INDEX"), codes(plan));
+        Assertions.assertEquals("o", plan.getWarnings().get(0).getTable());
+    }
+
+    @Test
+    public void should_report_full_index_scan() {
+        ExplainPlan plan = advisor.analyze(traditional(
+                ExplainSamples.row(1L, "sample_orders", "index", null, "idx_created_at", "5", 50000L, 100.0,
+                        "Using index")));
+
+        Assertions.assertEquals(List.of("FULL_INDEX_SCAN"), codes(plan));
+        Assertions.assertEquals(PlanWarning.Severity.INFO, plan.getWarnings().get(0).getSeverity());
+    }
+
+    @Test
+    public void should_report_large_rows_examined() {
+        // 10万 + (10万 × 100%) × 20 = 210万行
+        ExplainPlan plan = new ExplainAdvisor(1000000, 1000000).analyze(traditional(
+                ExplainSamples.row(1L, "o", "range", "idx_created_at", "idx_created_at", "5", 100000L, 100.0,
+                        "Using index condition"),
+                ExplainSamples.row(1L, "i", "ref", "idx_order", "idx_order", "4", 20L, 100.0, null)));
+
+        Assertions.assertEquals(List.of("LARGE_ROWS_EXAMINED"), codes(plan));
+        Assertions.assertNull(plan.getWarnings().get(0).getTable());
+    }
+
+    @Test
+    public void should_not_report_small_or_internal_tables() {
+        ExplainPlan plan = advisor.analyze(traditional(
+                ExplainSamples.row(1L, "<derived2>", "ALL", null, null, null, 50000L, 100.0, null),
+                ExplainSamples.row(2L, "sample_products", "ALL", null, null, null, 100L, 100.0, null),
+                ExplainSamples.row(3L, "sample_customers", "const", "PRIMARY", "PRIMARY", "4", 1L, 100.0, null)));
+
+        Assertions.assertEquals(List.of(), codes(plan));
+    }
+
+    @SafeVarargs
+    private ExplainPlan traditional(Map<String, Object>... rows) {
+        return parser.fromTraditional(ExplainMode.TRADITIONAL, List.of(rows));
+    }
+
+    private static List<String> codes(ExplainPlan plan) {
+        return plan.getWarnings().stream().map(PlanWarning::getCode).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package service.explain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ExplainPlanParserTest {
+
+    private final ExplainPlanParser parser = new ExplainPlanParser(new ObjectMapper());
+
+    @Test
+    public void should_parse_traditional_rows() {
+        ExplainPlan plan = parser.fromTraditional(ExplainMode.TRADITIONAL, ExplainSamples.traditional());
+
+        List<PlanNode> tables = plan.getTableAccesses();
+        Assertions.assertEquals(2, tables.size());
+        PlanNode orders = tables.get(0);
+        Assertions.assertEquals("o", orders.getTable());
+        Assertions.assertEquals("ALL", orders.getAccessType());
+        Assertions.assertNull(orders.getKey());
+        Assertions.assertEquals(List.of("idx_customer"), orders.getPossibleKeys());
+        Assertions.assertEquals(50000L, orders.getEstimatedRows());
+        Assertions.assertEquals(List.of("Using where", "Using temporary", "Using filesort"), orders.getExtra());
+        Assertions.assertEquals("PRIMARY", tables.get(1).getKey());
+        Assertions.assertEquals("4", tables.get(1).getKeyLength());
+
+        // 同じ id の行は1つの select にまとまる（行の順序が結合順）
+        Assertions.assertEquals(1, ExplainPlan.blocks(plan.getRoot()).size());
+        Assertions.assertEquals("PRIMARY", plan.getIndexUsed());
+        Assertions.assertEquals(50001L, plan.getRowsScanned());
+        // 50000 + (50000 × 10%) × 1
+        Assertions.assertEquals(55000L, plan.getEstimatedRowsExamined());
+        Assertions.assertNull(plan.getEstimatedCost());
+        Assertions.assertEquals(2, plan.getTraditionalRows().size());
+    }
+
+    @Test
+    public void should_parse_json_version_1() {
+        ExplainPlan plan = parser.fromJson(ExplainSamples.JSON_V1);
+
+        Assertions.assertEquals(ExplainMode.JSON, plan.getMode());
+        Assertions.assertEquals(6873.0, plan.getEstimatedCost(), 0.001);
+        PlanNode block = plan.getRoot().getChildren().get(0);
+        Assertions.assertEquals("query_block", block.getOperation());
+        PlanNode ordering = block.getChildren().get(0);
+        Assertions.assertEquals("ordering_operation", ordering.getOperation());
+        Assertions.assertTrue(ordering.isUsingFilesort());
+
+        List<PlanNode> tables = plan.getTableAccesses();
+        Assertions.assertEquals(2, tables.size());
+        PlanNode orders = tables.get(0);
+        Assertions.assertEquals("o", orders.getTable());
+        Assertions.assertEquals("ALL", orders.getAccessType());
+        Assertions.assertEquals(50000L, orders.getEstimatedRows());
+        Assertions.assertEquals(10.0, orders.getFiltered(), 0.001);
+        Assertions.assertEquals(5123.0, orders.getCost(), 0.001);
+        PlanNode customers = tables.get(1);
+        Assertions.assertEquals("eq_ref", customers.getAccessType());
+        Assertions.assertEquals("PRIMARY", customers.getKey());
+        Assertions.assertEquals("4", customers.getKeyLength());
+        Assertions.assertEquals(55000L, plan.getEstimatedRowsExamined());
+    }
+
+    @Test
+    public void should_parse_json_version_2() {
+        ExplainPlan plan = parser.fromJson(ExplainSamples.JSON_V2);
+
+        PlanNode sort = plan.getRoot().getChildren().get(0);
+        Assertions.assertEquals("Sort: o.created_at", sort.getOperation());
+        Assertions.assertTrue(sort.isUsingFilesort());
+        Assertions.assertEquals(6873.0, plan.getEstimatedCost(), 0.001);
+
+        List<PlanNode> tables = plan.getTableAccesses();
+        Assertions.assertEquals(2, tables.size());
+        // 操作名の別名ではなく table_name のテーブル名、アクセス方法は表形式の type に揃える
+        Assertions.assertEquals("sample_orders", tables.get(0).getTable());
+        Assertions.assertEquals("ALL", tables.get(0).getAccessType());
+        Assertions.assertNull(tables.get(0).getKey());
+        Assertions.assertEquals(50000L, tables.get(0).getEstimatedRows());
+        Assertions.assertEquals("sample_customers", tables.get(1).getTable());
+        Assertions.assertEquals("eq_ref", tables.get(1).getAccessType());
+        Assertions.assertEquals("PRIMARY", tables.get(1).getKey());
+    }
+
+    @Test
+    public void should_parse_analyze_tree() {
+        ExplainPlan plan = parser.fromAnalyze(ExplainSamples.ANALYZE);
+
+        Assertions.assertEquals(ExplainMode.ANALYZE, plan.getMode());
+        PlanNode sort = plan.getRoot().getChildren().get(0);
+        Assertions.assertEquals("Sort: o.created_at", sort.getOperation());
+        Assertions.assertTrue(sort.isUsingFilesort());
+        Assertions.assertEquals(46.1, sort.getActualTimeMs(), 0.001);
+
+        // インデントで親子関係が決まる（Filter と index lookup は Nested loop の子）
+        PlanNode join = sort.getChildren().get(0).getChildren().get(0);
+        Assertions.assertEquals("Nested loop inner join", join.getOperation());
+        Assertions.assertEquals(2, join.getChildren().size());
+        PlanNode scan = join.getChildren().get(0).getChildren().get(0);
+        Assertions.assertEquals("o", scan.getTable());
+        Assertions.assertEquals("ALL", scan.getAccessType());
+        Assertions.assertEquals(5123.0, scan.getCost(), 0.001);
+        Assertions.assertEquals(50000L, scan.getEstimatedRows());
+        Assertions.assertEquals(50000L, scan.getActualRows());
+        PlanNode lookup = join.getChildren().get(1);
+        Assertions.assertEquals("c", lookup.getTable());
+        Assertions.assertEquals("eq_ref", lookup.getAccessType());
+        Assertions.assertEquals("PRIMARY", lookup.getKey());
+        Assertions.assertEquals(5012L, lookup.getLoops());
+
+        // 実測の rows × loops の合計
+        Assertions.assertEquals(55012L, plan.getRowsScanned());
+        Assertions.assertEquals(6873.0, plan.getEstimatedCost(), 0.001);
+    }
+
+    @Test
+    public void should_reject_invalid_json() {
+        Assertions.assertThrows(IllegalStateException.class, () -> parser.fromJson("{\"query_block\": "));
+    }
+}
@@ -0,0 +1,184 @@
+package service.explain;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// MySQL 8 の EXPLAIN 出力（いずれも次のクエリのもの。sample_orders 5万行、status にインデックスなし）
+// SELECT * FROM sample_orders o JOIN sample_customers c ON c.id = o.customer_id
+// WHERE o.status = 'PAID' ORDER BY o.created_at
+final class ExplainSamples {
+
+    // EXPLAIN FORMAT=JSON（explain_json_format_version=1、8.0 の既定）
+    static final String JSON_V1 = """
+            {
+              "query_block": {
+                "select_id": 1,
+                "cost_info": {
+                  "query_cost": "6873.00"
+                },
+                "ordering_operation": {
+                  "using_filesort": true,
+                  "nested_loop": [
+                    {
+                      "table": {
+                        "table_name": "o",
+                        "access_type": "ALL",
+                        "possible_keys": [
+                          "idx_customer"
+                        ],
+                        "rows_examined_per_scan": 50000,
+                        "rows_produced_per_join": 5000,
+                        "filtered": "10.00",
+                        "cost_info": {
+                          "read_cost": "4623.00",
+                          "eval_cost": "500.00",
+                          "prefix_cost": "5123.00",
+                          "data_read_per_join": "1M"
+                        },
+                        "used_columns": [
+                          "id",
+                          "customer_id",
+                          "status",
+                          "created_at"
+                        ],
+                        "attached_condition": "(`dev_database`.`o`.`status` = 'PAID')"
+                      }
+                    },
+                    {
+                      "table": {
+                        "table_name": "c",
+                        "access_type": "eq_ref",
+                        "possible_keys": [
+                          "PRIMARY"
+                        ],
+                        "key": "PRIMARY",
+                        "used_key_parts": [
+                          "id"
+                        ],
+                        "key_length": "4",
+                        "ref": [
+                          "dev_database.o.customer_id"
+                        ],
+                        "rows_examined_per_scan": 1,
+                        "rows_produced_per_join": 5000,
+                        "filtered": "100.00",
+                        "cost_info": {
+                          "read_cost": "1250.00",
+                          "eval_cost": "500.00",
+                          "prefix_cost": "6873.00",
+                          "data_read_per_join": "781K"
+                        },
+                        "used_columns": [
+                          "id",
+                          "name"
+                        ]
+                      }
+                    }
+                  ]
+                }
+              }
+            }
+            """;
+
+    // EXPLAIN FORMAT=JSON（explain_json_format_version=2、8.3 以降）
+    static final String JSON_V2 = """
+            {
+              "query": "/* select#1 */ select * from `dev_database`.`sample_orders` `o` join `dev_database`.`sample_customers` `c` where ((`c`.`id` = `o`.`customer_id`) and (`o`.`status` = 'PAID')) order by `o`.`created_at`",
+              "inputs": [
+                {
+                  "inputs": [
+                    {
+                      "inputs": [
+                        {
+                          "alias": "o",
+                          "operation": "Table scan on o",
+                          "table_name": "sample_orders",
+                          "access_type": "table",
+                          "schema_name": "dev_database",
+                          "used_columns": ["id", "customer_id", "status", "created_at"],
+                          "estimated_rows": 50000.0,
+                          "estimated_total_cost": 5123.0
+                        }
+                      ],
+                      "condition": "(o.`status` = 'PAID')",
+                      "operation": "Filter: (o.`status` = 'PAID')",
+                      "access_type": "filter",
+                      "estimated_rows": 5000.0,
+                      "filter_columns": ["o.`status`"],
+                      "estimated_total_cost": 5123.0
+                    },
+                    {
+                      "alias": "c",
+                      "covering": false,
+                      "operation": "Single-row index lookup on c using PRIMARY (id = o.customer_id)",
+                      "index_name": "PRIMARY",
+                      "table_name": "sample_customers",
+                      "access_type": "index",
+                      "key_columns": ["id"],
+                      "schema_name": "dev_database",
+                      "used_columns": ["id", "name"],
+                      "estimated_rows": 1.0,
+                      "lookup_condition": "id = o.customer_id",
+                      "index_access_type": "index_lookup",
+                      "estimated_total_cost": 0.25
+                    }
+                  ],
+                  "join_type": "inner join",
+                  "operation": "Nested loop inner join",
+                  "access_type": "join",
+                  "estimated_rows": 5000.0,
+                  "join_algorithm": "nested_loop",
+                  "estimated_total_cost": 6873.0
+                }
+              ],
+              "operation": "Sort: o.created_at",
+              "query_type": "select",
+              "sort_fields": ["o.created_at"],
+              "access_type": "sort",
+              "estimated_rows": 5000.0,
+              "estimated_total_cost": 6873.0,
+              "json_schema_version": "2.0"
+            }
+            """;
+
+    // EXPLAIN ANALYZE（TREE 形式）
+    static final String ANALYZE = ""
+            + "-> Sort: o.created_at  (cost=6873 rows=5000) (actual time=45.2..46.1 rows=5012 loops=1)\n"
+            + "    -> Stream results  (cost=6873 rows=5000) (actual time=0.120..40.3 rows=5012 loops=1)\n"
+            + "        -> Nested loop inner join  (cost=6873 rows=5000) (actual time=0.115..38.9 rows=5012 loops=1)\n"
+            + "            -> Filter: (o.`status` = 'PAID')  (cost=5123 rows=5000) (actual time=0.095..30.1 rows=5012 loops=1)\n"
+            + "                -> Table scan on o  (cost=5123 rows=50000) (actual time=0.090..25.6 rows=50000 loops=1)\n"
+            + "            -> Single-row index lookup on c using PRIMARY (id=o.customer_id)  (cost=0.25 rows=1) "
+            + "(actual time=0.0015..0.0016 rows=1 loops=5012)\n";
+
+    private ExplainSamples() {
+    }
+
+    // 表形式 EXPLAIN（JdbcTemplate.queryForList の行と同じ型）
+    static List<Map<String, Object>> traditional() {
+        return List.of(
+                row(1L, "o", "ALL", "idx_customer", null, null, 50000L, 10.0,
+                        "Using where; Using temporary; Using filesort"),
+                row(1L, "c", "eq_ref", "PRIMARY", "PRIMARY", "4", 1L, 100.0, null)
+        );
+    }
+
+    static Map<String, Object> row(Long id, String table, String type, String possibleKeys, String key,
+                                   String keyLength, Long rows, Double filtered, String extra) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("select_type", "SIMPLE");
+        row.put("table", table);
+        row.put("partitions", null);
+        row.put("type", type);
+        row.put("possible_keys", possibleKeys);
+        row.put("key", key);
+        row.put("key_len", keyLength);
+        row.put("ref", null);
+        row.put("rows", rows);
+        row.put("filtered", filtered);
+        row.put("Extra", extra);
+        return row;
+    }
+}
@@ -0,0 +1,66 @@
+package service.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+public class DelimitedTextWriterTest {
+
+    @Test
+    public void should_escape_special_characters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DelimitedTextWriter writer = new DelimitedTextWriter(out)) {
+            writer.writeString("a\\b\tc\nd\re");
+            writer.writeString("\\N");
+            writer.writeString("日本語");
+            writer.endRow();
+        }
+        // LOAD DATA の既定の ESCAPED BY '\\' で元の文字列に戻る形。文字列 "\N" は NULL と区別される
+        Assertions.assertEquals("a\\\\b\\tc\\nd\\re\t\\\\N\t日本語\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_write_null_as_backslash_n() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DelimitedTextWriter writer = new DelimitedTextWriter(out)) {
+            writer.writeNull();
+            writer.writeString(null);
+            writer.writeString("");
+            writer.endRow();
+        }
+        // 空文字列は NULL ではなく空のカラム
+        Assertions.assertEquals("\\N\t\\N\t\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_write_cents_as_decimal() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DelimitedTextWriter writer = new DelimitedTextWriter(out)) {
+            for (long cents : new long[] {0, 7, 50, 100, 12345, -5, -99, -12345}) {
+                writer.writeCents(cents);
+            }
+            writer.endRow();
+        }
+        Assertions.assertEquals("0.00\t0.07\t0.50\t1.00\t123.45\t-0.05\t-0.99\t-123.45\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_write_other_types_and_rows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DelimitedTextWriter writer = new DelimitedTextWriter(out)) {
+            writer.writeLong(-42);
+            writer.writeDate(LocalDate.of(2024, 2, 29).toEpochDay());
+            writer.writeBoolean(true);
+            writer.endRow();
+            writer.writeLong(1);
+            writer.writeBoolean(false);
+            writer.endRow();
+        }
+        Assertions.assertEquals("-42\t2024-02-29\t1\n1\t0\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
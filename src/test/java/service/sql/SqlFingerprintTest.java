@@ -0,0 +1,89 @@
+package service.sql;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SqlFingerprintTest {
+
+    @Test
+    public void should_replace_literals_and_normalize_case_and_whitespace() {
+        Assertions.assertEquals("select * from t where a = ? and b = ? and c = ? and d = ?",
+                shape("SELECT  *\n FROM t WHERE a = 'x' AND b = -1.5 AND c = TRUE AND d = x'0F';"));
+        // 2項の - は演算子のまま
+        Assertions.assertEquals("select a - ? from t", shape("SELECT a - 1 FROM t"));
+        Assertions.assertEquals("select count(*) from t", shape("select COUNT( * ) from T"));
+    }
+
+    @Test
+    public void should_ignore_comments_but_keep_executable_comments() {
+        Assertions.assertEquals(SqlFingerprint.of("SELECT a FROM t WHERE id = 1"),
+                SqlFingerprint.of("SELECT /*+ BKA(t) */ a -- note\nFROM t # x\nWHERE id = 2"));
+        Assertions.assertEquals("select /*!50000 sql_no_cache */ a from t",
+                shape("SELECT /*!50000 SQL_NO_CACHE */ a FROM t"));
+    }
+
+    @Test
+    public void should_collapse_in_lists() {
+        Assertions.assertEquals("select * from t where id in (?+)", shape("SELECT * FROM t WHERE id IN (1)"));
+        Assertions.assertEquals(SqlFingerprint.of("SELECT * FROM t WHERE id IN (1)"),
+                SqlFingerprint.of("SELECT * FROM t WHERE id IN (1, 2, -3, 'x', ?)"));
+        // 列を含むリストや括弧の入れ子はまとめない
+        Assertions.assertEquals("select * from t where id in (?, b)", shape("SELECT * FROM t WHERE id IN (1, b)"));
+        Assertions.assertEquals("select * from t where (a, b) in ((?, ?), (?, ?))",
+                shape("SELECT * FROM t WHERE (a, b) IN ((1, 2), (3, 4))"));
+    }
+
+    @Test
+    public void should_collapse_values_rows_of_the_same_shape() {
+        Assertions.assertEquals("insert into t(a, b) values (?, ?)",
+                shape("INSERT INTO t (a, b) VALUES (1, 'x'), (2, 'y'), (3, 'z')"));
+        Assertions.assertEquals(SqlFingerprint.of("INSERT INTO t VALUES (1, 2)"),
+                SqlFingerprint.of("INSERT INTO t VALUES (1, 2), (3, 4), (5, 6)"));
+        // 形の違う行は残す
+        Assertions.assertEquals("insert into t values (?, ?), (?, now())",
+                shape("INSERT INTO t VALUES (1, 2), (3, NOW())"));
+        // 列リストの後ろの VALUES 以外の括弧はまとめない
+        Assertions.assertEquals("select * from t where a in (select ? from u), (?)",
+                shape("SELECT * FROM t WHERE a IN (SELECT 1 FROM u), (1)"));
+    }
+
+    @Test
+    public void should_keep_hash_stable() {
+        // 保存済みの query_history.fingerprint と一致させるため、ハッシュ関数を変えたらここが落ちる
+        SqlFingerprint fingerprint = SqlFingerprint.of("SELECT * FROM users WHERE id = 42");
+        Assertions.assertEquals("select * from users where id = ?", fingerprint.getShape());
+        Assertions.assertEquals("1816ec25f3a1f652", fingerprint.getHashHex());
+        Assertions.assertEquals(16, SqlFingerprint.toHex(1L).length());
+        Assertions.assertNotEquals(fingerprint.getHash(), SqlFingerprint.of("SELECT * FROM users WHERE name = 'a'").getHash());
+    }
+
+    @Test
+    public void should_keep_literals_in_canonical_form() {
+        Assertions.assertEquals("select * from t where a = 'X' and b = 1",
+                SqlFingerprint.canonical("SELECT *\tFROM t -- c\n WHERE a = 'X' AND b = 1;"));
+    }
+
+    @Test
+    public void should_keep_select_lists_and_aliases_as_written_in_result_keys() {
+        // 列リストと別名は結果の列ラベルになるので、綴りが違えば別のキー
+        Assertions.assertNotEquals(resultKey("SELECT id AS Total FROM sample_orders"),
+                resultKey("SELECT id AS total FROM sample_orders"));
+        Assertions.assertNotEquals(resultKey("SELECT ID FROM sample_orders"), resultKey("SELECT id FROM sample_orders"));
+        Assertions.assertNotEquals(resultKey("SELECT a+1 FROM sample_orders"), resultKey("SELECT a + 1 FROM sample_orders"));
+        Assertions.assertNotEquals(resultKey("SELECT * FROM (SELECT id AS Total FROM sample_orders) t"),
+                resultKey("SELECT * FROM (SELECT id AS total FROM sample_orders) t"));
+        // それ以外は canonical と同じく空白・コメント・大文字小文字を揃える
+        Assertions.assertEquals("select id AS Total from sample_orders where status = 'A' limit 10",
+                resultKey("SELECT id AS Total\n FROM Sample_Orders -- c\n WHERE STATUS = 'A' LIMIT 10;"));
+        Assertions.assertEquals("select * from (select Id from sample_orders) as T",
+                resultKey("select * FROM (SELECT Id FROM sample_orders) AS T"));
+    }
+
+    private static String shape(String sql) {
+        return SqlFingerprint.of(sql).getShape();
+    }
+
+    private static String resultKey(String sql) {
+        return SqlFingerprint.resultKey(sql, SqlLexer.tokenize(sql));
+    }
+}
@@ -0,0 +1,87 @@
+package service.sql;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SqlLexerTest {
+
+    @Test
+    public void should_skip_comments_and_optimizer_hints() {
+        Assertions.assertEquals(List.of("SELECT", "1", "FROM", "t"),
+                texts("SELECT /*+ NO_INDEX(t) */ 1 # hash\nFROM -- dash\n t /* block */"));
+        // "--" の直後が空白でなければコメントではない（1 - -1）
+        Assertions.assertEquals(List.of("SELECT", "1", "-", "-", "1"), texts("SELECT 1--1"));
+    }
+
+    @Test
+    public void should_keep_executable_comment_boundaries() {
+        List<SqlToken> tokens = SqlLexer.tokenize("SELECT /*!50000 SQL_NO_CACHE */ 1");
+        Assertions.assertEquals(List.of("SELECT", "/*!50000", "SQL_NO_CACHE", "*/", "1"), texts(tokens));
+        Assertions.assertEquals(SqlToken.Type.EXECUTABLE_COMMENT, tokens.get(1).getType());
+        Assertions.assertEquals(SqlToken.Type.WORD, tokens.get(2).getType());
+        Assertions.assertEquals(SqlToken.Type.EXECUTABLE_COMMENT, tokens.get(3).getType());
+        // 実行コメントの外の */ は記号
+        Assertions.assertEquals(SqlToken.Type.SYMBOL, SqlLexer.tokenize("SELECT 2 */ 1").get(2).getType());
+    }
+
+    @Test
+    public void should_handle_quotes_and_escapes() {
+        List<SqlToken> tokens = SqlLexer.tokenize("SELECT 'it''s', 'a\\'b', \"x\"\"y\", `we``ird` FROM t");
+        Assertions.assertEquals(List.of("SELECT", "'it''s'", ",", "'a\\'b'", ",", "\"x\"\"y\"", ",", "`we``ird`", "FROM", "t"),
+                texts(tokens));
+        Assertions.assertEquals(SqlToken.Type.STRING, tokens.get(3).getType());
+        Assertions.assertEquals(SqlToken.Type.QUOTED_IDENTIFIER, tokens.get(7).getType());
+        Assertions.assertEquals("we`ird", tokens.get(7).identifier());
+        // コメント記号は文字列の中では効かない
+        Assertions.assertEquals(List.of("SELECT", "'-- #'", "FROM", "t"), texts("SELECT '-- #' FROM t"));
+    }
+
+    @Test
+    public void should_mark_unclosed_literals() {
+        List<SqlToken> tokens = SqlLexer.tokenize("SELECT 'abc FROM t");
+        Assertions.assertEquals(2, tokens.size());
+        Assertions.assertEquals("'abc FROM t", tokens.get(1).getText());
+        Assertions.assertFalse(tokens.get(1).isClosed());
+        Assertions.assertFalse(SqlLexer.tokenize("SELECT `abc").get(1).isClosed());
+    }
+
+    @Test
+    public void should_read_hex_bit_and_national_literals() {
+        List<SqlToken> tokens = SqlLexer.tokenize("SELECT x'0F', B'101', N'abc', 0x1F, 0b101, 1.5e3, 1abc");
+        Assertions.assertEquals(SqlToken.Type.STRING, tokens.get(1).getType());
+        Assertions.assertEquals("x'0F'", tokens.get(1).getText());
+        Assertions.assertEquals(SqlToken.Type.STRING, tokens.get(3).getType());
+        Assertions.assertEquals(SqlToken.Type.STRING, tokens.get(5).getType());
+        Assertions.assertEquals(SqlToken.Type.NUMBER, tokens.get(7).getType());
+        Assertions.assertEquals("0x1F", tokens.get(7).getText());
+        Assertions.assertEquals(SqlToken.Type.NUMBER, tokens.get(9).getType());
+        Assertions.assertEquals("0b101", tokens.get(9).getText());
+        Assertions.assertEquals(SqlToken.Type.NUMBER, tokens.get(11).getType());
+        Assertions.assertEquals("1.5e3", tokens.get(11).getText());
+        // 数字で始まる識別子
+        Assertions.assertEquals(SqlToken.Type.WORD, tokens.get(13).getType());
+        Assertions.assertEquals("1abc", tokens.get(13).getText());
+    }
+
+    @Test
+    public void should_read_variables_placeholders_and_operators() {
+        List<SqlToken> tokens = SqlLexer.tokenize("SELECT @@session.sql_mode, @`v`, ? <=> a->>'$.x'");
+        Assertions.assertEquals(SqlToken.Type.VARIABLE, tokens.get(1).getType());
+        Assertions.assertEquals("@@session.sql_mode", tokens.get(1).getText());
+        Assertions.assertEquals("@`v`", tokens.get(3).getText());
+        Assertions.assertEquals(SqlToken.Type.PLACEHOLDER, tokens.get(5).getType());
+        Assertions.assertTrue(tokens.get(6).isSymbol("<=>"));
+        Assertions.assertTrue(tokens.get(8).isSymbol("->>"));
+    }
+
+    private static List<String> texts(String sql) {
+        return texts(SqlLexer.tokenize(sql));
+    }
+
+    private static List<String> texts(List<SqlToken> tokens) {
+        return tokens.stream().map(SqlToken::getText).collect(Collectors.toList());
+    }
+}